@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
@@ -34,6 +35,7 @@ import org.edamontology.pubfetcher.core.common.PubFetcher;
 import org.edamontology.pubfetcher.core.db.Database;
 import org.edamontology.pubfetcher.core.db.DatabaseEntry;
 import org.edamontology.pubfetcher.core.db.DatabaseEntryType;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
 import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
 import org.edamontology.pubfetcher.core.db.publication.PublicationPartName;
 import org.edamontology.pubfetcher.core.fetching.Fetcher;
@@ -42,6 +44,9 @@ public class DbFetch implements Runnable {
 
 	private static final Logger logger = LogManager.getLogger();
 
+	// number of publications whose Europe PMC results and E-utilities articles are prefetched at once
+	private static final int PREFETCH = 100;
+
 	static Object lock = new Object();
 
 	static boolean lockDone;
@@ -53,6 +58,9 @@ public class DbFetch implements Runnable {
 	private static DatabaseEntryType databaseEntryType;
 	private static List<? extends Object> databaseEntryIds;
 
+	// completed when the window of PREFETCH publications is prefetched
+	private static List<CompletableFuture<Void>> prefetches;
+
 	private static long startMillis;
 
 	private final PubFetcherArgs args;
@@ -90,6 +98,11 @@ public class DbFetch implements Runnable {
 		databaseEntryType = type;
 		databaseEntryIds = new ArrayList<>(ids);
 
+		prefetches = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i += PREFETCH) {
+			prefetches.add(new CompletableFuture<>());
+		}
+
 		startMillis = start;
 
 		exceptionIndexes = new LinkedList<>();
@@ -103,6 +116,26 @@ public class DbFetch implements Runnable {
 		return databaseEntries;
 	}
 
+	// called without lock on databaseEntryIds held, threads fetching publications of the window wait for the completion of its prefetch instead
+	@SuppressWarnings("unchecked")
+	private void prefetch(int window) {
+		int from = window * PREFETCH;
+		try {
+			List<PublicationIds> prefetchIds = new ArrayList<>();
+			for (PublicationIds publicationIds : ((List<PublicationIds>) databaseEntryIds).subList(from, Math.min(from + PREFETCH, databaseEntryIds.size()))) {
+				Publication publication = (db != null ? db.getPublication(publicationIds) : null);
+				if (publication == null || publication.canFetch(fetcherArgs)) {
+					prefetchIds.add(publicationIds);
+				}
+			}
+			if (!prefetchIds.isEmpty()) {
+				fetcher.prefetch(prefetchIds, parts, fetcherArgs);
+			}
+		} finally {
+			prefetches.get(window).complete(null);
+		}
+	}
+
 	@Override
 	public void run() {
 		synchronized(lock) {
@@ -115,6 +148,8 @@ public class DbFetch implements Runnable {
 				int localIndex;
 				boolean exceptionIndex = false;
 				long progressStart;
+				List<Integer> prefetchWindows = new ArrayList<>(2);
+				CompletableFuture<Void> prefetchWait = null;
 				synchronized(databaseEntryIds) {
 					progressStart = startMillis;
 					if (index >= databaseEntryIds.size()) {
@@ -130,6 +165,16 @@ public class DbFetch implements Runnable {
 					} else {
 						localIndex = index;
 						id = databaseEntryIds.get(localIndex);
+						// the next window is prefetched when fetching of a window starts, so that it is ready by the time its publications are fetched
+						if (databaseEntryType == DatabaseEntryType.publication && fetcher != null) {
+							if (localIndex == 0) {
+								prefetchWindows.add(0);
+							}
+							if (localIndex % PREFETCH == 0 && localIndex + PREFETCH < databaseEntryIds.size()) {
+								prefetchWindows.add(localIndex / PREFETCH + 1);
+							}
+							prefetchWait = prefetches.get(localIndex / PREFETCH);
+						}
 						++index;
 						if (index >= databaseEntryIds.size()) {
 							startMillis = System.currentTimeMillis();
@@ -137,6 +182,13 @@ public class DbFetch implements Runnable {
 					}
 				}
 
+				for (int prefetchWindow : prefetchWindows) {
+					prefetch(prefetchWindow);
+				}
+				if (prefetchWait != null) {
+					prefetchWait.join();
+				}
+
 				logger.info((exceptionIndex ? "Refetch" : "Fetch") + " {} {}", databaseEntryType, PubFetcher.progress(localIndex + 1, databaseEntryIds.size(), progressStart));
 				if (stderr) {
 					System.err.print((exceptionIndex ? "Refetch" : "Fetch") + " " + databaseEntryType + " " + PubFetcher.progress(localIndex + 1, databaseEntryIds.size(), progressStart) + "  \r");
@@ -24,6 +24,7 @@ import java.util.List;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParametersDelegate;
 
+import org.edamontology.pubfetcher.core.common.DatabaseArgs;
 import org.edamontology.pubfetcher.core.common.PositiveInteger;
 import org.edamontology.pubfetcher.core.db.publication.PublicationPartName;
 import org.edamontology.pubfetcher.core.db.publication.PublicationPartType;
@@ -34,6 +35,9 @@ public class PubFetcherArgs {
 	@ParametersDelegate
 	FetcherTestArgs fetcherTestArgs = new FetcherTestArgs();
 
+	@ParametersDelegate
+	DatabaseArgs databaseArgs = new DatabaseArgs();
+
 	@Parameter(names = { "-db-init" }, description = "Create an empty database file. This is the only way to make new databases.")
 	String dbInit = null;
 
@@ -58,6 +62,9 @@ public class PubFetcherArgs {
 	@Parameter(names = { "-db-publications-map-reverse" }, description = "Output all mappings from primary ID to the triple [PMID, PMCID, DOI] stored in the database to stdout")
 	String dbPublicationsMapReverse = null;
 
+	@Parameter(names = { "-db-benchmark" }, description = "Compare the speed of reading all entries of the database with random access file I/O and memory-mapped I/O, both read-write and read-only, and getting all entries by key without and with the cache, and output the timings to stdout")
+	String dbBenchmark = null;
+
 	@Parameter(names = { "-fetch-document" }, description = "Fetch a web page (without JavaScript support, i.e. using jsoup) and output its raw HTML to stdout")
 	String fetchDocument = null;
 
@@ -28,6 +28,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -56,6 +58,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.fasterxml.jackson.core.JsonGenerator;
 
+import org.edamontology.pubfetcher.core.common.DatabaseArgs;
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.IllegalRequestException;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
@@ -91,53 +94,132 @@ public final class PubFetcherMethods {
 		return Instant.ofEpochMilli(time).toString();
 	}
 
-	private static void dbInit(String database) throws FileAlreadyExistsException {
+	private static void dbInit(String database, DatabaseArgs databaseArgs) throws FileAlreadyExistsException {
 		logger.info("Init database: {}", database);
-		Database.init(database);
+		Database.init(database, databaseArgs.getShards());
 		logger.info("Init: success");
 	}
-	private static void dbCommit(String database) throws IOException {
+	private static void dbCommit(String database, DatabaseArgs databaseArgs) throws IOException {
 		logger.info("Commit database: {}", database);
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			db.commit();
 		}
 		logger.info("Commit: success");
 	}
-	private static void dbCompact(String database) throws IOException {
+	private static void dbCompact(String database, DatabaseArgs databaseArgs) throws IOException {
 		logger.info("Compact database: {}", database);
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			db.compact();
 		}
 		logger.info("Compact: success");
 	}
 
-	private static void dbPublicationsSize(String database) throws IOException {
-		try (Database db = new Database(database)) {
+	private static void dbPublicationsSize(String database, DatabaseArgs databaseArgs) throws IOException {
+		try (Database db = new Database(database, databaseArgs)) {
 			System.out.println(db.getPublicationsSize());
 		}
 	}
-	private static void dbWebpagesSize(String database) throws IOException {
-		try (Database db = new Database(database)) {
+	private static void dbWebpagesSize(String database, DatabaseArgs databaseArgs) throws IOException {
+		try (Database db = new Database(database, databaseArgs)) {
 			System.out.println(db.getWebpagesSize());
 		}
 	}
-	private static void dbDocsSize(String database) throws IOException {
-		try (Database db = new Database(database)) {
+	private static void dbDocsSize(String database, DatabaseArgs databaseArgs) throws IOException {
+		try (Database db = new Database(database, databaseArgs)) {
 			System.out.println(db.getDocsSize());
 		}
 	}
 
-	private static void dbPublicationsMap(String database) throws IOException {
-		try (Database db = new Database(database)) {
-			System.out.print(db.dumpPublicationsMap());
+	private static void dbPublicationsMap(String database, DatabaseArgs databaseArgs) throws IOException {
+		try (Database db = new Database(database, databaseArgs)) {
+			db.dumpPublicationsMap(System.out);
 		}
 	}
-	private static void dbPublicationsMapReverse(String database) throws IOException {
-		try (Database db = new Database(database)) {
-			System.out.print(db.dumpPublicationsMapReverse());
+	private static void dbPublicationsMapReverse(String database, DatabaseArgs databaseArgs) throws IOException {
+		try (Database db = new Database(database, databaseArgs)) {
+			db.dumpPublicationsMapReverse(System.out);
 		}
 	}
 
+	private static long[] dbScan(Database db) {
+		long[] counts = new long[3];
+		db.streamPublications(false).forEach(publication -> {
+			publication.loadContent();
+			++counts[0];
+		});
+		db.streamWebpages(false).forEach(webpage -> ++counts[1]);
+		db.streamDocs(false).forEach(doc -> ++counts[2]);
+		return counts;
+	}
+	private static long[] dbGet(Database db, Set<PublicationIds> publicationIds, Set<String> webpageUrls, Set<String> docUrls) {
+		long[] counts = new long[3];
+		for (PublicationIds ids : publicationIds) {
+			Publication publication = db.getPublication(ids);
+			if (publication != null) {
+				publication.loadContent();
+				++counts[0];
+			}
+		}
+		for (String url : webpageUrls) {
+			if (db.getWebpage(url, false) != null) ++counts[1];
+		}
+		for (String url : docUrls) {
+			if (db.getDoc(url, false) != null) ++counts[2];
+		}
+		return counts;
+	}
+	private static void dbBenchmarkGet(String label, Database db, Set<PublicationIds> publicationIds, Set<String> webpageUrls, Set<String> docUrls) {
+		long start = System.nanoTime();
+		long[] counts = dbGet(db, publicationIds, webpageUrls, docUrls);
+		long got = System.nanoTime();
+		System.out.println(String.format(Locale.ROOT, "%-14s : get %d ms (%d publications, %d webpages, %d docs)", label,
+			(got - start) / 1000000, counts[0], counts[1], counts[2]));
+	}
+	private static void dbBenchmark(String database, DatabaseArgs databaseArgs) throws IOException {
+		logger.info("Benchmark database: {}", database);
+		// warm-up, so that the first mode is not disadvantaged by cold caches (also upgrades the database, if needed for read-only mode)
+		try (Database db = new Database(database, databaseArgs)) {
+			dbScan(db);
+		}
+		String[] labels = { "file", "mmap", "file read-only", "mmap read-only" };
+		for (int i = 0; i < labels.length; ++i) {
+			DatabaseArgs modeArgs = new DatabaseArgs();
+			modeArgs.setAllocateIncrement(databaseArgs.getAllocateIncrement());
+			modeArgs.setMmap(i % 2 == 1);
+			modeArgs.setReadOnly(i >= 2);
+			long start = System.nanoTime();
+			try (Database db = new Database(database, modeArgs)) {
+				long opened = System.nanoTime();
+				long[] counts = dbScan(db);
+				long scanned = System.nanoTime();
+				System.out.println(String.format(Locale.ROOT, "%-14s : open %d ms, scan %d ms (%d publications, %d webpages, %d docs)", labels[i],
+					(opened - start) / 1000000, (scanned - opened) / 1000000, counts[0], counts[1], counts[2]));
+			}
+		}
+		// getting all entries by key, without the cache and with it, where the entries are put to the cache by the first get
+		Set<PublicationIds> publicationIds;
+		Set<String> webpageUrls;
+		Set<String> docUrls;
+		try (Database db = new Database(database, databaseArgs)) {
+			publicationIds = db.getPublicationIds();
+			webpageUrls = db.getWebpageUrls();
+			docUrls = db.getDocUrls();
+		}
+		DatabaseArgs getArgs = new DatabaseArgs();
+		getArgs.setAllocateIncrement(databaseArgs.getAllocateIncrement());
+		getArgs.setMmap(databaseArgs.isMmap());
+		getArgs.setReadOnly(true);
+		try (Database db = new Database(database, getArgs)) {
+			dbBenchmarkGet("get", db, publicationIds, webpageUrls, docUrls);
+		}
+		getArgs.setCacheSize(databaseArgs.getCacheSize() > 0 ? databaseArgs.getCacheSize() : 1024);
+		try (Database db = new Database(database, getArgs)) {
+			dbBenchmarkGet("get cache miss", db, publicationIds, webpageUrls, docUrls);
+			dbBenchmarkGet("get cache hit", db, publicationIds, webpageUrls, docUrls);
+		}
+		logger.info("Benchmark: success");
+	}
+
 	private static void fetchDocument(String url, Fetcher fetcher, FetcherArgs fetcherArgs) {
 		System.out.println(fetcher.getDoc(url, false, fetcherArgs));
 	}
@@ -289,20 +371,26 @@ public final class PubFetcherMethods {
 		return idsChecked;
 	}
 
-	private static List<? extends Object> idsDb(List<String> databases, DatabaseEntryType type) throws IOException {
-		List<Object> ids = new ArrayList<>();
+	// IDs are streamed from the database directly to the given collection, without intermediate copies
+	@SuppressWarnings("unchecked")
+	private static <T> void idsDb(List<String> databases, DatabaseArgs databaseArgs, DatabaseEntryType type, Collection<T> ids) throws IOException {
 		logger.info("Get {} {}s from database: {}", type, getIdString(type), databases);
+		long[] count = new long[1];
 		for (String database : databases) {
-			try (Database db = new Database(database)) {
+			try (Database db = new Database(database, databaseArgs)) {
+				Stream<?> stream = null;
 				switch (type) {
-					case publication: ids.addAll(db.getPublicationIds()); break;
-					case webpage: ids.addAll(db.getWebpageUrls()); break;
-					case doc: ids.addAll(db.getDocUrls()); break;
+					case publication: stream = db.streamPublicationIds(false); break;
+					case webpage: stream = db.streamWebpageUrls(false); break;
+					case doc: stream = db.streamDocUrls(false); break;
 				}
+				stream.forEach(id -> {
+					ids.add((T) id);
+					++count[0];
+				});
 			}
 		}
-		logger.info("Got {} {} {}s", ids.size(), type, getIdString(type));
-		return ids;
+		logger.info("Got {} {} {}s", count[0], type, getIdString(type));
 	}
 
 	private static <T> void filter(Collection<T> collection, Predicate<T> filter, String what, String condition, boolean yes, boolean log) {
@@ -526,11 +614,11 @@ public final class PubFetcherMethods {
 		return ids.stream().sorted(Collections.reverseOrder()).collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 
-	private static void removeIds(Set<? extends Object> ids, String database, DatabaseEntryType type) throws IOException {
+	private static void removeIds(Set<? extends Object> ids, String database, DatabaseArgs databaseArgs, DatabaseEntryType type) throws IOException {
 		if (ids.isEmpty()) return;
 		logger.info("Remove {} {}s from database {} (based on {})", ids.size(), type, database, getIdString(type));
 		int fail = 0;
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			for (Object id : ids) {
 				boolean removed = false;
 				switch (type) {
@@ -658,35 +746,98 @@ public final class PubFetcherMethods {
 	}
 
 	@SuppressWarnings("unchecked")
-	private static <T extends DatabaseEntry<T>> List<T> db(PubFetcherArgs args, Fetcher fetcher, FetcherArgs fetcherArgs, Set<? extends Object> ids, String database, int limit, DatabaseEntryType type) throws IOException {
+	private static <T extends DatabaseEntry<T>> List<T> db(PubFetcherArgs args, Fetcher fetcher, FetcherArgs fetcherArgs, Set<? extends Object> ids, Database db, String database, int limit, DatabaseEntryType type) throws IOException {
 		if (ids.isEmpty() || limit <= 0) {
 			return Collections.emptyList();
 		}
 		List<T> entries = new ArrayList<>();
 		int nullCount = 0;
 		logger.info("Get {} {}s from database: {}", ids.size(), type, database);
-		try (Database db = new Database(database)) {
-			for (Object id : ids) {
-				T entry = null;
-				switch (type) {
-					case publication: entry = (T) db.getPublication((PublicationIds) id); break;
-					case webpage: entry = (T) db.getWebpage((String) id, true); break;
-					case doc: entry = (T) db.getDoc((String) id, true); break;
-				}
-				if (entry != null) {
-					if (preFilter(args, fetcher, fetcherArgs, entry, type)) {
-						entries.add(entry);
-						if (entries.size() >= limit) break;
-					}
-				} else {
-					++nullCount;
+		for (Object id : ids) {
+			T entry = null;
+			switch (type) {
+				case publication: entry = (T) db.getPublication((PublicationIds) id); break;
+				case webpage: entry = (T) db.getWebpage((String) id, true); break;
+				case doc: entry = (T) db.getDoc((String) id, true); break;
+			}
+			if (entry != null) {
+				if (preFilter(args, fetcher, fetcherArgs, entry, type)) {
+					entries.add(entry);
+					if (entries.size() >= limit) break;
 				}
+			} else {
+				++nullCount;
 			}
 		}
 		logGot("Got", ids.size(), entries.size(), nullCount, type);
 		return entries;
 	}
 
+	// narrows the IDs to get from a database down to those whose entries can pass the content filters according to the indexes of the database
+	// (the content filters are still applied to the entries got), not done if the limit is applied before the filters
+	private static <T> Set<T> dbIndexed(PubFetcherArgs args, Database db, Set<T> ids, DatabaseEntryType type) {
+		if (ids.isEmpty() || !db.isIndexed() || args.limit > 0 && !args.preFilter) {
+			return ids;
+		}
+		List<Stream<String>> finds = new ArrayList<>();
+		if (args.fetchTimeMore != null || args.fetchTimeLess != null) {
+			finds.add(db.findByFetchTime(type, args.fetchTimeMore != null ? args.fetchTimeMore : Long.MIN_VALUE, args.fetchTimeLess != null ? args.fetchTimeLess : Long.MAX_VALUE));
+		}
+		if (args.retryCounter != null) {
+			finds.add(args.retryCounter.stream().flatMap(count -> db.findByRetryCounter(type, count, count)));
+		}
+		if (args.retryCounterMore != null || args.retryCounterLess != null) {
+			finds.add(db.findByRetryCounter(type, args.retryCounterMore != null ? args.retryCounterMore + 1 : Integer.MIN_VALUE, args.retryCounterLess != null ? args.retryCounterLess - 1 : Integer.MAX_VALUE));
+		}
+		if (args.fetchException) {
+			finds.add(db.findByFetchException(type, true));
+		}
+		if (args.notFetchException) {
+			finds.add(db.findByFetchException(type, false));
+		}
+		if (args.isFinal || args.totallyFinal && type == DatabaseEntryType.publication) {
+			finds.add(db.findPossiblyFinal(type));
+		}
+		if (args.finalUrlHost != null && type != DatabaseEntryType.publication) {
+			finds.add(args.finalUrlHost.stream().flatMap(host -> db.findByFinalUrlHost(type, host)));
+		}
+		if (finds.isEmpty()) {
+			return ids;
+		}
+		Set<String> keys = null;
+		for (Stream<String> find : finds) {
+			Set<String> found = find.collect(Collectors.toSet());
+			if (keys == null) {
+				keys = found;
+			} else {
+				keys.retainAll(found);
+			}
+		}
+		Set<T> idsIndexed = new LinkedHashSet<>();
+		for (T id : ids) {
+			if (type == DatabaseEntryType.publication) {
+				PublicationIds publicationIds = (PublicationIds) id;
+				if (keys.contains(db.getPrimaryId(publicationIds.getPmid())) || keys.contains(db.getPrimaryId(publicationIds.getPmcid())) || keys.contains(db.getPrimaryId(publicationIds.getDoi()))) {
+					idsIndexed.add(id);
+				}
+			} else if (keys.contains((String) id)) {
+				idsIndexed.add(id);
+			}
+		}
+		logger.info("Narrowed {} {} {}s down to {} with indexes of database", ids.size(), type, getIdString(type), idsIndexed.size());
+		return idsIndexed;
+	}
+
+	private static boolean sameDatabase(String database, String... others) {
+		Path path = Paths.get(database).toAbsolutePath().normalize();
+		for (String other : others) {
+			if (other != null && Paths.get(other).toAbsolutePath().normalize().equals(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <T extends DatabaseEntry<T>> T fetchDatabaseEntry(Object id, Database db, Fetcher fetcher, EnumMap<PublicationPartName, Boolean> parts, FetcherArgs fetcherArgs, boolean put, DatabaseEntryType type) {
 		T entry = null;
@@ -792,7 +943,7 @@ public final class PubFetcherMethods {
 		List<Object> exceptionIds = new ArrayList<>();
 		int nullCount = 0;
 		logger.info("Fetch {} {}s and put to database: {}", ids.size(), type, database);
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, args.databaseArgs)) {
 			int i = 0;
 			long start = System.currentTimeMillis();
 			for (Object id : ids) {
@@ -851,7 +1002,7 @@ public final class PubFetcherMethods {
 		}
 		List<T> entries = (List<T>) DbFetch.init(type, ids, System.currentTimeMillis());
 		logger.info("Get {} {}s from database: {} (or fetch if not present)", ids.size(), type, database);
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, args.databaseArgs)) {
 			for (int i = 0; i < threads; ++i) {
 				Thread t = new Thread(new DbFetch(args, db, fetcher, parts, fetcherArgs, end, limit, stderr));
 				t.setDaemon(true);
@@ -868,6 +1019,13 @@ public final class PubFetcherMethods {
 					}
 				}
 			}
+			if (type == DatabaseEntryType.publication) {
+				for (T entry : entries) {
+					if (entry != null) {
+						((Publication) entry).loadContent();
+					}
+				}
+			}
 		}
 		entries.removeIf(Objects::isNull);
 		logGot("Got", ids.size(), entries.size(), DbFetch.nullCount.get(), type);
@@ -980,12 +1138,12 @@ public final class PubFetcherMethods {
 		}
 	}
 
-	private static void updateCitationsCount(List<Publication> publications, String database, Fetcher fetcher, FetcherArgs fetcherArgs, boolean stderr) throws IOException {
+	private static void updateCitationsCount(List<Publication> publications, String database, DatabaseArgs databaseArgs, Fetcher fetcher, FetcherArgs fetcherArgs, boolean stderr) throws IOException {
 		if (publications.isEmpty()) return;
 		logger.info("Update citations count of {} publications and put successfully updated to database: {}", publications.size(), database);
 		long start = System.currentTimeMillis();
 		int fail = 0;
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			for (int i = 0; i < publications.size(); ++i) {
 				Publication publication = publications.get(i);
 				logger.info("Update citations count {}", PubFetcher.progress(i + 1, publications.size(), start));
@@ -1004,11 +1162,11 @@ public final class PubFetcherMethods {
 		logger.info("Updated citations count of {} publications", publications.size() - fail);
 	}
 
-	private static <T extends DatabaseEntry<T>> void put(List<T> entries, String database, DatabaseEntryType type) throws IOException {
+	private static <T extends DatabaseEntry<T>> void put(List<T> entries, String database, DatabaseArgs databaseArgs, DatabaseEntryType type) throws IOException {
 		if (entries.isEmpty()) return;
 		logger.info("Put {} {}s to database: {}", entries.size(), type, database);
 		int fail = 0;
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			for (T entry : entries) {
 				boolean success = false;
 				switch (type) {
@@ -1024,11 +1182,11 @@ public final class PubFetcherMethods {
 		logger.info("Put {} {}s", entries.size() - fail, type);
 	}
 
-	private static <T extends DatabaseEntry<T>> void remove(List<T> entries, String database, DatabaseEntryType type) throws IOException {
+	private static <T extends DatabaseEntry<T>> void remove(List<T> entries, String database, DatabaseArgs databaseArgs, DatabaseEntryType type) throws IOException {
 		if (entries.isEmpty()) return;
 		logger.info("Remove {} {}s from database: {}", entries.size(), type, database);
 		int fail = 0;
-		try (Database db = new Database(database)) {
+		try (Database db = new Database(database, databaseArgs)) {
 			for (T entry : entries) {
 				boolean success = false;
 				switch (type) {
@@ -1755,16 +1913,18 @@ public final class PubFetcherMethods {
 			PUB_ID_SOURCE = version.getName() + " " + version.getVersion();
 		}
 
-		if (args.dbInit != null) dbInit(args.dbInit);
-		if (args.dbCommit != null) dbCommit(args.dbCommit);
-		if (args.dbCompact != null) dbCompact(args.dbCompact);
+		if (args.dbInit != null) dbInit(args.dbInit, args.databaseArgs);
+		if (args.dbCommit != null) dbCommit(args.dbCommit, args.databaseArgs);
+		if (args.dbCompact != null) dbCompact(args.dbCompact, args.databaseArgs);
+
+		if (args.dbPublicationsSize != null) dbPublicationsSize(args.dbPublicationsSize, args.databaseArgs);
+		if (args.dbWebpagesSize != null) dbWebpagesSize(args.dbWebpagesSize, args.databaseArgs);
+		if (args.dbDocsSize != null) dbDocsSize(args.dbDocsSize, args.databaseArgs);
 
-		if (args.dbPublicationsSize != null) dbPublicationsSize(args.dbPublicationsSize);
-		if (args.dbWebpagesSize != null) dbWebpagesSize(args.dbWebpagesSize);
-		if (args.dbDocsSize != null) dbDocsSize(args.dbDocsSize);
+		if (args.dbPublicationsMap != null) dbPublicationsMap(args.dbPublicationsMap, args.databaseArgs);
+		if (args.dbPublicationsMapReverse != null) dbPublicationsMapReverse(args.dbPublicationsMapReverse, args.databaseArgs);
 
-		if (args.dbPublicationsMap != null) dbPublicationsMap(args.dbPublicationsMap);
-		if (args.dbPublicationsMapReverse != null) dbPublicationsMapReverse(args.dbPublicationsMapReverse);
+		if (args.dbBenchmark != null) dbBenchmark(args.dbBenchmark, args.databaseArgs);
 
 		if (args.fetchDocument != null) {
 			fetchDocument(args.fetchDocument, fetcher, fetcherArgs);
@@ -1853,17 +2013,17 @@ public final class PubFetcherMethods {
 
 		if (args.pubDb != null) {
 			int sizeBefore = publicationIds.size();
-			publicationIds.addAll((List<PublicationIds>) idsDb(args.pubDb, DatabaseEntryType.publication));
+			idsDb(args.pubDb, args.databaseArgs, DatabaseEntryType.publication, publicationIds);
 			logger.info("Got {} new distinct publication IDs from database {}", publicationIds.size() - sizeBefore, args.pubDb);
 		}
 		if (args.webDb != null) {
 			int sizeBefore = webpageUrls.size();
-			webpageUrls.addAll((List<String>) idsDb(args.webDb, DatabaseEntryType.webpage));
+			idsDb(args.webDb, args.databaseArgs, DatabaseEntryType.webpage, webpageUrls);
 			logger.info("Got {} new distinct webpage URLs from database {}", webpageUrls.size() - sizeBefore, args.webDb);
 		}
 		if (args.docDb != null) {
 			int sizeBefore = docUrls.size();
-			docUrls.addAll((List<String>) idsDb(args.docDb, DatabaseEntryType.doc));
+			idsDb(args.docDb, args.databaseArgs, DatabaseEntryType.doc, docUrls);
 			logger.info("Got {} new distinct doc URLs from database {}", docUrls.size() - sizeBefore, args.docDb);
 		}
 
@@ -1914,14 +2074,14 @@ public final class PubFetcherMethods {
 		}
 
 		if (args.inDb != null) {
-			try (Database db = new Database(args.inDb)) {
+			try (Database db = new Database(args.inDb, args.databaseArgs)) {
 				filter(publicationIds, id -> db.containsPublication(id), "publication IDs", "presence in database " + args.inDb, true, true);
 				filter(webpageUrls, url -> db.containsWebpage(url), "webpage URLs", "presence in database " + args.inDb, true, true);
 				filter(docUrls, url -> db.containsDoc(url), "doc IDs", "presence in database " + args.inDb, true, true);
 			}
 		}
 		if (args.notInDb != null) {
-			try (Database db = new Database(args.notInDb)) {
+			try (Database db = new Database(args.notInDb, args.databaseArgs)) {
 				filter(publicationIds, id -> db.containsPublication(id), "publication IDs", "presence in database " + args.notInDb, false, true);
 				filter(webpageUrls, url -> db.containsWebpage(url), "webpage URLs", "presence in database " + args.notInDb, false, true);
 				filter(docUrls, url -> db.containsDoc(url), "doc IDs", "presence in database " + args.notInDb, false, true);
@@ -1957,9 +2117,9 @@ public final class PubFetcherMethods {
 		// remove from database by IDs
 
 		if (args.removeIds != null) {
-			removeIds(publicationIds, args.removeIds, DatabaseEntryType.publication);
-			removeIds(webpageUrls, args.removeIds, DatabaseEntryType.webpage);
-			removeIds(docUrls, args.removeIds, DatabaseEntryType.doc);
+			removeIds(publicationIds, args.removeIds, args.databaseArgs, DatabaseEntryType.publication);
+			removeIds(webpageUrls, args.removeIds, args.databaseArgs, DatabaseEntryType.webpage);
+			removeIds(docUrls, args.removeIds, args.databaseArgs, DatabaseEntryType.doc);
 		}
 
 		// output IDs
@@ -2018,14 +2178,38 @@ public final class PubFetcherMethods {
 
 		// get content
 
+		// publication content is loaded lazily, so the database is kept open until the end, unless it is opened again for changing
+		if (args.db != null && !sameDatabase(args.db, args.fetchPut, args.dbFetch, args.dbFetchEnd, args.updateCitationsCount, args.put, args.remove)) {
+			try (Database db = new Database(args.db, args.databaseArgs)) {
+				run(args, fetcher, fetcherArgs, db, publicationIds, webpageUrls, docUrls, publicationIdsGiven, webpageUrlsGiven, docUrlsGiven, parts, version, argv);
+			}
+		} else {
+			run(args, fetcher, fetcherArgs, null, publicationIds, webpageUrls, docUrls, publicationIdsGiven, webpageUrlsGiven, docUrlsGiven, parts, version, argv);
+		}
+	}
+
+	private static void dbGet(PubFetcherArgs args, Fetcher fetcher, FetcherArgs fetcherArgs, Database db, Set<PublicationIds> publicationIds, Set<String> webpageUrls, Set<String> docUrls,
+			List<Publication> publications, List<Webpage> webpages, List<Webpage> docs) throws IOException {
+		publications.addAll(db(args, fetcher, fetcherArgs, dbIndexed(args, db, publicationIds, DatabaseEntryType.publication), db, args.db, args.limit <= 0 ? publicationIds.size() : args.limit - publications.size(), DatabaseEntryType.publication));
+		webpages.addAll(db(args, fetcher, fetcherArgs, dbIndexed(args, db, webpageUrls, DatabaseEntryType.webpage), db, args.db, args.limit <= 0 ? webpageUrls.size() : args.limit - webpages.size(), DatabaseEntryType.webpage));
+		docs.addAll(db(args, fetcher, fetcherArgs, dbIndexed(args, db, docUrls, DatabaseEntryType.doc), db, args.db, args.limit <= 0 ? docUrls.size() : args.limit - docs.size(), DatabaseEntryType.doc));
+	}
+
+	private static void run(PubFetcherArgs args, Fetcher fetcher, FetcherArgs fetcherArgs, Database db, Set<PublicationIds> publicationIds, Set<String> webpageUrls, Set<String> docUrls,
+			boolean publicationIdsGiven, boolean webpageUrlsGiven, boolean docUrlsGiven, EnumMap<PublicationPartName, Boolean> parts, Version version, String[] argv) throws IOException, ReflectiveOperationException {
 		List<Publication> publications = new ArrayList<>();
 		List<Webpage> webpages = new ArrayList<>();
 		List<Webpage> docs = new ArrayList<>();
 
-		if (args.db != null) {
-			publications.addAll(db(args, fetcher, fetcherArgs, publicationIds, args.db, args.limit <= 0 ? publicationIds.size() : args.limit - publications.size(), DatabaseEntryType.publication));
-			webpages.addAll(db(args, fetcher, fetcherArgs, webpageUrls, args.db, args.limit <= 0 ? webpageUrls.size() : args.limit - webpages.size(), DatabaseEntryType.webpage));
-			docs.addAll(db(args, fetcher, fetcherArgs, docUrls, args.db, args.limit <= 0 ? docUrls.size() : args.limit - docs.size(), DatabaseEntryType.doc));
+		if (db != null) {
+			dbGet(args, fetcher, fetcherArgs, db, publicationIds, webpageUrls, docUrls, publications, webpages, docs);
+		} else if (args.db != null) {
+			try (Database sameDb = new Database(args.db, args.databaseArgs)) {
+				dbGet(args, fetcher, fetcherArgs, sameDb, publicationIds, webpageUrls, docUrls, publications, webpages, docs);
+				for (Publication publication : publications) {
+					publication.loadContent();
+				}
+			}
 		}
 
 		if (args.fetch) {
@@ -2127,22 +2311,22 @@ public final class PubFetcherMethods {
 
 		// update citations count
 
-		if (args.updateCitationsCount != null) updateCitationsCount(publications, args.updateCitationsCount, fetcher, fetcherArgs, false);
+		if (args.updateCitationsCount != null) updateCitationsCount(publications, args.updateCitationsCount, args.databaseArgs, fetcher, fetcherArgs, false);
 
 		// put to database
 
 		if (args.put != null) {
-			put(publications, args.put, DatabaseEntryType.publication);
-			put(webpages, args.put, DatabaseEntryType.webpage);
-			put(docs, args.put, DatabaseEntryType.doc);
+			put(publications, args.put, args.databaseArgs, DatabaseEntryType.publication);
+			put(webpages, args.put, args.databaseArgs, DatabaseEntryType.webpage);
+			put(docs, args.put, args.databaseArgs, DatabaseEntryType.doc);
 		}
 
 		// remove from database
 
 		if (args.remove != null) {
-			remove(publications, args.remove, DatabaseEntryType.publication);
-			remove(webpages, args.remove, DatabaseEntryType.webpage);
-			remove(docs, args.remove, DatabaseEntryType.doc);
+			remove(publications, args.remove, args.databaseArgs, DatabaseEntryType.publication);
+			remove(webpages, args.remove, args.databaseArgs, DatabaseEntryType.webpage);
+			remove(docs, args.remove, args.databaseArgs, DatabaseEntryType.doc);
 		}
 
 		// output
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.common;
+
+import java.io.File;
+
+import com.beust.jcommander.Parameter;
+
+public class DatabaseArgs extends Args {
+
+	private static final String commitBatchId = "dbCommitBatch";
+	private static final String commitBatchDescription = "Group commits of a database: pending changes are committed only after that many entries have been put to or removed from the database (or at the next periodic commit of --dbCommitInterval, whichever comes first), instead of after every entry. Pending changes are always committed when the database is closed. Setting to 0 or 1 (and --dbCommitInterval to 0) disables group commits.";
+	private static final Integer commitBatchDefault = 0;
+	@Parameter(names = { "--" + commitBatchId }, validateWith = PositiveInteger.class, description = commitBatchDescription)
+	private Integer commitBatch = commitBatchDefault;
+
+	private static final String commitIntervalId = "dbCommitInterval";
+	private static final String commitIntervalDescription = "Group commits of a database: interval in milliseconds between periodic commits of pending changes, counted from the end of the previous periodic commit (commits made in between by --dbCommitBatch don't reset it). Setting to 0 disables periodic commits.";
+	private static final Integer commitIntervalDefault = 0;
+	@Parameter(names = { "--" + commitIntervalId }, validateWith = PositiveInteger.class, description = commitIntervalDescription)
+	private Integer commitInterval = commitIntervalDefault;
+
+	private static final String compressMinLengthId = "dbCompressMinLength";
+	private static final String compressMinLengthDescription = "Text content of publication parts (like fulltext) and of webpages is stored compressed in a database if its size in UTF-8 bytes is at least this. Setting to 0 disables compression of new entries (existing compressed entries remain readable).";
+	private static final Integer compressMinLengthDefault = 1024;
+	@Parameter(names = { "--" + compressMinLengthId }, validateWith = PositiveInteger.class, description = compressMinLengthDescription)
+	private Integer compressMinLength = compressMinLengthDefault;
+
+	private static final String compressDictionaryId = "dbCompressDictionary";
+	private static final String compressDictionaryDescription = "File containing sample text (like concatenated typical fulltexts, of which the last 32 KB is used) to prime compression with. The dictionary is stored in the database the first time it is given and used for all later compression and decompression in that database.";
+	private static final String compressDictionaryDefault = "";
+	@Parameter(names = { "--" + compressDictionaryId }, description = compressDictionaryDescription)
+	private String compressDictionary = compressDictionaryDefault;
+
+	private static final String mmapId = "dbMmap";
+	private static final String mmapDescription = "Access database files through memory-mapped I/O instead of random access file I/O. This can speed up reading of large databases, as data is read directly from the page cache of the operating system, but requires enough virtual address space for mapping the whole file.";
+	private static final Boolean mmapDefault = false;
+	@Parameter(names = { "--" + mmapId }, arity = 1, description = mmapDescription)
+	private Boolean mmap = mmapDefault;
+
+	private static final String allocateIncrementId = "dbAllocateIncrement";
+	private static final String allocateIncrementDescription = "Size in megabytes by which database files are grown when more space is needed. With memory-mapped I/O, this is also the size of a mapped chunk. Setting to 0 uses the default of MapDB (1 MB).";
+	private static final Integer allocateIncrementDefault = 0;
+	@Parameter(names = { "--" + allocateIncrementId }, validateWith = PositiveInteger.class, description = allocateIncrementDescription)
+	private Integer allocateIncrement = allocateIncrementDefault;
+
+	private static final String readOnlyId = "dbReadOnly";
+	private static final String readOnlyDescription = "Open databases read-only, without transactions. Any attempt to change a database will fail. Databases written by earlier versions of PubFetcher must first be opened once not read-only to be upgraded.";
+	private static final Boolean readOnlyDefault = false;
+	@Parameter(names = { "--" + readOnlyId }, arity = 1, description = readOnlyDescription)
+	private Boolean readOnly = readOnlyDefault;
+
+	private static final String shardsId = "dbShards";
+	private static final String shardsDescription = "Number of files a new database is split into when created with -db-init. Entries are distributed over the files by the hash of their ID or URL, with each file having its own transaction, so that parallel writers to and commits and compaction of a large database are less hindered by each other. The first file has the given database file name, the others have the suffixes .1, .2, etc. Existing databases keep the number of files they were created with.";
+	private static final Integer shardsDefault = 1;
+	@Parameter(names = { "--" + shardsId }, validateWith = PositiveInteger.class, description = shardsDescription)
+	private Integer shards = shardsDefault;
+
+	private static final String indexId = "dbIndex";
+	private static final String indexDescription = "Create secondary indexes of fetchTime, retryCounter, fetchException, possible finality and final URL host for a database that doesn't have them yet, so that content filters on these can find matching entries without reading all entries of the database. Once created, the indexes of a database are kept up to date on every change, regardless of this option.";
+	private static final Boolean indexDefault = false;
+	@Parameter(names = { "--" + indexId }, arity = 1, description = indexDescription)
+	private Boolean index = indexDefault;
+
+	private static final String bloomFilterId = "dbBloomFilter";
+	private static final String bloomFilterDescription = "Build in-memory Bloom filters of all publication IDs and webpage and doc URLs of a database when opening it, so that most lookups of IDs and URLs not in the database (like with -in-db and -not-in-db) are answered without reading the database. Building requires reading all keys of the database once, thus it is worthwhile if a lot of IDs or URLs are looked up.";
+	private static final Boolean bloomFilterDefault = false;
+	@Parameter(names = { "--" + bloomFilterId }, arity = 1, description = bloomFilterDescription)
+	private Boolean bloomFilter = bloomFilterDefault;
+
+	private static final String cacheSizeId = "dbCacheSize";
+	private static final String cacheSizeDescription = "Size in megabytes of an in-memory cache of publications, webpages and docs got from or put to a database, so that entries got repeatedly are not read from the database files, decompressed and deserialized again. Every get returns a new copy of the cached entry. Setting to 0 disables the cache.";
+	private static final Integer cacheSizeDefault = 0;
+	@Parameter(names = { "--" + cacheSizeId }, validateWith = PositiveInteger.class, description = cacheSizeDescription)
+	private Integer cacheSize = cacheSizeDefault;
+
+	@Override
+	protected void addArgs() {
+		args.add(new Arg<>(this::getCommitBatch, this::setCommitBatch, commitBatchDefault, 0, null, commitBatchId, "Commit batch", commitBatchDescription, null));
+		args.add(new Arg<>(this::getCommitInterval, this::setCommitInterval, commitIntervalDefault, 0, null, commitIntervalId, "Commit interval", commitIntervalDescription, null));
+		args.add(new Arg<>(this::getCompressMinLength, this::setCompressMinLength, compressMinLengthDefault, 0, null, compressMinLengthId, "Compress min length", compressMinLengthDescription, null));
+		args.add(new Arg<>(this::getCompressDictionaryFilename, this::setCompressDictionary, compressDictionaryDefault, compressDictionaryId, "Compression dictionary", compressDictionaryDescription, null));
+		args.add(new Arg<>(this::isMmap, this::setMmap, mmapDefault, mmapId, "Memory-mapped", mmapDescription, null));
+		args.add(new Arg<>(this::getAllocateIncrement, this::setAllocateIncrement, allocateIncrementDefault, 0, null, allocateIncrementId, "Allocate increment", allocateIncrementDescription, null));
+		args.add(new Arg<>(this::isReadOnly, this::setReadOnly, readOnlyDefault, readOnlyId, "Read-only", readOnlyDescription, null));
+		args.add(new Arg<>(this::getShards, this::setShards, shardsDefault, 1, null, shardsId, "Shards", shardsDescription, null));
+		args.add(new Arg<>(this::isIndex, this::setIndex, indexDefault, indexId, "Index", indexDescription, null));
+		args.add(new Arg<>(this::isBloomFilter, this::setBloomFilter, bloomFilterDefault, bloomFilterId, "Bloom filter", bloomFilterDescription, null));
+		args.add(new Arg<>(this::getCacheSize, this::setCacheSize, cacheSizeDefault, 0, null, cacheSizeId, "Cache size", cacheSizeDescription, null));
+	}
+
+	@Override
+	public String getId() {
+		return "databaseArgs";
+	}
+
+	@Override
+	public String getLabel() {
+		return "Database";
+	}
+
+	public Integer getCommitBatch() {
+		return commitBatch;
+	}
+	public void setCommitBatch(Integer commitBatch) {
+		this.commitBatch = commitBatch;
+	}
+
+	public Integer getCommitInterval() {
+		return commitInterval;
+	}
+	public void setCommitInterval(Integer commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+	public Integer getCompressMinLength() {
+		return compressMinLength;
+	}
+	public void setCompressMinLength(Integer compressMinLength) {
+		this.compressMinLength = compressMinLength;
+	}
+
+	public String getCompressDictionary() {
+		return compressDictionary;
+	}
+	public String getCompressDictionaryFilename() {
+		return new File(compressDictionary).getName();
+	}
+	public void setCompressDictionary(String compressDictionary) {
+		this.compressDictionary = compressDictionary;
+	}
+
+	public Boolean isMmap() {
+		return mmap;
+	}
+	public void setMmap(Boolean mmap) {
+		this.mmap = mmap;
+	}
+
+	public Integer getAllocateIncrement() {
+		return allocateIncrement;
+	}
+	public void setAllocateIncrement(Integer allocateIncrement) {
+		this.allocateIncrement = allocateIncrement;
+	}
+
+	public Boolean isReadOnly() {
+		return readOnly;
+	}
+	public void setReadOnly(Boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	public Integer getShards() {
+		return shards;
+	}
+	public void setShards(Integer shards) {
+		this.shards = shards;
+	}
+
+	public Boolean isIndex() {
+		return index;
+	}
+	public void setIndex(Boolean index) {
+		this.index = index;
+	}
+
+	public Boolean isBloomFilter() {
+		return bloomFilter;
+	}
+	public void setBloomFilter(Boolean bloomFilter) {
+		this.bloomFilter = bloomFilter;
+	}
+
+	public Integer getCacheSize() {
+		return cacheSize;
+	}
+	public void setCacheSize(Integer cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+}
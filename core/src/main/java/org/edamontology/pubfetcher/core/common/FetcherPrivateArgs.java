@@ -74,6 +74,174 @@ public class FetcherPrivateArgs extends Args {
 	@Parameter(names = { "--" + seleniumFirefoxId }, description = seleniumFirefoxDescription)
 	private String seleniumFirefox = seleniumFirefoxDefault;
 
+	private static final String seleniumDriversId = "seleniumDrivers";
+	private static final String seleniumDriversDescription = "Maximum number of Firefox instances of Selenium WebDriver, shared by all fetching threads. A fetching thread waits for a free instance if all are in use. Setting to 0 is the same as 1.";
+	private static final Integer seleniumDriversDefault = 4;
+	@Parameter(names = { "--" + seleniumDriversId }, validateWith = PositiveInteger.class, description = seleniumDriversDescription)
+	private Integer seleniumDrivers = seleniumDriversDefault;
+
+	private static final String seleniumWarmupId = "seleniumWarmup";
+	private static final String seleniumWarmupDescription = "Number of Firefox instances of Selenium WebDriver started in the background when fetching starts, instead of when first needed (at most --" + seleniumDriversId + ").";
+	private static final Integer seleniumWarmupDefault = 0;
+	@Parameter(names = { "--" + seleniumWarmupId }, validateWith = PositiveInteger.class, description = seleniumWarmupDescription)
+	private Integer seleniumWarmup = seleniumWarmupDefault;
+
+	private static final String seleniumMaxPagesId = "seleniumMaxPages";
+	private static final String seleniumMaxPagesDescription = "Number of pages loaded in a Firefox instance of Selenium WebDriver, after which it is closed and a new one started. Setting to 0 never restarts an instance because of the number of pages.";
+	private static final Integer seleniumMaxPagesDefault = 100;
+	@Parameter(names = { "--" + seleniumMaxPagesId }, validateWith = PositiveInteger.class, description = seleniumMaxPagesDescription)
+	private Integer seleniumMaxPages = seleniumMaxPagesDefault;
+
+	private static final String seleniumMaxMemoryId = "seleniumMaxMemory";
+	private static final String seleniumMaxMemoryDescription = "Resident memory in megabytes of a Firefox instance of Selenium WebDriver (with its child processes, measured on Linux only), above which it is closed and a new one started before loading the next page. Setting to 0 never restarts an instance because of memory use.";
+	private static final Integer seleniumMaxMemoryDefault = 2048;
+	@Parameter(names = { "--" + seleniumMaxMemoryId }, validateWith = PositiveInteger.class, description = seleniumMaxMemoryDescription)
+	private Integer seleniumMaxMemory = seleniumMaxMemoryDefault;
+
+	private static final String seleniumIdleId = "seleniumIdle";
+	private static final String seleniumIdleDescription = "Time in milliseconds after which a Firefox instance of Selenium WebDriver not used in that time is closed. Setting to 0 never closes idle instances.";
+	private static final Integer seleniumIdleDefault = 300000;
+	@Parameter(names = { "--" + seleniumIdleId }, validateWith = PositiveInteger.class, description = seleniumIdleDescription)
+	private Integer seleniumIdle = seleniumIdleDefault;
+
+	private static final String seleniumWaitId = "seleniumWait";
+	private static final String seleniumWaitDescription = "Maximum time in milliseconds a fetching thread waits for a free Firefox instance of Selenium WebDriver, after which getting the page fails. Setting to 0 waits without limit.";
+	private static final Integer seleniumWaitDefault = 0;
+	@Parameter(names = { "--" + seleniumWaitId }, validateWith = PositiveInteger.class, description = seleniumWaitDescription)
+	private Integer seleniumWait = seleniumWaitDefault;
+
+	private static final String httpClientId = "httpClient";
+	private static final String httpClientDescription = "Get HTML, XML, JSON and PDF resources without JavaScript through the HTTP client of Java instead of jsoup and URLConnection. Connections are then pooled and shared between all fetching threads, HTTP/2 is used where supported, and responses are received and parsed asynchronously.";
+	private static final Boolean httpClientDefault = false;
+	@Parameter(names = { "--" + httpClientId }, arity = 1, description = httpClientDescription)
+	private Boolean httpClient = httpClientDefault;
+
+	private static final String hostMaxId = "hostMax";
+	private static final String hostMaxDescription = "Maximum number of connections open at the same time to one host, over all fetching threads. Further requests to the host wait until a connection is finished, in the order they were made.";
+	private static final Integer hostMaxDefault = 4;
+	@Parameter(names = { "--" + hostMaxId }, validateWith = PositiveInteger.class, description = hostMaxDescription)
+	private Integer hostMax = hostMaxDefault;
+
+	private static final String hostMaxPerHostId = "hostMaxPerHost";
+	private static final String hostMaxPerHostDescription = "Maximum number of connections open at the same time to specific hosts, overriding --" + hostMaxId + " for these hosts. Given as comma-separated pairs of host and count, e.g. \"eutils.ncbi.nlm.nih.gov=2,ebi.ac.uk=8\", with hosts given without \"www.\".";
+	private static final String hostMaxPerHostDefault = "";
+	@Parameter(names = { "--" + hostMaxPerHostId }, description = hostMaxPerHostDescription)
+	private String hostMaxPerHost = hostMaxPerHostDefault;
+
+	private static final String rateLimitsYamlId = "rateLimitsYaml";
+	private static final String rateLimitsYamlDescription = "YAML file containing custom rate limits of hosts to add to (or override) default ones";
+	private static final String rateLimitsYamlDefault = "";
+	@Parameter(names = { "--" + rateLimitsYamlId }, description = rateLimitsYamlDescription)
+	private String rateLimitsYaml = rateLimitsYamlDefault;
+
+	private static final String ncbiApiKeyId = "ncbiApiKey";
+	private static final String ncbiApiKeyDescription = "API key to send to the NCBI E-utilities, allowing a higher rate of requests to them";
+	private static final String ncbiApiKeyDefault = "";
+	@Parameter(names = { "--" + ncbiApiKeyId }, description = ncbiApiKeyDescription)
+	private String ncbiApiKey = ncbiApiKeyDefault;
+
+	private static final String httpCacheId = "httpCache";
+	private static final String httpCacheDescription = "Directory where raw HTTP responses (status, final URL, headers and compressed body) of requests made without JavaScript are cached, so that pages, PDFs and API responses can be scraped again (for example after changing scraping rules) without requesting them again from the network. Requests are then made through the HTTP client of Java, as with --" + httpClientId + ". The directory is created if it does not exist. If empty, responses are not cached.";
+	private static final String httpCacheDefault = "";
+	@Parameter(names = { "--" + httpCacheId }, description = httpCacheDescription)
+	private String httpCache = httpCacheDefault;
+
+	private static final String httpCacheTtlId = "httpCacheTtl";
+	private static final String httpCacheTtlDescription = "Number of hours a cached HTTP response is used without asking the server about it. An older response is revalidated with a conditional request (If-None-Match or If-Modified-Since) if it has an ETag or Last-Modified header, and requested again otherwise. Setting to 0 revalidates every time.";
+	private static final Integer httpCacheTtlDefault = 168;
+	@Parameter(names = { "--" + httpCacheTtlId }, validateWith = PositiveInteger.class, description = httpCacheTtlDescription)
+	private Integer httpCacheTtl = httpCacheTtlDefault;
+
+	private static final String httpCacheSizeId = "httpCacheSize";
+	private static final String httpCacheSizeDescription = "Maximum size in megabytes of the HTTP cache on disk. If exceeded, least recently used responses are removed from the cache. Setting to 0 disables the limit.";
+	private static final Integer httpCacheSizeDefault = 1024;
+	@Parameter(names = { "--" + httpCacheSizeId }, validateWith = PositiveInteger.class, description = httpCacheSizeDescription)
+	private Integer httpCacheSize = httpCacheSizeDefault;
+
+	private static final String httpCacheOfflineId = "httpCacheOffline";
+	private static final String httpCacheOfflineDescription = "Use only responses in the HTTP cache, regardless of their age, and make no requests to the network. Requests not in the cache, and requests with JavaScript, fail. Useful for scraping cached content again with changed scraping rules.";
+	private static final Boolean httpCacheOfflineDefault = false;
+	@Parameter(names = { "--" + httpCacheOfflineId }, arity = 1, description = httpCacheOfflineDescription)
+	private Boolean httpCacheOffline = httpCacheOfflineDefault;
+
+	private static final String concurrentSourcesId = "concurrentSources";
+	private static final String concurrentSourcesDescription = "When fetching a publication, request Europe PMC fulltext XML, EFO and GO terms, PubMed XML, PubMed Central XML and oaDOI concurrently as soon as the Europe PMC search has been done, instead of one after another. The responses are still processed in the usual order, so the result is the same, but the time taken is about that of the slowest request instead of the sum of all. Some requests can turn out to be unneeded. Requests are then made through the HTTP client of Java, as with --" + httpClientId + ".";
+	private static final Boolean concurrentSourcesDefault = false;
+	@Parameter(names = { "--" + concurrentSourcesId }, arity = 1, description = concurrentSourcesDescription)
+	private Boolean concurrentSources = concurrentSourcesDefault;
+
+	private static final String concurrentLinksId = "concurrentLinks";
+	private static final String concurrentLinksDescription = "When fetching a publication, request up to that many of the best links found (of different hosts) concurrently, instead of one after another. The links are still processed in the usual order, so the result is the same, but waiting for slow hosts overlaps. Requests not needed anymore, as the publication became final or no remaining link has a better type than the lowest type of its parts, are cancelled. Links fetched with JavaScript are not requested concurrently. Setting to 0 or 1 disables concurrent requests of links, otherwise requests are made through the HTTP client of Java, as with --" + httpClientId + ".";
+	private static final Integer concurrentLinksDefault = 0;
+	@Parameter(names = { "--" + concurrentLinksId }, validateWith = PositiveInteger.class, description = concurrentLinksDescription)
+	private Integer concurrentLinks = concurrentLinksDefault;
+
+	private static final String httpMaxSizeId = "httpMaxSize";
+	private static final String httpMaxSizeDescription = "Maximum size in megabytes of a response other than a PDF got through the HTTP client of Java (--" + httpClientId + "), as these are received whole into memory. Receiving a larger response is aborted (or not started, if the server tells the size beforehand). Setting to 0 disables the limit.";
+	private static final Integer httpMaxSizeDefault = 20;
+	@Parameter(names = { "--" + httpMaxSizeId }, validateWith = PositiveInteger.class, description = httpMaxSizeDescription)
+	private Integer httpMaxSize = httpMaxSizeDefault;
+
+	private static final String pdfMaxSizeId = "pdfMaxSize";
+	private static final String pdfMaxSizeDescription = "Maximum size in megabytes of a PDF to download. Downloading a larger PDF is aborted (or not started, if the server tells the size beforehand). Setting to 0 disables the limit.";
+	private static final Integer pdfMaxSizeDefault = 100;
+	@Parameter(names = { "--" + pdfMaxSizeId }, validateWith = PositiveInteger.class, description = pdfMaxSizeDescription)
+	private Integer pdfMaxSize = pdfMaxSizeDefault;
+
+	private static final String pdfMemoryId = "pdfMemory";
+	private static final String pdfMemoryDescription = "Size in megabytes up to which a downloaded PDF is kept in memory. A larger PDF is written to a temporary file while downloading and read from there, and also the streams of a loaded PDF taking more memory than this are stored in temporary files.";
+	private static final Integer pdfMemoryDefault = 16;
+	@Parameter(names = { "--" + pdfMemoryId }, validateWith = PositiveInteger.class, description = pdfMemoryDescription)
+	private Integer pdfMemory = pdfMemoryDefault;
+
+	private static final String pdfMaxPagesId = "pdfMaxPages";
+	private static final String pdfMaxPagesDescription = "Maximum number of pages, from the beginning, of a PDF that text is extracted from. Setting to 0 disables the limit.";
+	private static final Integer pdfMaxPagesDefault = 0;
+	@Parameter(names = { "--" + pdfMaxPagesId }, validateWith = PositiveInteger.class, description = pdfMaxPagesDescription)
+	private Integer pdfMaxPages = pdfMaxPagesDefault;
+
+	private static final String pdfThreadsId = "pdfThreads";
+	private static final String pdfThreadsDescription = "Number of threads parsing and extracting content from downloaded PDFs, shared by all fetching threads. A fetching thread hands a downloaded PDF over to these threads and waits for the result, but without occupying a connection to the host of the PDF. Setting to 0 uses the number of available processors.";
+	private static final Integer pdfThreadsDefault = 0;
+	@Parameter(names = { "--" + pdfThreadsId }, validateWith = PositiveInteger.class, description = pdfThreadsDescription)
+	private Integer pdfThreads = pdfThreadsDefault;
+
+	private static final String pdfTimeoutId = "pdfTimeout";
+	private static final String pdfTimeoutDescription = "Maximum time in milliseconds for parsing and extracting content from a downloaded PDF, counted from the start of the extraction (not including waiting for a free PDF thread). If exceeded, the extraction is cancelled and nothing from the PDF is used. Setting to 0 disables the time limit.";
+	private static final Integer pdfTimeoutDefault = 120000;
+	@Parameter(names = { "--" + pdfTimeoutId }, validateWith = PositiveInteger.class, description = pdfTimeoutDescription)
+	private Integer pdfTimeout = pdfTimeoutDefault;
+
+	private static final String htmlunitMaxPagesId = "htmlunitMaxPages";
+	private static final String htmlunitMaxPagesDescription = "Number of pages got with JavaScript (without Selenium), after which a HtmlUnit browser is closed and a new one started. Pages are got in a pool of reused HtmlUnit browsers, each in a thread of its own, and restarting a browser releases the memory it has accumulated. Setting to 0 never restarts a browser because of the number of pages.";
+	private static final Integer htmlunitMaxPagesDefault = 50;
+	@Parameter(names = { "--" + htmlunitMaxPagesId }, validateWith = PositiveInteger.class, description = htmlunitMaxPagesDescription)
+	private Integer htmlunitMaxPages = htmlunitMaxPagesDefault;
+
+	private static final String htmlunitMaxMemoryId = "htmlunitMaxMemory";
+	private static final String htmlunitMaxMemoryDescription = "Percentage of the maximum heap memory which, if still in use after the last garbage collection, causes a HtmlUnit browser to be restarted after getting a page with JavaScript. Setting to 0 never restarts a browser because of memory use.";
+	private static final Integer htmlunitMaxMemoryDefault = 50;
+	@Parameter(names = { "--" + htmlunitMaxMemoryId }, validateWith = PositiveInteger.class, description = htmlunitMaxMemoryDescription)
+	private Integer htmlunitMaxMemory = htmlunitMaxMemoryDefault;
+
+	private static final String htmlunitIdleId = "htmlunitIdle";
+	private static final String htmlunitIdleDescription = "Time in milliseconds after which a HtmlUnit browser not used in that time is closed and its thread ended. Setting to 0 never closes idle browsers.";
+	private static final Integer htmlunitIdleDefault = 300000;
+	@Parameter(names = { "--" + htmlunitIdleId }, validateWith = PositiveInteger.class, description = htmlunitIdleDescription)
+	private Integer htmlunitIdle = htmlunitIdleDefault;
+
+	private static final String javascriptHostsId = "javascriptHosts";
+	private static final String javascriptHostsDescription = "File where it is recorded, for each host, how often refetching a webpage with JavaScript (because the page got without it was too short or had a noscript tag) made the content of the page longer. Pages of hosts where JavaScript has (almost) always made the content longer are then got with JavaScript right away, and pages of hosts where it has (almost) never done so are not refetched. The file is read at start and written at the end of fetching. If empty, nothing is learned.";
+	private static final String javascriptHostsDefault = "";
+	@Parameter(names = { "--" + javascriptHostsId }, description = javascriptHostsDescription)
+	private String javascriptHosts = javascriptHostsDefault;
+
+	private static final String javascriptHostsMinId = "javascriptHostsMin";
+	private static final String javascriptHostsMinDescription = "Number of refetches with JavaScript of webpages of a host that must be recorded in --" + javascriptHostsId + ", before the refetching of pages of that host is changed.";
+	private static final Integer javascriptHostsMinDefault = 5;
+	@Parameter(names = { "--" + javascriptHostsMinId }, validateWith = PositiveInteger.class, description = javascriptHostsMinDescription)
+	private Integer javascriptHostsMin = javascriptHostsMinDefault;
+
 	@Override
 	protected void addArgs() {
 		args.add(new Arg<>(this::getEuropepmcEmail, this::setEuropepmcEmail, europepmcEmailDefault, europepmcEmailId, "Europe PMC e-mail", europepmcEmailDescription, null));
@@ -84,6 +252,34 @@ public class FetcherPrivateArgs extends Args {
 		args.add(new Arg<>(this::isSelenium, this::setSelenium, seleniumDefault, seleniumId, "Selenium", seleniumDescription, null));
 		args.add(new Arg<>(this::getSeleniumGeckodriver, this::setSeleniumGeckodriver, seleniumGeckodriverDefault, seleniumGeckodriverId, "Selenium geckodriver", seleniumGeckodriverDescription, null));
 		args.add(new Arg<>(this::getSeleniumFirefox, this::setSeleniumFirefox, seleniumFirefoxDefault, seleniumFirefoxId, "Selenium firefox", seleniumFirefoxDescription, null));
+		args.add(new Arg<>(this::getSeleniumDrivers, this::setSeleniumDrivers, seleniumDriversDefault, 0, null, seleniumDriversId, "Selenium drivers", seleniumDriversDescription, null));
+		args.add(new Arg<>(this::getSeleniumWarmup, this::setSeleniumWarmup, seleniumWarmupDefault, 0, null, seleniumWarmupId, "Selenium warm-up", seleniumWarmupDescription, null));
+		args.add(new Arg<>(this::getSeleniumMaxPages, this::setSeleniumMaxPages, seleniumMaxPagesDefault, 0, null, seleniumMaxPagesId, "Selenium max pages", seleniumMaxPagesDescription, null));
+		args.add(new Arg<>(this::getSeleniumMaxMemory, this::setSeleniumMaxMemory, seleniumMaxMemoryDefault, 0, null, seleniumMaxMemoryId, "Selenium max memory", seleniumMaxMemoryDescription, null));
+		args.add(new Arg<>(this::getSeleniumIdle, this::setSeleniumIdle, seleniumIdleDefault, 0, null, seleniumIdleId, "Selenium idle", seleniumIdleDescription, null));
+		args.add(new Arg<>(this::getSeleniumWait, this::setSeleniumWait, seleniumWaitDefault, 0, null, seleniumWaitId, "Selenium wait", seleniumWaitDescription, null));
+		args.add(new Arg<>(this::isHttpClient, this::setHttpClient, httpClientDefault, httpClientId, "HTTP client", httpClientDescription, null));
+		args.add(new Arg<>(this::getHostMax, this::setHostMax, hostMaxDefault, 1, null, hostMaxId, "Host max. connections", hostMaxDescription, null));
+		args.add(new Arg<>(this::getHostMaxPerHost, this::setHostMaxPerHost, hostMaxPerHostDefault, hostMaxPerHostId, "Per host max. connections", hostMaxPerHostDescription, null));
+		args.add(new Arg<>(this::getRateLimitsYamlFilename, this::setRateLimitsYaml, rateLimitsYamlDefault, rateLimitsYamlId, "Rate limits", rateLimitsYamlDescription, null));
+		args.add(new Arg<>(this::getNcbiApiKey, this::setNcbiApiKey, ncbiApiKeyDefault, ncbiApiKeyId, "NCBI API key", ncbiApiKeyDescription, null));
+		args.add(new Arg<>(this::getHttpCache, this::setHttpCache, httpCacheDefault, httpCacheId, "HTTP cache", httpCacheDescription, null));
+		args.add(new Arg<>(this::getHttpCacheTtl, this::setHttpCacheTtl, httpCacheTtlDefault, 0, null, httpCacheTtlId, "HTTP cache TTL", httpCacheTtlDescription, null));
+		args.add(new Arg<>(this::getHttpCacheSize, this::setHttpCacheSize, httpCacheSizeDefault, 0, null, httpCacheSizeId, "HTTP cache size", httpCacheSizeDescription, null));
+		args.add(new Arg<>(this::isHttpCacheOffline, this::setHttpCacheOffline, httpCacheOfflineDefault, httpCacheOfflineId, "HTTP cache offline", httpCacheOfflineDescription, null));
+		args.add(new Arg<>(this::isConcurrentSources, this::setConcurrentSources, concurrentSourcesDefault, concurrentSourcesId, "Concurrent sources", concurrentSourcesDescription, null));
+		args.add(new Arg<>(this::getConcurrentLinks, this::setConcurrentLinks, concurrentLinksDefault, 0, null, concurrentLinksId, "Concurrent links", concurrentLinksDescription, null));
+		args.add(new Arg<>(this::getHttpMaxSize, this::setHttpMaxSize, httpMaxSizeDefault, 0, null, httpMaxSizeId, "HTTP max size", httpMaxSizeDescription, null));
+		args.add(new Arg<>(this::getPdfMaxSize, this::setPdfMaxSize, pdfMaxSizeDefault, 0, null, pdfMaxSizeId, "PDF max size", pdfMaxSizeDescription, null));
+		args.add(new Arg<>(this::getPdfMemory, this::setPdfMemory, pdfMemoryDefault, 0, null, pdfMemoryId, "PDF memory", pdfMemoryDescription, null));
+		args.add(new Arg<>(this::getPdfMaxPages, this::setPdfMaxPages, pdfMaxPagesDefault, 0, null, pdfMaxPagesId, "PDF max pages", pdfMaxPagesDescription, null));
+		args.add(new Arg<>(this::getPdfThreads, this::setPdfThreads, pdfThreadsDefault, 0, null, pdfThreadsId, "PDF threads", pdfThreadsDescription, null));
+		args.add(new Arg<>(this::getPdfTimeout, this::setPdfTimeout, pdfTimeoutDefault, 0, null, pdfTimeoutId, "PDF timeout", pdfTimeoutDescription, null));
+		args.add(new Arg<>(this::getHtmlunitMaxPages, this::setHtmlunitMaxPages, htmlunitMaxPagesDefault, 0, null, htmlunitMaxPagesId, "HtmlUnit max pages", htmlunitMaxPagesDescription, null));
+		args.add(new Arg<>(this::getHtmlunitMaxMemory, this::setHtmlunitMaxMemory, htmlunitMaxMemoryDefault, 0, 100, htmlunitMaxMemoryId, "HtmlUnit max memory", htmlunitMaxMemoryDescription, null));
+		args.add(new Arg<>(this::getHtmlunitIdle, this::setHtmlunitIdle, htmlunitIdleDefault, 0, null, htmlunitIdleId, "HtmlUnit idle", htmlunitIdleDescription, null));
+		args.add(new Arg<>(this::getJavascriptHosts, this::setJavascriptHosts, javascriptHostsDefault, javascriptHostsId, "JavaScript hosts", javascriptHostsDescription, null));
+		args.add(new Arg<>(this::getJavascriptHostsMin, this::setJavascriptHostsMin, javascriptHostsMinDefault, 1, null, javascriptHostsMinId, "JavaScript hosts min", javascriptHostsMinDescription, null));
 	}
 
 	@Override
@@ -157,4 +353,203 @@ public class FetcherPrivateArgs extends Args {
 	public void setSeleniumFirefox(String seleniumFirefox) {
 		this.seleniumFirefox = seleniumFirefox;
 	}
+
+	public Integer getSeleniumDrivers() {
+		return seleniumDrivers;
+	}
+	public void setSeleniumDrivers(Integer seleniumDrivers) {
+		this.seleniumDrivers = seleniumDrivers;
+	}
+
+	public Integer getSeleniumWarmup() {
+		return seleniumWarmup;
+	}
+	public void setSeleniumWarmup(Integer seleniumWarmup) {
+		this.seleniumWarmup = seleniumWarmup;
+	}
+
+	public Integer getSeleniumMaxPages() {
+		return seleniumMaxPages;
+	}
+	public void setSeleniumMaxPages(Integer seleniumMaxPages) {
+		this.seleniumMaxPages = seleniumMaxPages;
+	}
+
+	public Integer getSeleniumMaxMemory() {
+		return seleniumMaxMemory;
+	}
+	public void setSeleniumMaxMemory(Integer seleniumMaxMemory) {
+		this.seleniumMaxMemory = seleniumMaxMemory;
+	}
+
+	public Integer getSeleniumIdle() {
+		return seleniumIdle;
+	}
+	public void setSeleniumIdle(Integer seleniumIdle) {
+		this.seleniumIdle = seleniumIdle;
+	}
+
+	public Integer getSeleniumWait() {
+		return seleniumWait;
+	}
+	public void setSeleniumWait(Integer seleniumWait) {
+		this.seleniumWait = seleniumWait;
+	}
+
+	public Boolean isHttpClient() {
+		return httpClient;
+	}
+	public void setHttpClient(Boolean httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	public Integer getHostMax() {
+		return hostMax;
+	}
+	public void setHostMax(Integer hostMax) {
+		this.hostMax = hostMax;
+	}
+
+	public String getHostMaxPerHost() {
+		return hostMaxPerHost;
+	}
+	public void setHostMaxPerHost(String hostMaxPerHost) {
+		this.hostMaxPerHost = hostMaxPerHost;
+	}
+
+	public String getRateLimitsYaml() {
+		return rateLimitsYaml;
+	}
+	public String getRateLimitsYamlFilename() {
+		return new File(rateLimitsYaml).getName();
+	}
+	public void setRateLimitsYaml(String rateLimitsYaml) {
+		this.rateLimitsYaml = rateLimitsYaml;
+	}
+
+	public String getNcbiApiKey() {
+		return ncbiApiKey;
+	}
+	public void setNcbiApiKey(String ncbiApiKey) {
+		this.ncbiApiKey = ncbiApiKey;
+	}
+
+	public String getHttpCache() {
+		return httpCache;
+	}
+	public void setHttpCache(String httpCache) {
+		this.httpCache = httpCache;
+	}
+
+	public Integer getHttpCacheTtl() {
+		return httpCacheTtl;
+	}
+	public void setHttpCacheTtl(Integer httpCacheTtl) {
+		this.httpCacheTtl = httpCacheTtl;
+	}
+
+	public Integer getHttpCacheSize() {
+		return httpCacheSize;
+	}
+	public void setHttpCacheSize(Integer httpCacheSize) {
+		this.httpCacheSize = httpCacheSize;
+	}
+
+	public Boolean isHttpCacheOffline() {
+		return httpCacheOffline;
+	}
+	public void setHttpCacheOffline(Boolean httpCacheOffline) {
+		this.httpCacheOffline = httpCacheOffline;
+	}
+
+	public Boolean isConcurrentSources() {
+		return concurrentSources;
+	}
+	public void setConcurrentSources(Boolean concurrentSources) {
+		this.concurrentSources = concurrentSources;
+	}
+
+	public Integer getConcurrentLinks() {
+		return concurrentLinks;
+	}
+	public void setConcurrentLinks(Integer concurrentLinks) {
+		this.concurrentLinks = concurrentLinks;
+	}
+
+	public Integer getHttpMaxSize() {
+		return httpMaxSize;
+	}
+	public void setHttpMaxSize(Integer httpMaxSize) {
+		this.httpMaxSize = httpMaxSize;
+	}
+
+	public Integer getPdfMaxSize() {
+		return pdfMaxSize;
+	}
+	public void setPdfMaxSize(Integer pdfMaxSize) {
+		this.pdfMaxSize = pdfMaxSize;
+	}
+
+	public Integer getPdfMemory() {
+		return pdfMemory;
+	}
+	public void setPdfMemory(Integer pdfMemory) {
+		this.pdfMemory = pdfMemory;
+	}
+
+	public Integer getPdfMaxPages() {
+		return pdfMaxPages;
+	}
+	public void setPdfMaxPages(Integer pdfMaxPages) {
+		this.pdfMaxPages = pdfMaxPages;
+	}
+
+	public Integer getPdfThreads() {
+		return pdfThreads;
+	}
+	public void setPdfThreads(Integer pdfThreads) {
+		this.pdfThreads = pdfThreads;
+	}
+
+	public Integer getPdfTimeout() {
+		return pdfTimeout;
+	}
+	public void setPdfTimeout(Integer pdfTimeout) {
+		this.pdfTimeout = pdfTimeout;
+	}
+
+	public Integer getHtmlunitMaxPages() {
+		return htmlunitMaxPages;
+	}
+	public void setHtmlunitMaxPages(Integer htmlunitMaxPages) {
+		this.htmlunitMaxPages = htmlunitMaxPages;
+	}
+
+	public Integer getHtmlunitMaxMemory() {
+		return htmlunitMaxMemory;
+	}
+	public void setHtmlunitMaxMemory(Integer htmlunitMaxMemory) {
+		this.htmlunitMaxMemory = htmlunitMaxMemory;
+	}
+
+	public Integer getHtmlunitIdle() {
+		return htmlunitIdle;
+	}
+	public void setHtmlunitIdle(Integer htmlunitIdle) {
+		this.htmlunitIdle = htmlunitIdle;
+	}
+
+	public String getJavascriptHosts() {
+		return javascriptHosts;
+	}
+	public void setJavascriptHosts(String javascriptHosts) {
+		this.javascriptHosts = javascriptHosts;
+	}
+
+	public Integer getJavascriptHostsMin() {
+		return javascriptHostsMin;
+	}
+	public void setJavascriptHostsMin(Integer javascriptHostsMin) {
+		this.javascriptHostsMin = javascriptHostsMin;
+	}
 }
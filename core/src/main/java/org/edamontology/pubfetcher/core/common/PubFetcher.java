@@ -510,6 +510,9 @@ public final class PubFetcher {
 	 * {@link Fetcher} is given, the publication is fetched if {@link DatabaseEntry#canFetch(FetcherArgs)} returns <code>true</code> for the publication. If a
 	 * publication was fetched, it is put to the given Database, overwriting the previous publication entry there (if it was present).
 	 * <p>
+	 * The content of a publication got from the Database (keywords, MeSH, EFO and GO terms, abstract, fulltext and visited sites) is loaded lazily on first
+	 * access, thus it should be accessed (or {@link Publication#loadContent()} called) before the Database is closed.
+	 * <p>
 	 * The method is thread safe, that is, there are locks in place that prevent running it concurrently for PublicationIds with some equal IDs because of
 	 * potential race conditions with the shared Database.
 	 * <p>
@@ -759,6 +762,7 @@ public final class PubFetcher {
 			for (PublicationIds publicationIds : pubFile(pubFile, pubIdSource)) {
 				Publication publication = db.getPublication(publicationIds);
 				if (publication != null) {
+					publication.loadContent();
 					publications.add(publication);
 				}
 			}
@@ -23,18 +23,36 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.mapdb.Atomic;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
-import org.mapdb.HTreeMap;
 import org.mapdb.Serializer;
+import org.mapdb.volume.MappedFileVol;
 
+import org.edamontology.pubfetcher.core.common.DatabaseArgs;
 import org.edamontology.pubfetcher.core.db.publication.Publication;
 import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
 import org.edamontology.pubfetcher.core.db.webpage.Webpage;
@@ -43,67 +61,357 @@ public class Database implements Closeable {
 
 	private static final Logger logger = LogManager.getLogger();
 
-	private final DB db;
+	private final String database;
 
-	private final HTreeMap<String, String> publicationsMap;
-	private final HTreeMap<String, PublicationIds> publicationsMapReverse;
-	private final HTreeMap<String, Publication> publications;
+	private final boolean readOnly;
 
-	private final HTreeMap<String, Webpage> webpages;
-	private final HTreeMap<String, Webpage> docs;
+	// entries are distributed over the shards by the hash of their key, the first shard is in the given database file
+	private final DatabaseShard[] shards;
 
-	@SuppressWarnings("unchecked")
-	public Database(String database) throws FileNotFoundException {
-		if (database == null || !(new File(database).canRead())) {
-			throw new FileNotFoundException("Database file " + database + " does not exist or is not readable!");
+	private final DatabaseSerializer<Publication> publicationContentSerializer;
+
+	// null if not enabled
+	private final DatabaseBloomFilter publicationsMapFilter;
+	private final DatabaseBloomFilter webpagesFilter;
+	private final DatabaseBloomFilter docsFilter;
+
+	// null if disabled
+	private final DatabaseCache cache;
+
+	// a publication is spread over the shards of its IDs and its primary ID, thus changes to the ID mappings of publications are done holding the locks of all IDs involved to keep them coherent
+	private static final int PUBLICATION_LOCKS = 64;
+	private final ReentrantLock[] publicationLocks = Stream.generate(ReentrantLock::new).limit(PUBLICATION_LOCKS).toArray(ReentrantLock[]::new);
+
+	private final int commitBatch;
+	private final ScheduledExecutorService commitScheduler;
+	private final Object commitLock = new Object();
+	private int commitPending = 0;
+	private long commitCount = 0;
+	private long commitNanosTotal = 0;
+	private long commitNanosMax = 0;
+
+	private static final String[] VALUE_SERIALIZER_MAPS = new String[] { "publicationsMapReverse", "publications", "webpages", "docs" };
+
+	// values written by earlier versions of PubFetcher use Serializer.JAVA, which is persisted in the name catalog and would take precedence over the serializer given on open
+	private static void migrateSerializers(DB db, String database) {
+		SortedMap<String, String> nameCatalog = db.nameCatalogLoad();
+		boolean migrated = false;
+		for (String name : VALUE_SERIALIZER_MAPS) {
+			if (nameCatalog.remove(name + "#valueSerializer") != null) {
+				migrated = true;
+			}
+		}
+		if (migrated) {
+			logger.info("Migrating database {} to compact serialization format version {}, existing entries will be converted when overwritten", database, DatabaseSerializer.VERSION);
+			db.nameCatalogSave(nameCatalog);
+			db.commit();
 		}
+	}
 
-		this.db = DBMaker.fileDB(database).closeOnJvmShutdown().transactionEnable().make();
+	// a database opened read-only can't be migrated
+	private static boolean isMigrationNeeded(DB db, boolean main) {
+		SortedMap<String, String> nameCatalog = db.nameCatalogLoad();
+		for (String name : VALUE_SERIALIZER_MAPS) {
+			if (nameCatalog.containsKey(name + "#valueSerializer")) {
+				return true;
+			}
+		}
+		return main && !db.exists("compressionDictionary") || !db.exists("publicationContents");
+	}
 
-		this.publicationsMap = db.hashMap("publicationsMap", Serializer.STRING, Serializer.STRING).counterEnable().open();
-		this.publicationsMapReverse = db.hashMap("publicationsMapReverse", Serializer.STRING, Serializer.JAVA).counterEnable().open();
-		this.publications = db.hashMap("publications", Serializer.STRING, Serializer.JAVA).counterEnable().open();
+	private static DatabaseCompression compression(DB db, String database, DatabaseArgs databaseArgs) throws IOException {
+		Atomic.Var<byte[]> compressionDictionary = db.atomicVar("compressionDictionary", Serializer.BYTE_ARRAY).createOrOpen();
+		byte[] dictionary = compressionDictionary.get();
+		if (!databaseArgs.getCompressDictionary().isEmpty()) {
+			byte[] given = new DatabaseCompression(0, Files.readAllBytes(Paths.get(databaseArgs.getCompressDictionary()))).getDictionary();
+			if (dictionary == null && given != null && databaseArgs.isReadOnly()) {
+				logger.warn("Ignoring compression dictionary {}, as database {} is opened read-only", databaseArgs.getCompressDictionary(), database);
+			} else if (dictionary == null && given != null) {
+				logger.info("Storing compression dictionary {} ({} bytes) to database {}", databaseArgs.getCompressDictionary(), given.length, database);
+				compressionDictionary.set(given);
+				dictionary = given;
+			} else if (dictionary != null && !Arrays.equals(dictionary, given)) {
+				logger.warn("Ignoring compression dictionary {}, as database {} already has a different one", databaseArgs.getCompressDictionary(), database);
+			}
+		}
+		return new DatabaseCompression(databaseArgs.getCompressMinLength(), dictionary);
+	}
 
-		this.webpages = db.hashMap("webpages", Serializer.STRING, Serializer.JAVA).counterEnable().open();
-		this.docs = db.hashMap("docs", Serializer.STRING, Serializer.JAVA).counterEnable().open();
+	private static String shardFile(String database, int shard) {
+		return shard == 0 ? database : database + "." + shard;
+	}
 
-		logger.debug("Opened database {} with {} publications, {} webpages, {} docs", database, publications.sizeLong(), webpages.sizeLong(), docs.sizeLong());
+	// same check as in fileMmapEnableIfSupported of MapDB
+	private static boolean isMmapSupported() {
+		return System.getProperty("os.arch").contains("64") && !System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("win");
+	}
+
+	private static DB open(String file, boolean main, DatabaseArgs databaseArgs) throws IOException {
+		if (file == null || !(new File(file).canRead())) {
+			throw new FileNotFoundException("Database file " + file + " does not exist or is not readable!");
+		}
+
+		boolean readOnly = databaseArgs.isReadOnly();
+
+		// MapDB would map a read-only file whole through a read-only view of the mapping, which the cleaner hack can't unmap.
+		// Thus the file is mapped here in slices, which the file length must be a multiple of (as it is when grown by allocateIncrement).
+		File f = new File(file);
+		int sliceShift = Math.min(Long.numberOfTrailingZeros(f.length()), 30);
+
+		DBMaker.Maker maker;
+		if (databaseArgs.isMmap() && readOnly && isMmapSupported() && sliceShift >= 20) {
+			maker = DBMaker.volumeDB(new MappedFileVol(f, true, 0, sliceShift, true, 0, false), true).closeOnJvmShutdown();
+		} else {
+			maker = DBMaker.fileDB(file).closeOnJvmShutdown();
+			if (databaseArgs.isMmap()) {
+				maker = maker.fileMmapEnableIfSupported().cleanerHackEnable();
+			}
+		}
+		if (databaseArgs.getAllocateIncrement() > 0) {
+			maker = maker.allocateIncrement(databaseArgs.getAllocateIncrement() * 1024L * 1024L);
+		}
+		if (readOnly) {
+			maker = maker.readOnly();
+		} else {
+			maker = maker.transactionEnable();
+		}
+		DB db = maker.make();
+
+		if (readOnly) {
+			if (isMigrationNeeded(db, main)) {
+				db.close();
+				throw new IOException("Database file " + file + " was written by an earlier version of PubFetcher and must be opened once not read-only to be upgraded!");
+			}
+		} else {
+			migrateSerializers(db, file);
+		}
+
+		return db;
+	}
+
+	public Database(String database) throws IOException {
+		this(database, new DatabaseArgs());
+	}
+
+	public Database(String database, DatabaseArgs databaseArgs) throws IOException {
+		this.database = database;
+
+		this.readOnly = databaseArgs.isReadOnly();
+
+		DB db = open(database, true, databaseArgs);
+		int shardsSize = db.exists("shards") ? db.atomicInteger("shards").open().get() : 1;
+		this.shards = new DatabaseShard[shardsSize];
+		try {
+			DatabaseCompression compression = compression(db, database, databaseArgs);
+			DatabaseSerializer<Publication> publicationSerializer = DatabaseSerializer.publication(compression);
+			DatabaseSerializer<Webpage> webpageSerializer = DatabaseSerializer.webpage(compression);
+			this.publicationContentSerializer = DatabaseSerializer.publicationContent(compression);
+
+			shards[0] = new DatabaseShard(database, db, publicationSerializer, webpageSerializer);
+			for (int i = 1; i < shards.length; ++i) {
+				String file = shardFile(database, i);
+				shards[i] = new DatabaseShard(file, open(file, false, databaseArgs), publicationSerializer, webpageSerializer);
+			}
+
+			if (shards[0].hasIndexes()) {
+				for (DatabaseShard shard : shards) {
+					shard.openIndexes();
+				}
+			} else if (databaseArgs.isIndex() && readOnly) {
+				logger.warn("Not creating indexes, as database {} is opened read-only", database);
+			} else if (databaseArgs.isIndex()) {
+				logger.info("Creating indexes of database {}", database);
+				Arrays.stream(shards).parallel().forEach(DatabaseShard::buildIndexes);
+			}
+
+			// persist structures created for databases made by earlier versions
+			if (!readOnly) {
+				for (DatabaseShard shard : shards) {
+					shard.commit();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			db.close();
+			for (int i = 1; i < shards.length; ++i) {
+				if (shards[i] != null) {
+					shards[i].db.close();
+				}
+			}
+			throw e;
+		}
+
+		if (databaseArgs.isBloomFilter()) {
+			long start = System.currentTimeMillis();
+			// room for the database to grow while open without increasing the false positive rate much
+			this.publicationsMapFilter = new DatabaseBloomFilter(2 * Arrays.stream(shards).mapToLong(shard -> shard.publicationsMap.sizeLong()).sum());
+			this.webpagesFilter = new DatabaseBloomFilter(2 * getWebpagesSize());
+			this.docsFilter = new DatabaseBloomFilter(2 * getDocsSize());
+			streamPublicationIdsFlat(true).forEach(publicationsMapFilter::add);
+			streamWebpageUrls(true).forEach(webpagesFilter::add);
+			streamDocUrls(true).forEach(docsFilter::add);
+			logger.info("Built Bloom filters of database {} in {} ms", database, System.currentTimeMillis() - start);
+		} else {
+			this.publicationsMapFilter = null;
+			this.webpagesFilter = null;
+			this.docsFilter = null;
+		}
+
+		this.cache = (databaseArgs.getCacheSize() > 0 ? new DatabaseCache(databaseArgs.getCacheSize() * 1024L * 1024L) : null);
+
+		this.commitBatch = databaseArgs.getCommitBatch();
+		if (databaseArgs.getCommitInterval() > 0 && !readOnly) {
+			this.commitScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "database-commit");
+				t.setDaemon(true);
+				return t;
+			});
+			this.commitScheduler.scheduleWithFixedDelay(() -> {
+				try {
+					synchronized(commitLock) {
+						if (commitPending > 0) {
+							commitNow();
+						}
+					}
+				} catch (Exception e) {
+					logger.error("Exception!", e);
+				}
+			}, databaseArgs.getCommitInterval(), databaseArgs.getCommitInterval(), TimeUnit.MILLISECONDS);
+		} else {
+			this.commitScheduler = null;
+		}
+		if (commitBatch > 1 || commitScheduler != null) {
+			logger.info("Group commits of database {} enabled: commit after {} updates or every {} ms", database, commitBatch, databaseArgs.getCommitInterval());
+		}
+
+		logger.debug("Opened database {}{}{}{} with {} publications, {} webpages, {} docs", database, shards.length > 1 ? " of " + shards.length + " files" : "",
+			databaseArgs.isMmap() ? " memory-mapped" : "", readOnly ? " read-only" : "", getPublicationsSize(), getWebpagesSize(), getDocsSize());
 	}
 
-	@SuppressWarnings("unchecked")
 	public static void init(String database) throws FileAlreadyExistsException {
-		if (database == null || new File(database).exists()) {
-			throw new FileAlreadyExistsException(database);
+		init(database, 1);
+	}
+
+	public static void init(String database, int shards) throws FileAlreadyExistsException {
+		if (shards < 1) {
+			shards = 1;
 		}
+		for (int i = 0; i < shards; ++i) {
+			String file = (database == null ? null : shardFile(database, i));
+			if (file == null || new File(file).exists()) {
+				throw new FileAlreadyExistsException(file);
+			}
+		}
+
+		for (int i = 0; i < shards; ++i) {
+			DB db = DBMaker.fileDB(shardFile(database, i)).closeOnJvmShutdown().transactionEnable().make();
+
+			DatabaseShard.create(db);
+			if (i == 0) {
+				db.atomicVar("compressionDictionary", Serializer.BYTE_ARRAY).create();
+				if (shards > 1) {
+					db.atomicInteger("shards", shards).create();
+				}
+			}
 
-		DB db = DBMaker.fileDB(database).closeOnJvmShutdown().transactionEnable().make();
+			db.commit();
+			db.close();
+		}
+	}
 
-		db.hashMap("publicationsMap", Serializer.STRING, Serializer.STRING).counterEnable().create();
-		db.hashMap("publicationsMapReverse", Serializer.STRING, Serializer.JAVA).counterEnable().create();
-		db.hashMap("publications", Serializer.STRING, Serializer.JAVA).counterEnable().create();
+	private DatabaseShard shard(String key) {
+		if (shards.length == 1) return shards[0];
+		return shards[Math.floorMod(key.hashCode(), shards.length)];
+	}
+	// keys are added to a Bloom filter before they are put to the store, so that a key in the store can't be missed by the filter
+	private static void addKey(DatabaseBloomFilter filter, String key) {
+		if (filter != null) {
+			filter.add(key);
+		}
+	}
+	private static boolean mightContain(DatabaseBloomFilter filter, String key) {
+		return filter == null || filter.mightContain(key);
+	}
 
-		db.hashMap("webpages", Serializer.STRING, Serializer.JAVA).counterEnable().create();
-		db.hashMap("docs", Serializer.STRING, Serializer.JAVA).counterEnable().create();
+	// a shard is marked as changed only after the change, as a concurrent commit clears the mark before committing
+	private void publicationsMapPut(String id, String primaryId) {
+		DatabaseShard shard = shard(id);
+		shard.publicationsMap.put(id, primaryId);
+		shard.changed = true;
+	}
+	private void publicationsMapRemove(String id) {
+		DatabaseShard shard = shard(id);
+		shard.publicationsMap.remove(id);
+		shard.changed = true;
+	}
 
-		db.commit();
-		db.close();
+	private static int publicationLock(String id) {
+		return Math.floorMod(id.hashCode(), PUBLICATION_LOCKS);
+	}
+	// the given IDs, the primary IDs they map to and all IDs of these primary IDs
+	private Set<String> publicationIdsInvolved(String... ids) {
+		Set<String> involved = new LinkedHashSet<>();
+		for (String id : ids) {
+			if (id.isEmpty()) continue;
+			involved.add(id);
+			String primaryId = shard(id).publicationsMap.get(id);
+			if (primaryId != null) {
+				involved.add(primaryId);
+				PublicationIds primaryIds = shard(primaryId).publicationsMapReverse.get(primaryId);
+				if (primaryIds != null) {
+					involved.add(primaryIds.getPmid());
+					involved.add(primaryIds.getPmcid());
+					involved.add(primaryIds.getDoi());
+				}
+			}
+		}
+		involved.remove("");
+		return involved;
+	}
+	// the involved IDs can only be found under the locks of the given IDs, so if some of their locks are not held, all locks are released and taken again with these added
+	private <T> T withPublicationLocks(Supplier<T> change, String... ids) {
+		BitSet locks = new BitSet(PUBLICATION_LOCKS);
+		for (String id : ids) {
+			if (!id.isEmpty()) {
+				locks.set(publicationLock(id));
+			}
+		}
+		while (true) {
+			BitSet missing = new BitSet(PUBLICATION_LOCKS);
+			for (int i = locks.nextSetBit(0); i >= 0; i = locks.nextSetBit(i + 1)) {
+				publicationLocks[i].lock();
+			}
+			try {
+				for (String id : publicationIdsInvolved(ids)) {
+					missing.set(publicationLock(id));
+				}
+				missing.andNot(locks);
+				if (missing.isEmpty()) {
+					return change.get();
+				}
+			} finally {
+				for (int i = locks.nextSetBit(0); i >= 0; i = locks.nextSetBit(i + 1)) {
+					publicationLocks[i].unlock();
+				}
+			}
+			locks.or(missing);
+		}
 	}
 
 	private boolean removeOldId(String primaryId, String newId, String oldId, boolean primaryRemoved) {
 		if (!newId.isEmpty() && !oldId.isEmpty() && !newId.equals(oldId)) {
 			if (!primaryRemoved && primaryId.equals(oldId)) {
 				logger.error("Removing old primary ID {} (overridden by {}) and corresponding publication from database", primaryId, newId);
-				removePublication(primaryId, false);
+				removePublicationLocked(primaryId, false);
 				return true;
 			}
 			logger.error("Removing old ID {} (overridden by {}) from database", oldId, newId);
-			publicationsMap.remove(oldId);
+			publicationsMapRemove(oldId);
 		}
 		if (primaryRemoved) return true;
 		else return false;
 	}
 	private boolean removeOldIds(String primaryId, String pmid, String pmcid, String doi) {
-		PublicationIds oldPublicationIds = publicationsMapReverse.get(primaryId);
+		PublicationIds oldPublicationIds = shard(primaryId).publicationsMapReverse.get(primaryId);
 		if (oldPublicationIds != null) {
 			boolean primaryRemoved = false;
 			primaryRemoved = removeOldId(primaryId, pmid, oldPublicationIds.getPmid(), primaryRemoved);
@@ -125,13 +433,25 @@ public class Database implements Closeable {
 			return false;
 		}
 
+		// content must be got before the publication is possibly removed under its old primary ID
+		publication.loadContent();
+		byte[] content = publicationContentSerializer.toBytes(publication);
+
+		withPublicationLocks(() -> {
+			putPublication(publication, content);
+			return null;
+		}, publication.getPmid().getContent(), publication.getPmcid().getContent(), publication.getDoi().getContent());
+
+		return true;
+	}
+	private void putPublication(Publication publication, byte[] content) {
 		String pmid = publication.getPmid().getContent();
 		String pmcid = publication.getPmcid().getContent();
 		String doi = publication.getDoi().getContent();
 
 		String pmidPrimary = null;
 		if (!pmid.isEmpty()) {
-			pmidPrimary = publicationsMap.get(pmid);
+			pmidPrimary = shard(pmid).publicationsMap.get(pmid);
 			if (pmidPrimary != null) {
 				boolean primaryRemoved = removeOldIds(pmidPrimary, pmid, pmcid, doi);
 				if (primaryRemoved) {
@@ -141,12 +461,12 @@ public class Database implements Closeable {
 		}
 		String pmcidPrimary = null;
 		if (!pmcid.isEmpty()) {
-			pmcidPrimary = publicationsMap.get(pmcid);
+			pmcidPrimary = shard(pmcid).publicationsMap.get(pmcid);
 			if (pmcidPrimary != null) {
 				if (pmidPrimary != null && !pmidPrimary.equals(pmcidPrimary)) {
 					logger.error("Removing {}, equivalent to {}, merged by {}",
-						publicationsMapReverse.get(pmcid), publicationsMapReverse.get(pmid), publication.toStringId());
-					removePublication(pmcid, false);
+						shard(pmcid).publicationsMapReverse.get(pmcid), shard(pmid).publicationsMapReverse.get(pmid), publication.toStringId());
+					removePublicationLocked(pmcid, false);
 					pmcidPrimary = null;
 				} else if (pmidPrimary == null) {
 					boolean primaryRemoved = removeOldIds(pmcidPrimary, pmid, pmcid, doi);
@@ -158,17 +478,17 @@ public class Database implements Closeable {
 		}
 		String doiPrimary = null;
 		if (!doi.isEmpty()) {
-			doiPrimary = publicationsMap.get(doi);
+			doiPrimary = shard(doi).publicationsMap.get(doi);
 			if (doiPrimary != null) {
 				if (pmidPrimary != null && !pmidPrimary.equals(doiPrimary) || pmcidPrimary != null && !pmcidPrimary.equals(doiPrimary)) {
 					if (pmidPrimary != null) {
 						logger.error("Removing {}, equivalent to {}, merged by {}",
-							publicationsMapReverse.get(doi), publicationsMapReverse.get(pmid), publication.toStringId());
+							shard(doi).publicationsMapReverse.get(doi), shard(pmid).publicationsMapReverse.get(pmid), publication.toStringId());
 					} else {
 						logger.error("Removing {}, equivalent to {}, merged by {}",
-							publicationsMapReverse.get(doi), publicationsMapReverse.get(pmcid), publication.toStringId());
+							shard(doi).publicationsMapReverse.get(doi), shard(pmcid).publicationsMapReverse.get(pmcid), publication.toStringId());
 					}
-					removePublication(doi, false);
+					removePublicationLocked(doi, false);
 					doiPrimary = null;
 				} else if (pmidPrimary == null && pmcidPrimary == null) {
 					boolean primaryRemoved = removeOldIds(doiPrimary, pmid, pmcid, doi);
@@ -187,7 +507,7 @@ public class Database implements Closeable {
 
 		PublicationIds publicationIds = null;
 		if (id != null) {
-			PublicationIds oldPublicationIds = publicationsMapReverse.get(id);
+			PublicationIds oldPublicationIds = shard(id).publicationsMapReverse.get(id);
 			if (oldPublicationIds != null) {
 				publicationIds = new PublicationIds(
 					!pmid.isEmpty() ? pmid : oldPublicationIds.getPmid(),
@@ -213,18 +533,25 @@ public class Database implements Closeable {
 		}
 
 		if (!pmid.isEmpty()) {
-			publicationsMap.put(pmid, id);
+			addKey(publicationsMapFilter, pmid);
+			publicationsMapPut(pmid, id);
 		}
 		if (!pmcid.isEmpty()) {
-			publicationsMap.put(pmcid, id);
+			addKey(publicationsMapFilter, pmcid);
+			publicationsMapPut(pmcid, id);
 		}
 		if (!doi.isEmpty()) {
-			publicationsMap.put(doi, id);
+			addKey(publicationsMapFilter, doi);
+			publicationsMapPut(doi, id);
+		}
+		DatabaseShard shard = shard(id);
+		shard.publicationsMapReverse.put(id, publicationIds);
+		DatabaseShard.put(shard.publications, shard.publicationsIndex, id, publication);
+		shard.publicationContents.put(id, content);
+		shard.changed = true;
+		if (cache != null) {
+			cache.put(DatabaseEntryType.publication, id, new Publication(publication));
 		}
-		publicationsMapReverse.put(id, publicationIds);
-		publications.put(id, publication);
-
-		return true;
 	}
 
 	public boolean putWebpage(Webpage webpage) {
@@ -236,7 +563,13 @@ public class Database implements Closeable {
 			logger.error("Not putting webpage with no start URL to database");
 			return false;
 		}
-		webpages.put(webpage.getStartUrl(), webpage);
+		addKey(webpagesFilter, webpage.getStartUrl());
+		DatabaseShard shard = shard(webpage.getStartUrl());
+		DatabaseShard.put(shard.webpages, shard.webpagesIndex, webpage.getStartUrl(), webpage);
+		shard.changed = true;
+		if (cache != null) {
+			cache.put(DatabaseEntryType.webpage, webpage.getStartUrl(), new Webpage(webpage));
+		}
 		return true;
 	}
 	public boolean putDoc(Webpage doc) {
@@ -248,7 +581,13 @@ public class Database implements Closeable {
 			logger.error("Not putting doc with no start URL to database");
 			return false;
 		}
-		docs.put(doc.getStartUrl(), doc);
+		addKey(docsFilter, doc.getStartUrl());
+		DatabaseShard shard = shard(doc.getStartUrl());
+		DatabaseShard.put(shard.docs, shard.docsIndex, doc.getStartUrl(), doc);
+		shard.changed = true;
+		if (cache != null) {
+			cache.put(DatabaseEntryType.doc, doc.getStartUrl(), new Webpage(doc));
+		}
 		return true;
 	}
 
@@ -257,27 +596,36 @@ public class Database implements Closeable {
 			logger.error("No ID given for publication removal from database");
 			return false;
 		}
-		String id = publicationsMap.get(publicationId);
+		return withPublicationLocks(() -> removePublicationLocked(publicationId, alreadyRemoved), publicationId);
+	}
+	private boolean removePublicationLocked(String publicationId, boolean alreadyRemoved) {
+		String id = shard(publicationId).publicationsMap.get(publicationId);
 		if (id != null) {
 			if (alreadyRemoved) {
 				logger.warn("Another publication was already removed with an ID corresponding to {}", publicationId);
 			}
-			Publication publication = publications.get(id);
+			DatabaseShard shard = shard(id);
+			Publication publication = shard.publications.get(id);
 			if (publication != null) {
 				String pmid = publication.getPmid().getContent();
 				if (!pmid.isEmpty()) {
-					publicationsMap.remove(pmid);
+					publicationsMapRemove(pmid);
 				}
 				String pmcid = publication.getPmcid().getContent();
 				if (!pmcid.isEmpty()) {
-					publicationsMap.remove(pmcid);
+					publicationsMapRemove(pmcid);
 				}
 				String doi = publication.getDoi().getContent();
 				if (!doi.isEmpty()) {
-					publicationsMap.remove(doi);
+					publicationsMapRemove(doi);
+				}
+				PublicationIds removedPublicationIds = shard.publicationsMapReverse.remove(id);
+				Publication removedPublication = DatabaseShard.remove(shard.publications, shard.publicationsIndex, id);
+				shard.publicationContents.remove(id);
+				shard.changed = true;
+				if (cache != null) {
+					cache.remove(DatabaseEntryType.publication, id);
 				}
-				PublicationIds removedPublicationIds = publicationsMapReverse.remove(id);
-				Publication removedPublication = publications.remove(id);
 				if (removedPublicationIds == null) {
 					logger.error("Can't remove publication IDs for primary ID {} from database", id);
 				}
@@ -334,7 +682,12 @@ public class Database implements Closeable {
 			logger.error("null start URL given for webpage removal from database");
 			return false;
 		}
-		Webpage removed = webpages.remove(webpageUrl);
+		DatabaseShard shard = shard(webpageUrl);
+		Webpage removed = DatabaseShard.remove(shard.webpages, shard.webpagesIndex, webpageUrl);
+		shard.changed = true;
+		if (cache != null) {
+			cache.remove(DatabaseEntryType.webpage, webpageUrl);
+		}
 		if (removed == null) {
 			logger.warn("Can't find webpage with start URL {} for removal from database", webpageUrl);
 			return false;
@@ -346,7 +699,12 @@ public class Database implements Closeable {
 			logger.error("null start URL given for doc removal from database");
 			return false;
 		}
-		Webpage removed = docs.remove(docUrl);
+		DatabaseShard shard = shard(docUrl);
+		Webpage removed = DatabaseShard.remove(shard.docs, shard.docsIndex, docUrl);
+		shard.changed = true;
+		if (cache != null) {
+			cache.remove(DatabaseEntryType.doc, docUrl);
+		}
 		if (removed == null) {
 			logger.warn("Can't find doc with start URL {} for removal from database", docUrl);
 			return false;
@@ -374,7 +732,7 @@ public class Database implements Closeable {
 			logger.error("No publication ID given for availability checking in database");
 			return false;
 		}
-		return publicationsMap.containsKey(publicationId);
+		return mightContain(publicationsMapFilter, publicationId) && shard(publicationId).publicationsMap.containsKey(publicationId);
 	}
 	public boolean containsPublication(PublicationIds publicationIds) {
 		if (publicationIds == null) {
@@ -385,9 +743,9 @@ public class Database implements Closeable {
 			logger.error("Empty publication IDs given for availability checking in database");
 			return false;
 		}
-		return ((publicationIds.getPmid().isEmpty() || publicationsMap.containsKey(publicationIds.getPmid()))
-			&& (publicationIds.getPmcid().isEmpty() || publicationsMap.containsKey(publicationIds.getPmcid()))
-			&& (publicationIds.getDoi().isEmpty() || publicationsMap.containsKey(publicationIds.getDoi())));
+		return ((publicationIds.getPmid().isEmpty() || containsPublication(publicationIds.getPmid()))
+			&& (publicationIds.getPmcid().isEmpty() || containsPublication(publicationIds.getPmcid()))
+			&& (publicationIds.getDoi().isEmpty() || containsPublication(publicationIds.getDoi())));
 	}
 
 	public boolean containsWebpage(String webpageUrl) {
@@ -395,51 +753,153 @@ public class Database implements Closeable {
 			logger.error("No webpage start URL given for availability checking in database");
 			return false;
 		}
-		return webpages.containsKey(webpageUrl);
+		return mightContain(webpagesFilter, webpageUrl) && shard(webpageUrl).webpages.containsKey(webpageUrl);
 	}
 	public boolean containsDoc(String docUrl) {
 		if (docUrl == null) {
 			logger.error("No doc start URL given for availability checking in database");
 			return false;
 		}
-		return docs.containsKey(docUrl);
+		return mightContain(docsFilter, docUrl) && shard(docUrl).docs.containsKey(docUrl);
+	}
+
+	private <T> Stream<T> stream(Function<DatabaseShard, Collection<T>> store, boolean parallel) {
+		Stream<DatabaseShard> shardStream = Arrays.stream(shards);
+		if (parallel) {
+			// shards are split between threads, and entries of a shard in batches
+			return shardStream.parallel().flatMap(shard -> store.apply(shard).parallelStream());
+		} else {
+			return shardStream.flatMap(shard -> store.apply(shard).stream());
+		}
+	}
+
+	/**
+	 * Streams all entries of the publicationsMapReverse store, i.e. the IDs of
+	 * all publications, without copying them to memory first. Entries are read
+	 * lazily from the database, thus the stream must be consumed before the
+	 * Database is closed. In a parallel stream, entries are not in any particular
+	 * order.
+	 */
+	public Stream<PublicationIds> streamPublicationIds(boolean parallel) {
+		return stream(shard -> shard.publicationsMapReverse.values(), parallel);
+	}
+	public Stream<String> streamPublicationIdsFlat(boolean parallel) {
+		return stream(shard -> shard.publicationsMap.keySet(), parallel);
+	}
+	public Stream<Map.Entry<String, String>> streamPublicationsMap(boolean parallel) {
+		return stream(shard -> shard.publicationsMap.entrySet(), parallel);
+	}
+	public Stream<Map.Entry<String, PublicationIds>> streamPublicationsMapReverse(boolean parallel) {
+		return stream(shard -> shard.publicationsMapReverse.entrySet(), parallel);
+	}
+	/**
+	 * Streams all publications. Like with {@link #getPublication(String, boolean)},
+	 * the content of a publication is loaded only when first accessed.
+	 */
+	public Stream<Publication> streamPublications(boolean parallel) {
+		return stream(shard -> shard.publications.entrySet(), parallel).map(entry -> {
+			Publication publication = entry.getValue();
+			String id = entry.getKey();
+			publication.setContentLoader(() -> getPublicationContent(id));
+			return publication;
+		});
+	}
+
+	public Stream<String> streamWebpageUrls(boolean parallel) {
+		return stream(shard -> shard.webpages.keySet(), parallel);
+	}
+	public Stream<Webpage> streamWebpages(boolean parallel) {
+		return stream(shard -> shard.webpages.values(), parallel);
+	}
+	public Stream<String> streamDocUrls(boolean parallel) {
+		return stream(shard -> shard.docs.keySet(), parallel);
+	}
+	public Stream<Webpage> streamDocs(boolean parallel) {
+		return stream(shard -> shard.docs.values(), parallel);
 	}
 
 	public Set<PublicationIds> getPublicationIds() {
-		Set<PublicationIds> publicationIds = new LinkedHashSet<>();
-		publicationIds.addAll(publicationsMapReverse.values());
-		return publicationIds;
+		return streamPublicationIds(false).collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 	public Set<String> getPublicationIdsFlat() {
-		Set<String> publicationIdsFlat = new LinkedHashSet<>();
-		publicationIdsFlat.addAll(publicationsMap.keySet());
-		return publicationIdsFlat;
+		return streamPublicationIdsFlat(false).collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 
+	public void dumpPublicationsMap(PrintStream out) {
+		streamPublicationsMap(false).forEach(entry -> out.println(entry.getKey() + " -> " + entry.getValue()));
+	}
 	public String dumpPublicationsMap() {
-		StringBuilder sb = new StringBuilder();
-		for (Map.Entry<String, String> entry : publicationsMap.getEntries()) {
-			sb.append(entry.getKey()).append(" -> ").append(entry.getValue()).append("\n");
-		}
-		return sb.toString();
+		return streamPublicationsMap(false).map(entry -> entry.getKey() + " -> " + entry.getValue() + "\n").collect(Collectors.joining());
+	}
+	public void dumpPublicationsMapReverse(PrintStream out) {
+		streamPublicationsMapReverse(false).forEach(entry -> out.println(entry.getKey() + " -> " + entry.getValue().toStringWithUrl()));
 	}
 	public String dumpPublicationsMapReverse() {
-		StringBuilder sb = new StringBuilder();
-		for (Map.Entry<String, PublicationIds> entry : publicationsMapReverse.getEntries()) {
-			sb.append(entry.getKey()).append(" -> ").append(entry.getValue().toStringWithUrl()).append("\n");
-		}
-		return sb.toString();
+		return streamPublicationsMapReverse(false).map(entry -> entry.getKey() + " -> " + entry.getValue().toStringWithUrl() + "\n").collect(Collectors.joining());
 	}
 
 	public Set<String> getWebpageUrls() {
-		Set<String> webpageUrls = new LinkedHashSet<>();
-		webpageUrls.addAll(webpages.keySet());
-		return webpageUrls;
+		return streamWebpageUrls(false).collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 	public Set<String> getDocUrls() {
-		Set<String> docUrls = new LinkedHashSet<>();
-		docUrls.addAll(docs.keySet());
-		return docUrls;
+		return streamDocUrls(false).collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	public boolean isIndexed() {
+		return shards[0].publicationsIndex != null;
+	}
+
+	private Stream<String> index(DatabaseEntryType type, Function<DatabaseIndex, Stream<String>> query) {
+		if (!isIndexed()) {
+			throw new IllegalStateException("Database " + database + " has no indexes");
+		}
+		return Arrays.stream(shards).flatMap(shard -> {
+			switch (type) {
+				case publication: return query.apply(shard.publicationsIndex);
+				case webpage: return query.apply(shard.webpagesIndex);
+				case doc: return query.apply(shard.docsIndex);
+				default: return Stream.empty();
+			}
+		});
+	}
+
+	/**
+	 * Finds the keys (primary IDs of publications, start URLs of webpages and
+	 * docs) of entries whose fetchTime is between the given times (inclusive)
+	 * using the indexes of the database, without reading the entries. Like with
+	 * other streams, the result must be consumed before the Database is closed.
+	 */
+	public Stream<String> findByFetchTime(DatabaseEntryType type, long from, long to) {
+		return index(type, index -> index.fetchTime(from, to));
+	}
+	public Stream<String> findByRetryCounter(DatabaseEntryType type, int from, int to) {
+		return index(type, index -> index.retryCounter(from, to));
+	}
+	public Stream<String> findByFetchException(DatabaseEntryType type, boolean fetchException) {
+		return index(type, index -> index.fetchException(fetchException));
+	}
+	/**
+	 * Finds the keys of entries that can be final, i.e. all entries that are
+	 * final for some fetching parameters: publications whose title, abstract
+	 * and fulltext are of final type and webpages and docs that are not broken
+	 * and have content.
+	 */
+	public Stream<String> findPossiblyFinal(DatabaseEntryType type) {
+		return index(type, index -> index.possiblyFinal());
+	}
+	/**
+	 * Finds the start URLs of webpages or docs whose final URL has the given
+	 * host, which is compared case-insensitively and with "www." removed.
+	 */
+	public Stream<String> findByFinalUrlHost(DatabaseEntryType type, String host) {
+		return index(type, index -> index.finalUrlHost(host));
+	}
+
+	public String getPrimaryId(String publicationId) {
+		if (publicationId == null || !mightContain(publicationsMapFilter, publicationId)) {
+			return null;
+		}
+		return shard(publicationId).publicationsMap.get(publicationId);
 	}
 
 	public Publication getPublication(String publicationId, boolean logMissing) {
@@ -447,10 +907,25 @@ public class Database implements Closeable {
 			logger.error("No ID given for getting publication from database");
 			return null;
 		}
-		String id = publicationsMap.get(publicationId);
+		String id = getPrimaryId(publicationId);
 		if (id != null) {
-			Publication publication = publications.get(id);
+			long modifications = (cache != null ? cache.getModifications() : 0);
+			Publication cached = (cache != null ? cache.get(DatabaseEntryType.publication, id) : null);
+			if (cached != null) {
+				Publication publication = new Publication(cached);
+				publication.setContentLoader(() -> getCachedPublicationContent(id, cached));
+				return publication;
+			}
+			Publication publication = shard(id).publications.get(id);
 			if (publication != null) {
+				if (cache != null) {
+					// with the content not read now (unless written inline by an earlier version), but put to the cache once it is loaded
+					Publication entry = new Publication(publication);
+					publication.setContentLoader(() -> getCachedPublicationContent(id, entry));
+					cache.putRead(DatabaseEntryType.publication, id, entry, modifications);
+				} else {
+					publication.setContentLoader(() -> getPublicationContent(id));
+				}
 				return publication;
 			} else {
 				logger.error("No publication found for primary ID {} in database", id);
@@ -463,6 +938,29 @@ public class Database implements Closeable {
 			return null;
 		}
 	}
+	private Publication getPublicationContent(String id) {
+		DatabaseShard shard = shard(id);
+		if (shard.db.isClosed()) {
+			throw new IllegalStateException("Database " + database + " was closed before content of publication with primary ID " + id + " was loaded");
+		}
+		byte[] content = shard.publicationContents.get(id);
+		if (content == null) {
+			logger.error("No content found for publication with primary ID {} in database", id);
+			return null;
+		}
+		return publicationContentSerializer.fromBytes(content);
+	}
+	private Publication getCachedPublicationContent(String id, Publication entry) {
+		Publication cached = cache.getContent(id, entry);
+		if (cached != null) {
+			return new Publication(cached);
+		}
+		Publication content = getPublicationContent(id);
+		if (content != null) {
+			cache.putContent(id, entry, new Publication(content));
+		}
+		return content;
+	}
 	private void checkGetPublicationMismatch(String given, String present, String query) {
 		if (!given.isEmpty() && !present.isEmpty() && !given.equals(present)) {
 			logger.warn("Mismatch between ID given ({}) and ID present ({}) in publication got using ID {}", given, present, query);
@@ -505,12 +1003,31 @@ public class Database implements Closeable {
 		return null;
 	}
 
+	private Webpage getCached(DatabaseEntryType type, String url, DatabaseBloomFilter filter, Function<DatabaseShard, Map<String, Webpage>> store) {
+		if (!mightContain(filter, url)) {
+			return null;
+		}
+		if (cache == null) {
+			return store.apply(shard(url)).get(url);
+		}
+		long modifications = cache.getModifications();
+		Webpage cached = cache.get(type, url);
+		if (cached != null) {
+			return new Webpage(cached);
+		}
+		Webpage webpage = store.apply(shard(url)).get(url);
+		if (webpage != null) {
+			cache.putRead(type, url, new Webpage(webpage), modifications);
+		}
+		return webpage;
+	}
+
 	public Webpage getWebpage(String webpageUrl, boolean logMissing) {
 		if (webpageUrl == null) {
 			logger.error("No start URL given for getting webpage from database");
 			return null;
 		}
-		Webpage webpage = webpages.get(webpageUrl);
+		Webpage webpage = getCached(DatabaseEntryType.webpage, webpageUrl, webpagesFilter, shard -> shard.webpages);
 		if (webpage == null && logMissing) {
 			logger.warn("No webpage found for URL {} in database", webpageUrl);
 		}
@@ -521,7 +1038,7 @@ public class Database implements Closeable {
 			logger.error("No start URL given for getting doc from database");
 			return null;
 		}
-		Webpage doc = docs.get(docUrl);
+		Webpage doc = getCached(DatabaseEntryType.doc, docUrl, docsFilter, shard -> shard.docs);
 		if (doc == null && logMissing) {
 			logger.warn("No doc found for URL {} in database", docUrl);
 		}
@@ -529,26 +1046,117 @@ public class Database implements Closeable {
 	}
 
 	public long getPublicationsSize() {
-		return publications.sizeLong();
+		return Arrays.stream(shards).mapToLong(shard -> shard.publications.sizeLong()).sum();
 	}
 
 	public long getWebpagesSize() {
-		return webpages.sizeLong();
+		return Arrays.stream(shards).mapToLong(shard -> shard.webpages.sizeLong()).sum();
 	}
 	public long getDocsSize() {
-		return docs.sizeLong();
+		return Arrays.stream(shards).mapToLong(shard -> shard.docs.sizeLong()).sum();
+	}
+
+	/**
+	 * Number of gets of a publication, webpage or doc that were answered from
+	 * the in-memory cache of deserialized entries (see
+	 * {@link DatabaseArgs#getCacheSize()}).
+	 *
+	 * @return count of cache hits, or 0 if the cache is disabled
+	 */
+	public long getCacheHits() {
+		return cache != null ? cache.getHits() : 0;
+	}
+	/**
+	 * Number of gets of a publication, webpage or doc that were not found in
+	 * the in-memory cache of deserialized entries and thus were read from the
+	 * database files.
+	 *
+	 * @return count of cache misses, or 0 if the cache is disabled
+	 */
+	public long getCacheMisses() {
+		return cache != null ? cache.getMisses() : 0;
+	}
+
+	// must be called with commitLock held
+	private void commitNow() {
+		long start = System.nanoTime();
+		// shards have separate transactions, so can be committed in parallel
+		Arrays.stream(shards).parallel().filter(shard -> shard.changed).forEach(DatabaseShard::commit);
+		long nanos = System.nanoTime() - start;
+		++commitCount;
+		commitNanosTotal += nanos;
+		if (nanos > commitNanosMax) {
+			commitNanosMax = nanos;
+		}
+		if (commitPending > 1) {
+			logger.debug("Committed {} updates to database {} in {} ms", commitPending, database, nanos / 1000000.0);
+		}
+		commitPending = 0;
 	}
 
 	public void commit() {
-		db.commit();
+		if (readOnly) return;
+		synchronized(commitLock) {
+			++commitPending;
+			if (commitBatch <= 1 && commitScheduler == null || commitBatch > 0 && commitPending >= commitBatch) {
+				commitNow();
+			}
+		}
+	}
+
+	public long getCommitCount() {
+		synchronized(commitLock) {
+			return commitCount;
+		}
+	}
+	public double getCommitTimeAverage() {
+		synchronized(commitLock) {
+			return commitCount > 0 ? commitNanosTotal / (double) commitCount / 1000000.0 : 0;
+		}
+	}
+	public double getCommitTimeMax() {
+		synchronized(commitLock) {
+			return commitNanosMax / 1000000.0;
+		}
 	}
 
 	public void compact() {
-		db.getStore().compact();
+		synchronized(commitLock) {
+			if (commitPending > 0) {
+				commitNow();
+			}
+		}
+		Arrays.stream(shards).parallel().forEach(shard -> shard.db.getStore().compact());
 	}
 
 	@Override
 	public void close() throws IOException {
-		db.close();
+		if (commitScheduler != null) {
+			commitScheduler.shutdown();
+			try {
+				commitScheduler.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				logger.error("Interrupt!", e);
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized(commitLock) {
+			if (commitPending > 0) {
+				commitNow();
+			}
+			if (commitCount > 1) {
+				logger.info("Committed database {} {} times, commit time average {} ms, max {} ms", database, commitCount, getCommitTimeAverage(), getCommitTimeMax());
+			}
+		}
+		if (cache != null) {
+			if (cache.getHits() + cache.getMisses() > 0) {
+				logger.info("Cache of database {}: {} hits, {} misses, {} evictions, {} entries of about {} MB", database,
+					cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getSize(), cache.getWeight() / 1024 / 1024);
+			}
+			cache.clear();
+		}
+		for (DatabaseShard shard : shards) {
+			shard.db.close();
+		}
 	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter of the keys of a store of a {@link Database}, for
+ * answering that a key is not in the store without reading the database. A
+ * key that is added can't be removed, thus after removals from the store the
+ * filter can only give more false positives, which are resolved by the actual
+ * lookup from the store. Keys can be added concurrently.
+ */
+class DatabaseBloomFilter {
+
+	// for a false positive rate of about 1%
+	private static final int BITS_PER_KEY = 10;
+	private static final int HASHES = 7;
+
+	private final AtomicLongArray bits;
+
+	private final long size;
+
+	DatabaseBloomFilter(long expectedKeys) {
+		long words = Math.max(1, Math.min(Integer.MAX_VALUE - 8, (Math.max(expectedKeys, 1024) * BITS_PER_KEY + 63) / 64));
+		this.bits = new AtomicLongArray((int) words);
+		this.size = words * 64;
+	}
+
+	// 64-bit FNV-1a, finalised with the mixer of MurmurHash3
+	private static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); ++i) {
+			h ^= key.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	void add(String key) {
+		long h = hash(key);
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32);
+		for (int i = 1; i <= HASHES; ++i) {
+			long bit = Math.floorMod(h1 + (long) i * h2, size);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			if ((bits.get(word) & mask) == 0) {
+				bits.getAndAccumulate(word, mask, (a, b) -> a | b);
+			}
+		}
+	}
+
+	boolean mightContain(String key) {
+		long h = hash(key);
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32);
+		for (int i = 1; i <= HASHES; ++i) {
+			long bit = Math.floorMod(h1 + (long) i * h2, size);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
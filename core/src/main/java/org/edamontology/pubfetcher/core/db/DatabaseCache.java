@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+import org.edamontology.pubfetcher.core.db.webpage.Webpage;
+
+/**
+ * In-memory least recently used cache of deserialized entries of a
+ * {@link Database}, bounded by the approximate size of the cached entries in
+ * bytes. Publications are cached by their primary ID, webpages and docs by
+ * their start URL. Entries are put to the cache when they are put to the
+ * database and when they are got from the database, and removed from the
+ * cache when they are removed from the database. Cached entries are never
+ * changed: a copy of the entry is put to the cache and every get makes its
+ * own copy of the cached entry (sharing the immutable strings, so that the
+ * copy is much cheaper than reading and decompressing the entry again).
+ */
+class DatabaseCache {
+
+	// approximate memory taken by an entry besides its strings
+	private static final long ENTRY_OVERHEAD = 256;
+	private static final long LIST_ITEM_OVERHEAD = 64;
+
+	private static final class Key {
+		private final DatabaseEntryType type;
+		private final String key;
+		private Key(DatabaseEntryType type, String key) {
+			this.type = type;
+			this.key = key;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return type == other.type && key.equals(other.key);
+		}
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, key);
+		}
+	}
+
+	private static final class Value {
+		private final DatabaseEntry<?> entry;
+		// content of a publication cached without it, null until loaded
+		private Publication content;
+		private long weight;
+		private Value(DatabaseEntry<?> entry, long weight) {
+			this.entry = entry;
+			this.weight = weight;
+		}
+	}
+
+	private final long maxWeight;
+
+	// in access order, thus the first entry is the least recently used
+	private final LinkedHashMap<Key, Value> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long weight = 0;
+
+	// incremented on every put and remove, so that an entry read from the database can't replace a newer change made during the read
+	private long modifications = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	DatabaseCache(long maxWeight) {
+		this.maxWeight = maxWeight;
+	}
+
+	private static long weight(String s) {
+		return s.length();
+	}
+
+	private static long weight(Webpage webpage) {
+		return ENTRY_OVERHEAD + weight(webpage.getStartUrl()) + weight(webpage.getFinalUrl()) + weight(webpage.getContentType())
+			+ weight(webpage.getTitle()) + weight(webpage.getContent()) + weight(webpage.getLicense()) + weight(webpage.getLanguage());
+	}
+
+	// the content (as in Publication.setContentLoader) is not accessed, so that it is not loaded
+	private static long weightMeta(Publication publication) {
+		return ENTRY_OVERHEAD + weight(publication.getPmid().getContent()) + weight(publication.getPmcid().getContent()) + weight(publication.getDoi().getContent())
+			+ weight(publication.getTitle().getContent()) + weight(publication.getJournalTitle());
+	}
+
+	private static long weightContent(Publication publication) {
+		return weight(publication.getAbstract().getContent()) + weight(publication.getFulltext().getContent())
+			+ LIST_ITEM_OVERHEAD * (publication.getKeywords().getSize() + publication.getMeshTerms().getSize() + publication.getEfoTerms().getSize()
+				+ publication.getGoTerms().getSize() + publication.getVisitedSites().size());
+	}
+
+	private static long weight(DatabaseEntry<?> entry) {
+		if (entry instanceof Publication) {
+			Publication publication = (Publication) entry;
+			return weightMeta(publication) + (publication.isContentLoaded() ? weightContent(publication) : 0);
+		} else {
+			return weight((Webpage) entry);
+		}
+	}
+
+	// must be called with lock held
+	private void evict() {
+		Iterator<Value> it = entries.values().iterator();
+		while (weight > maxWeight && it.hasNext()) {
+			weight -= it.next().weight;
+			it.remove();
+			++evictions;
+		}
+	}
+
+	// the cached entry, which must not be changed, but copied; it also identifies the cached entry for getContent and putContent
+	@SuppressWarnings("unchecked")
+	<T extends DatabaseEntry<?>> T get(DatabaseEntryType type, String key) {
+		synchronized(this) {
+			Value value = entries.get(new Key(type, key));
+			if (value != null) {
+				++hits;
+				return (T) value.entry;
+			} else {
+				++misses;
+				return null;
+			}
+		}
+	}
+
+	// the content of a publication cached without it, if it is loaded and the publication is still the given cached entry
+	Publication getContent(String key, Publication entry) {
+		synchronized(this) {
+			Value value = entries.get(new Key(DatabaseEntryType.publication, key));
+			if (value != null && value.entry == entry) {
+				return value.content;
+			}
+			return null;
+		}
+	}
+
+	long getModifications() {
+		synchronized(this) {
+			return modifications;
+		}
+	}
+
+	private void putLocked(DatabaseEntryType type, String key, DatabaseEntry<?> entry) {
+		Value value = new Value(entry, weight(entry));
+		Value old = entries.put(new Key(type, key), value);
+		if (old != null) {
+			weight -= old.weight;
+		}
+		weight += value.weight;
+		evict();
+	}
+
+	// on put of the entry to the database, with the given entry a copy not changed afterwards
+	void put(DatabaseEntryType type, String key, DatabaseEntry<?> entry) {
+		synchronized(this) {
+			++modifications;
+			putLocked(type, key, entry);
+		}
+	}
+
+	// on get of the entry from the database, that was started when the cache had the given count of modifications
+	void putRead(DatabaseEntryType type, String key, DatabaseEntry<?> entry, long readModifications) {
+		synchronized(this) {
+			if (modifications == readModifications) {
+				putLocked(type, key, entry);
+			}
+		}
+	}
+
+	// when content of a publication cached without it is loaded
+	void putContent(String key, Publication entry, Publication content) {
+		synchronized(this) {
+			Value value = entries.get(new Key(DatabaseEntryType.publication, key));
+			if (value != null && value.entry == entry && value.content == null) {
+				long contentWeight = weightContent(content);
+				value.content = content;
+				value.weight += contentWeight;
+				weight += contentWeight;
+				evict();
+			}
+		}
+	}
+
+	void remove(DatabaseEntryType type, String key) {
+		synchronized(this) {
+			++modifications;
+			Value old = entries.remove(new Key(type, key));
+			if (old != null) {
+				weight -= old.weight;
+			}
+		}
+	}
+	void clear() {
+		synchronized(this) {
+			++modifications;
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	long getHits() {
+		synchronized(this) {
+			return hits;
+		}
+	}
+	long getMisses() {
+		synchronized(this) {
+			return misses;
+		}
+	}
+	long getEvictions() {
+		synchronized(this) {
+			return evictions;
+		}
+	}
+	long getWeight() {
+		synchronized(this) {
+			return weight;
+		}
+	}
+	int getSize() {
+		synchronized(this) {
+			return entries.size();
+		}
+	}
+}
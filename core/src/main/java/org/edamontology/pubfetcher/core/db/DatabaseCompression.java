@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
+/**
+ * Compression of large text values (like publication fulltext or webpage
+ * content) stored in the database. Texts are compressed with DEFLATE at its
+ * fastest level, optionally primed with a preset dictionary shared by all
+ * entries of a database. The zlib header of each compressed value records the
+ * checksum of the used dictionary, so a value can't be silently decompressed
+ * with a wrong one.
+ */
+public class DatabaseCompression {
+
+	// DEFLATE can only make use of the last 32 KB of a preset dictionary
+	public static final int DICTIONARY_MAX_SIZE = 32 * 1024;
+
+	public static final DatabaseCompression NONE = new DatabaseCompression(0, null);
+
+	private final int minLength;
+
+	private final byte[] dictionary;
+
+	private final int dictionaryId;
+
+	public DatabaseCompression(int minLength, byte[] dictionary) {
+		this.minLength = minLength;
+		if (dictionary != null && dictionary.length > DICTIONARY_MAX_SIZE) {
+			dictionary = Arrays.copyOfRange(dictionary, dictionary.length - DICTIONARY_MAX_SIZE, dictionary.length);
+		}
+		if (dictionary != null && dictionary.length > 0) {
+			this.dictionary = dictionary;
+			Adler32 adler32 = new Adler32();
+			adler32.update(dictionary);
+			this.dictionaryId = (int) adler32.getValue();
+		} else {
+			this.dictionary = null;
+			this.dictionaryId = 0;
+		}
+	}
+
+	public int getMinLength() {
+		return minLength;
+	}
+
+	public byte[] getDictionary() {
+		return dictionary;
+	}
+
+	private byte[] compress(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(bytes);
+			deflater.finish();
+			byte[] buffer = new byte[bytes.length];
+			int length = 0;
+			while (!deflater.finished() && length < buffer.length) {
+				length += deflater.deflate(buffer, length, buffer.length - length);
+			}
+			if (!deflater.finished()) {
+				// not compressible
+				return null;
+			}
+			return Arrays.copyOf(buffer, length);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private byte[] decompress(byte[] compressed, int length) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] bytes = new byte[length];
+			int n = 0;
+			while (n < length) {
+				int inflated = inflater.inflate(bytes, n, length - n);
+				if (inflated == 0) {
+					if (inflater.needsDictionary()) {
+						if (dictionary == null || inflater.getAdler() != dictionaryId) {
+							throw new IOException("Compressed value requires a preset dictionary with checksum " + Integer.toUnsignedString(inflater.getAdler(), 16) + ", which is not available");
+						}
+						inflater.setDictionary(dictionary);
+					} else if (inflater.finished() || inflater.needsInput()) {
+						throw new IOException("Compressed value is truncated, got " + n + " bytes instead of " + length);
+					}
+				}
+				n += inflated;
+			}
+			return bytes;
+		} catch (DataFormatException e) {
+			throw new IOException("Compressed value is corrupt", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Writes a string that is compressed if its UTF-8 encoded length is at
+	 * least the minimum length and compression actually makes it smaller.
+	 * Header is the length of the stored bytes, shifted left by one, with the
+	 * lowest bit set if these bytes are compressed (in which case the length
+	 * of the uncompressed bytes follows).
+	 */
+	public void writeText(DataOutput2 out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if (minLength > 0 && bytes.length >= minLength) {
+			byte[] compressed = compress(bytes);
+			if (compressed != null) {
+				out.packInt(compressed.length << 1 | 1);
+				out.packInt(bytes.length);
+				out.write(compressed);
+				return;
+			}
+		}
+		out.packInt(bytes.length << 1);
+		out.write(bytes);
+	}
+
+	public String readText(DataInput2 in, int version) throws IOException {
+		if (version < 2) {
+			return DatabaseSerializer.readString(in);
+		}
+		int header = in.unpackInt();
+		int length = header >>> 1;
+		if (length == 0) {
+			return "";
+		}
+		if ((header & 1) != 0) {
+			int uncompressedLength = in.unpackInt();
+			byte[] compressed = new byte[length];
+			in.readFully(compressed);
+			return new String(decompress(compressed, uncompressedLength), StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
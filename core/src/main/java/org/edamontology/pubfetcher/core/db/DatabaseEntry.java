@@ -25,6 +25,8 @@ import java.time.Instant;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
 
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 
@@ -42,6 +44,14 @@ public abstract class DatabaseEntry<T> implements Serializable, Comparable<T> {
 
 	protected boolean fetchException = false;
 
+	protected DatabaseEntry() {}
+
+	protected DatabaseEntry(DatabaseEntry<T> entry) {
+		fetchTime = entry.fetchTime;
+		retryCounter = entry.retryCounter;
+		fetchException = entry.fetchException;
+	}
+
 	public abstract boolean isEmpty();
 
 	public abstract boolean isUsable(FetcherArgs fetcherArgs);
@@ -113,6 +123,18 @@ public abstract class DatabaseEntry<T> implements Serializable, Comparable<T> {
 		this.fetchException = fetchException;
 	}
 
+	protected void writeEntry(DataOutput2 out) throws IOException {
+		out.packLong(fetchTime);
+		out.packInt(retryCounter);
+		out.writeBoolean(fetchException);
+	}
+
+	protected void readEntry(DataInput2 in, int version) throws IOException {
+		fetchTime = in.unpackLong();
+		retryCounter = in.unpackInt();
+		fetchException = in.readBoolean();
+	}
+
 	public abstract String toStringId();
 
 	public abstract String toStringIdHtml();
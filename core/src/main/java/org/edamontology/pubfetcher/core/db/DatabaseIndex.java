@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.stream.Stream;
+
+import org.mapdb.DB;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+import org.mapdb.serializer.SerializerArrayTuple;
+
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+import org.edamontology.pubfetcher.core.db.webpage.Webpage;
+
+/**
+ * Persistent secondary indexes of the publications, webpages or docs store of
+ * a {@link DatabaseShard}, for finding keys of entries by some of their fields
+ * without reading all entries. Each index is a sorted set of (value, key)
+ * pairs, kept in the same file and transaction as the store it indexes.
+ */
+class DatabaseIndex {
+
+	private final NavigableSet<Object[]> fetchTime;
+	private final NavigableSet<Object[]> retryCounter;
+	private final NavigableSet<Object[]> fetchException;
+	private final NavigableSet<Object[]> possiblyFinal;
+	// only for webpages and docs
+	private final NavigableSet<Object[]> finalUrlHost;
+
+	private static NavigableSet<Object[]> index(DB db, String name, Serializer<?> valueSerializer) {
+		return db.treeSet(name).serializer(new SerializerArrayTuple(valueSerializer, Serializer.STRING)).createOrOpen();
+	}
+
+	static boolean exists(DB db, String store) {
+		return db.exists(store + "IndexFetchTime");
+	}
+
+	DatabaseIndex(DB db, String store, boolean webpage) {
+		this.fetchTime = index(db, store + "IndexFetchTime", Serializer.LONG);
+		this.retryCounter = index(db, store + "IndexRetryCounter", Serializer.LONG);
+		this.fetchException = index(db, store + "IndexFetchException", Serializer.LONG);
+		this.possiblyFinal = index(db, store + "IndexPossiblyFinal", Serializer.LONG);
+		this.finalUrlHost = webpage ? index(db, store + "IndexFinalUrlHost", Serializer.STRING) : null;
+	}
+
+	// hosts are compared like in the host filters of the CLI
+	private static String normaliseHost(String host) {
+		host = host.toLowerCase(Locale.ROOT);
+		if (host.startsWith("www.")) {
+			host = host.substring(4);
+		}
+		return host;
+	}
+	private static String host(String url) {
+		try {
+			return normaliseHost(new URL(url).getHost());
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	// finality also depends on fetching parameters, so only the parts of it that don't are indexed
+	private static boolean isPossiblyFinal(DatabaseEntry<?> entry) {
+		if (entry instanceof Publication) {
+			Publication publication = (Publication) entry;
+			return publication.getTitle().getType().isFinal() && publication.getAbstract().getType().isFinal() && publication.getFulltext().getType().isFinal();
+		} else {
+			Webpage webpage = (Webpage) entry;
+			return !webpage.isBroken() && !webpage.getContent().isEmpty();
+		}
+	}
+
+	private void add(String key, DatabaseEntry<?> entry) {
+		fetchTime.add(new Object[] { entry.getFetchTime(), key });
+		retryCounter.add(new Object[] { (long) entry.getRetryCounter(), key });
+		fetchException.add(new Object[] { entry.isFetchException() ? 1L : 0L, key });
+		possiblyFinal.add(new Object[] { isPossiblyFinal(entry) ? 1L : 0L, key });
+		if (finalUrlHost != null) {
+			String host = host(((Webpage) entry).getFinalUrl());
+			if (host != null) {
+				finalUrlHost.add(new Object[] { host, key });
+			}
+		}
+	}
+
+	private void remove(String key, DatabaseEntry<?> entry) {
+		fetchTime.remove(new Object[] { entry.getFetchTime(), key });
+		retryCounter.remove(new Object[] { (long) entry.getRetryCounter(), key });
+		fetchException.remove(new Object[] { entry.isFetchException() ? 1L : 0L, key });
+		possiblyFinal.remove(new Object[] { isPossiblyFinal(entry) ? 1L : 0L, key });
+		if (finalUrlHost != null) {
+			String host = host(((Webpage) entry).getFinalUrl());
+			if (host != null) {
+				finalUrlHost.remove(new Object[] { host, key });
+			}
+		}
+	}
+
+	void update(String key, DatabaseEntry<?> oldEntry, DatabaseEntry<?> newEntry) {
+		if (oldEntry != null) {
+			remove(key, oldEntry);
+		}
+		if (newEntry != null) {
+			add(key, newEntry);
+		}
+	}
+
+	// the store and its index are changed together, so that concurrent changes of the same key can't leave stale index entries
+	<T extends DatabaseEntry<?>> T put(HTreeMap<String, T> store, String key, T entry) {
+		synchronized(this) {
+			T oldEntry = store.put(key, entry);
+			update(key, oldEntry, entry);
+			return oldEntry;
+		}
+	}
+	<T extends DatabaseEntry<?>> T remove(HTreeMap<String, T> store, String key) {
+		synchronized(this) {
+			T oldEntry = store.remove(key);
+			update(key, oldEntry, null);
+			return oldEntry;
+		}
+	}
+
+	void build(HTreeMap<String, ? extends DatabaseEntry<?>> store) {
+		store.forEach((key, entry) -> add(key, entry));
+	}
+
+	// both ends inclusive
+	private static Stream<String> range(NavigableSet<Object[]> index, Object from, Object to) {
+		return index.subSet(new Object[] { from }, true, new Object[] { to, null }, true).stream().map(pair -> (String) pair[1]);
+	}
+
+	Stream<String> fetchTime(long from, long to) {
+		return range(fetchTime, from, to);
+	}
+	Stream<String> retryCounter(long from, long to) {
+		return range(retryCounter, from, to);
+	}
+	Stream<String> fetchException(boolean value) {
+		return range(fetchException, value ? 1L : 0L, value ? 1L : 0L);
+	}
+	Stream<String> possiblyFinal() {
+		return range(possiblyFinal, 1L, 1L);
+	}
+	Stream<String> finalUrlHost(String host) {
+		if (finalUrlHost == null) {
+			return Stream.empty();
+		}
+		return range(finalUrlHost, normaliseHost(host), normaliseHost(host));
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
+import org.edamontology.pubfetcher.core.db.webpage.Webpage;
+
+public class DatabaseSerializer<T> extends GroupSerializerObjectArray<T> {
+
+	// 1: compact format replacing Java serialization
+	// 2: large text values can be compressed
+	// 3: publication content is stored separately from the rest of the publication
+	public static final int VERSION = 3;
+
+	// first byte of STREAM_MAGIC of values written with Serializer.JAVA by earlier versions
+	private static final int JAVA_STREAM_MAGIC = 0xAC;
+
+	public static final DatabaseSerializer<PublicationIds> PUBLICATION_IDS = new DatabaseSerializer<>(
+		(out, publicationIds) -> {
+			writeString(out, publicationIds.getPmid());
+			writeString(out, publicationIds.getPmcid());
+			writeString(out, publicationIds.getDoi());
+			writeString(out, publicationIds.getPmidUrl());
+			writeString(out, publicationIds.getPmcidUrl());
+			writeString(out, publicationIds.getDoiUrl());
+		},
+		(in, version) -> new PublicationIds(readString(in), readString(in), readString(in), readString(in), readString(in), readString(in)));
+
+	public static DatabaseSerializer<Publication> publication(DatabaseCompression compression) {
+		return new DatabaseSerializer<>(
+			(out, publication) -> publication.write(out, compression),
+			(in, version) -> Publication.read(in, version, compression));
+	}
+
+	public static DatabaseSerializer<Publication> publicationContent(DatabaseCompression compression) {
+		return new DatabaseSerializer<>(
+			(out, publication) -> publication.writeContent(out, compression),
+			(in, version) -> Publication.readContent(in, version, compression));
+	}
+
+	public static DatabaseSerializer<Webpage> webpage(DatabaseCompression compression) {
+		return new DatabaseSerializer<>(
+			(out, webpage) -> webpage.write(out, compression),
+			(in, version) -> Webpage.read(in, version, compression));
+	}
+
+	@FunctionalInterface
+	public interface Writer<T> {
+		void write(DataOutput2 out, T value) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface Reader<T> {
+		T read(DataInput2 in, int version) throws IOException;
+	}
+
+	private final Writer<T> writer;
+
+	private final Reader<T> reader;
+
+	private DatabaseSerializer(Writer<T> writer, Reader<T> reader) {
+		this.writer = writer;
+		this.reader = reader;
+	}
+
+	@Override
+	public void serialize(DataOutput2 out, T value) throws IOException {
+		out.writeByte(VERSION);
+		writer.write(out, value);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T deserialize(DataInput2 in, int available) throws IOException {
+		int pos = in.getPos();
+		int version = in.readUnsignedByte();
+		if (version == JAVA_STREAM_MAGIC) {
+			in.setPos(pos);
+			return (T) Serializer.JAVA.deserialize(in, available);
+		}
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported database serialization format version " + version + " (latest supported is " + VERSION + ")");
+		}
+		return reader.read(in, version);
+	}
+
+	public static void writeString(DataOutput2 out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.packInt(bytes.length);
+		out.write(bytes);
+	}
+
+	// for values kept as raw bytes in the database, as MapDB deserializes the old value on every put and remove
+	public byte[] toBytes(T value) {
+		DataOutput2 out = new DataOutput2();
+		try {
+			serialize(out, value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.copyBytes();
+	}
+
+	public T fromBytes(byte[] bytes) {
+		try {
+			return deserialize(new DataInput2.ByteArray(bytes), bytes.length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static String readString(DataInput2 in) throws IOException {
+		int length = in.unpackInt();
+		if (length == 0) {
+			return "";
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.db;
+
+import org.mapdb.DB;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
+import org.edamontology.pubfetcher.core.db.webpage.Webpage;
+
+/**
+ * One MapDB file of a {@link Database}. Every shard has all the stores of the
+ * database, but only contains the entries whose key hashes to it: entries of
+ * publicationsMap by the given ID, entries of publicationsMapReverse,
+ * publications and publicationContents by the primary ID and entries of
+ * webpages and docs by the start URL. Each shard has its own transaction, so
+ * shards can be committed and compacted independently of each other.
+ */
+class DatabaseShard {
+
+	final String file;
+
+	final DB db;
+
+	final HTreeMap<String, String> publicationsMap;
+	final HTreeMap<String, PublicationIds> publicationsMapReverse;
+	final HTreeMap<String, Publication> publications;
+	final HTreeMap<String, byte[]> publicationContents;
+
+	final HTreeMap<String, Webpage> webpages;
+	final HTreeMap<String, Webpage> docs;
+
+	// null if the database has no indexes
+	DatabaseIndex publicationsIndex = null;
+	DatabaseIndex webpagesIndex = null;
+	DatabaseIndex docsIndex = null;
+
+	// set after any change and cleared before committing, so that only changed shards are committed, but no change is left uncommitted
+	volatile boolean changed = false;
+
+	DatabaseShard(String file, DB db, DatabaseSerializer<Publication> publicationSerializer, DatabaseSerializer<Webpage> webpageSerializer) {
+		this.file = file;
+		this.db = db;
+
+		this.publicationsMap = db.hashMap("publicationsMap", Serializer.STRING, Serializer.STRING).counterEnable().open();
+		this.publicationsMapReverse = db.hashMap("publicationsMapReverse", Serializer.STRING, DatabaseSerializer.PUBLICATION_IDS).counterEnable().open();
+		this.publications = db.hashMap("publications", Serializer.STRING, publicationSerializer).counterEnable().open();
+		this.publicationContents = db.hashMap("publicationContents", Serializer.STRING, Serializer.BYTE_ARRAY).createOrOpen();
+
+		this.webpages = db.hashMap("webpages", Serializer.STRING, webpageSerializer).counterEnable().open();
+		this.docs = db.hashMap("docs", Serializer.STRING, webpageSerializer).counterEnable().open();
+	}
+
+	static void create(DB db) {
+		db.hashMap("publicationsMap", Serializer.STRING, Serializer.STRING).counterEnable().create();
+		db.hashMap("publicationsMapReverse", Serializer.STRING, DatabaseSerializer.PUBLICATION_IDS).counterEnable().create();
+		db.hashMap("publications", Serializer.STRING, DatabaseSerializer.publication(DatabaseCompression.NONE)).counterEnable().create();
+		db.hashMap("publicationContents", Serializer.STRING, Serializer.BYTE_ARRAY).create();
+
+		db.hashMap("webpages", Serializer.STRING, DatabaseSerializer.webpage(DatabaseCompression.NONE)).counterEnable().create();
+		db.hashMap("docs", Serializer.STRING, DatabaseSerializer.webpage(DatabaseCompression.NONE)).counterEnable().create();
+	}
+
+	boolean hasIndexes() {
+		return DatabaseIndex.exists(db, "publications");
+	}
+
+	void openIndexes() {
+		this.publicationsIndex = new DatabaseIndex(db, "publications", false);
+		this.webpagesIndex = new DatabaseIndex(db, "webpages", true);
+		this.docsIndex = new DatabaseIndex(db, "docs", true);
+	}
+
+	void buildIndexes() {
+		openIndexes();
+		publicationsIndex.build(publications);
+		webpagesIndex.build(webpages);
+		docsIndex.build(docs);
+		changed = true;
+	}
+
+	static <T extends DatabaseEntry<?>> T put(HTreeMap<String, T> store, DatabaseIndex index, String key, T entry) {
+		if (index == null) {
+			return store.put(key, entry);
+		}
+		return index.put(store, key, entry);
+	}
+	static <T extends DatabaseEntry<?>> T remove(HTreeMap<String, T> store, DatabaseIndex index, String key) {
+		if (index == null) {
+			return store.remove(key);
+		}
+		return index.remove(store, key);
+	}
+
+	void commit() {
+		changed = false;
+		db.commit();
+	}
+}
@@ -19,12 +19,17 @@
 
 package org.edamontology.pubfetcher.core.db.link;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 import org.edamontology.pubfetcher.core.db.publication.PublicationPartType;
 
 public class Link implements Serializable {
@@ -39,6 +44,8 @@ public class Link implements Serializable {
 
 	private long timestamp;
 
+	private Link() {}
+
 	public Link(String url, PublicationPartType type, String from) throws MalformedURLException {
 		if (url == null) {
 			throw new MalformedURLException("URL is null");
@@ -77,6 +84,22 @@ public class Link implements Serializable {
 		return Instant.ofEpochMilli(timestamp).toString();
 	}
 
+	public void write(DataOutput2 out) throws IOException {
+		DatabaseSerializer.writeString(out, url.toString());
+		DatabaseSerializer.writeString(out, type.name());
+		DatabaseSerializer.writeString(out, from);
+		out.packLong(timestamp);
+	}
+
+	public static Link read(DataInput2 in, int version) throws IOException {
+		Link link = new Link();
+		link.url = new URL(DatabaseSerializer.readString(in));
+		link.type = PublicationPartType.valueOf(DatabaseSerializer.readString(in));
+		link.from = DatabaseSerializer.readString(in);
+		link.timestamp = in.unpackLong();
+		return link;
+	}
+
 	private String getNormalUrl(URL url) {
 		return url.getAuthority() + url.getFile(); // host + port + path + query
 	}
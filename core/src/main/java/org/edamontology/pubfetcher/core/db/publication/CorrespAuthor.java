@@ -24,6 +24,11 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -41,6 +46,16 @@ public class CorrespAuthor implements Serializable {
 
 	private String uri = "";
 
+	public CorrespAuthor() {}
+
+	public CorrespAuthor(CorrespAuthor correspAuthor) {
+		name = correspAuthor.name;
+		orcid = correspAuthor.orcid;
+		email = correspAuthor.email;
+		phone = correspAuthor.phone;
+		uri = correspAuthor.uri;
+	}
+
 	@JsonIgnore
 	public boolean isEmpty() {
 		return name.isEmpty() && orcid.isEmpty() && email.isEmpty() && phone.isEmpty() && uri.isEmpty();
@@ -91,6 +106,24 @@ public class CorrespAuthor implements Serializable {
 		}
 	}
 
+	void write(DataOutput2 out) throws IOException {
+		DatabaseSerializer.writeString(out, name);
+		DatabaseSerializer.writeString(out, orcid);
+		DatabaseSerializer.writeString(out, email);
+		DatabaseSerializer.writeString(out, phone);
+		DatabaseSerializer.writeString(out, uri);
+	}
+
+	static CorrespAuthor read(DataInput2 in, int version) throws IOException {
+		CorrespAuthor correspAuthor = new CorrespAuthor();
+		correspAuthor.name = DatabaseSerializer.readString(in);
+		correspAuthor.orcid = DatabaseSerializer.readString(in);
+		correspAuthor.email = DatabaseSerializer.readString(in);
+		correspAuthor.phone = DatabaseSerializer.readString(in);
+		correspAuthor.uri = DatabaseSerializer.readString(in);
+		return correspAuthor;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -19,9 +19,14 @@
 
 package org.edamontology.pubfetcher.core.db.publication;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 
 public class MeshTerm implements Serializable {
 
@@ -37,6 +42,12 @@ public class MeshTerm implements Serializable {
 
 	public MeshTerm() {}
 
+	public MeshTerm(MeshTerm meshTerm) {
+		term = meshTerm.term;
+		majorTopic = meshTerm.majorTopic;
+		uniqueId = meshTerm.uniqueId;
+	}
+
 	public String getTerm() {
 		return term;
 	}
@@ -62,6 +73,20 @@ public class MeshTerm implements Serializable {
 		}
 	}
 
+	void write(DataOutput2 out) throws IOException {
+		DatabaseSerializer.writeString(out, term);
+		out.writeBoolean(majorTopic);
+		DatabaseSerializer.writeString(out, uniqueId);
+	}
+
+	static MeshTerm read(DataInput2 in, int version) throws IOException {
+		MeshTerm meshTerm = new MeshTerm();
+		meshTerm.term = DatabaseSerializer.readString(in);
+		meshTerm.majorTopic = in.readBoolean();
+		meshTerm.uniqueId = DatabaseSerializer.readString(in);
+		return meshTerm;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
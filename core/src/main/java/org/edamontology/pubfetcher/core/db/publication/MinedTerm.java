@@ -19,9 +19,14 @@
 
 package org.edamontology.pubfetcher.core.db.publication;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 
 public class MinedTerm implements Serializable, Comparable<MinedTerm> {
 
@@ -35,6 +40,12 @@ public class MinedTerm implements Serializable, Comparable<MinedTerm> {
 
 	public MinedTerm() {}
 
+	public MinedTerm(MinedTerm minedTerm) {
+		term = minedTerm.term;
+		count = minedTerm.count;
+		uri = minedTerm.uri;
+	}
+
 	public String getTerm() {
 		return term;
 	}
@@ -75,6 +86,20 @@ public class MinedTerm implements Serializable, Comparable<MinedTerm> {
 		return frequency;
 	}
 
+	void write(DataOutput2 out) throws IOException {
+		DatabaseSerializer.writeString(out, term);
+		out.packInt(count);
+		DatabaseSerializer.writeString(out, uri);
+	}
+
+	static MinedTerm read(DataInput2 in, int version) throws IOException {
+		MinedTerm minedTerm = new MinedTerm();
+		minedTerm.term = DatabaseSerializer.readString(in);
+		minedTerm.count = in.unpackInt();
+		minedTerm.uri = DatabaseSerializer.readString(in);
+		return minedTerm;
+	}
+
 	@Override
 	public String toString() {
 		return term;
@@ -30,6 +30,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -37,12 +38,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Safelist;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
 import org.edamontology.pubfetcher.core.db.DatabaseEntry;
+import org.edamontology.pubfetcher.core.db.DatabaseCompression;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 import org.edamontology.pubfetcher.core.db.link.Link;
 
 public class Publication extends DatabaseEntry<Publication> {
@@ -81,6 +86,10 @@ public class Publication extends DatabaseEntry<Publication> {
 
 	private Set<Link> visitedSites = new LinkedHashSet<>();
 
+	// true if read from the database without the content stored separately
+	private transient boolean contentSeparate = false;
+	private transient Supplier<Publication> contentLoader = null;
+
 	private static final Pattern VERSIONED = Pattern.compile("^[._-][0-9]+$");
 	private static final Pattern F1000_DOI = Pattern.compile("^10.12688/F1000RESEARCH\\..+$");
 	private static final Pattern ZENODO = Pattern.compile("^https?://(www\\.)?zenodo\\.org/.+$");
@@ -93,6 +102,39 @@ public class Publication extends DatabaseEntry<Publication> {
 		reset();
 	}
 
+	/**
+	 * Deep copy of a publication. Strings and links are immutable, thus they
+	 * are shared with the copy. Content not loaded in the given publication
+	 * is not loaded for the copy either, but the copy doesn't get its content
+	 * loader.
+	 *
+	 * @param publication the publication to copy
+	 */
+	public Publication(Publication publication) {
+		super(publication);
+		pmid = new PublicationPartString(publication.pmid);
+		pmcid = new PublicationPartString(publication.pmcid);
+		doi = new PublicationPartString(publication.doi);
+		title = new PublicationPartString(publication.title);
+		keywords = new PublicationPartList<>(publication.keywords);
+		meshTerms = new PublicationPartList<>(publication.meshTerms);
+		efoTerms = new PublicationPartList<>(publication.efoTerms);
+		goTerms = new PublicationPartList<>(publication.goTerms);
+		theAbstract = new PublicationPartString(publication.theAbstract);
+		fulltext = new PublicationPartString(publication.fulltext);
+		oa = publication.oa;
+		preprint = publication.preprint;
+		journalTitle = publication.journalTitle;
+		pubDate = publication.pubDate;
+		citationsCount = publication.citationsCount;
+		citationsTimestamp = publication.citationsTimestamp;
+		for (CorrespAuthor ca : publication.correspAuthor) {
+			correspAuthor.add(new CorrespAuthor(ca));
+		}
+		visitedSites.addAll(publication.visitedSites);
+		contentSeparate = publication.contentSeparate;
+	}
+
 	public void reset() {
 		title = new PublicationPartString(PublicationPartName.title);
 
@@ -395,9 +437,11 @@ public class Publication extends DatabaseEntry<Publication> {
 	}
 
 	public Set<Link> getVisitedSites() {
+		loadContent();
 		return visitedSites;
 	}
 	public void addVisitedSite(Link visitedSite) {
+		loadContent();
 		visitedSites.add(visitedSite);
 	}
 
@@ -426,6 +470,140 @@ public class Publication extends DatabaseEntry<Publication> {
 		return parts;
 	}
 
+	// parts that are stored separately from the rest of the publication in the database, together with visitedSites
+	private PublicationPart[] getContentParts() {
+		return new PublicationPart[] { keywords, meshTerms, efoTerms, goTerms, theAbstract, fulltext };
+	}
+
+	/**
+	 * Sets the supplier of the content of the publication (keywords, MeSH,
+	 * EFO and GO terms, abstract, fulltext and visited sites), if it was not
+	 * read from the database together with the rest of the publication. The
+	 * content is then loaded on first access or with {@link #loadContent()}.
+	 *
+	 * @param contentLoader supplier of a publication containing the content
+	 */
+	public void setContentLoader(Supplier<Publication> contentLoader) {
+		if (!contentSeparate) return;
+		this.contentLoader = contentLoader;
+		for (PublicationPart part : getContentParts()) {
+			part.setContentLoader(this::loadContent);
+		}
+	}
+
+	/**
+	 * Whether the content of the publication is loaded, i.e. it was not got
+	 * from the database without the content, or was loaded since.
+	 *
+	 * @return true if the content doesn't need loading
+	 */
+	public boolean isContentLoaded() {
+		return !contentSeparate;
+	}
+
+	/**
+	 * Loads now the content of the publication not yet loaded from the
+	 * database, e.g. before closing the database the publication was got from.
+	 */
+	public synchronized void loadContent() {
+		Supplier<Publication> contentLoader = this.contentLoader;
+		if (contentLoader == null) return;
+		Publication loaded = contentLoader.get();
+		this.contentLoader = null;
+		for (PublicationPart part : getContentParts()) {
+			if (!part.isContentLoaded()) {
+				if (loaded != null) {
+					part.setContent(loaded.getPart(part.getName()));
+				}
+				part.setContentLoader(null);
+			}
+		}
+		if (loaded != null) {
+			visitedSites = loaded.visitedSites;
+		}
+		contentSeparate = false;
+	}
+
+	public void write(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		writeEntry(out);
+		pmid.write(out, compression);
+		pmcid.write(out, compression);
+		doi.write(out, compression);
+		title.write(out, compression);
+		for (PublicationPart part : getContentParts()) {
+			part.writeMeta(out);
+		}
+		out.writeBoolean(oa);
+		out.writeBoolean(preprint);
+		DatabaseSerializer.writeString(out, journalTitle);
+		out.writeLong(pubDate);
+		out.writeInt(citationsCount);
+		out.writeLong(citationsTimestamp);
+		out.packInt(correspAuthor.size());
+		for (CorrespAuthor ca : correspAuthor) {
+			ca.write(out);
+		}
+	}
+
+	public void writeContent(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		for (PublicationPart part : getContentParts()) {
+			part.writeContent(out, compression);
+		}
+		Set<Link> visitedSites = getVisitedSites();
+		out.packInt(visitedSites.size());
+		for (Link link : visitedSites) {
+			link.write(out);
+		}
+	}
+
+	public static Publication read(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		Publication publication = new Publication();
+		publication.readEntry(in, version);
+		publication.pmid.read(in, version, compression);
+		publication.pmcid.read(in, version, compression);
+		publication.doi.read(in, version, compression);
+		publication.title.read(in, version, compression);
+		for (PublicationPart part : publication.getContentParts()) {
+			if (version < 3) {
+				part.read(in, version, compression);
+			} else {
+				part.readMeta(in, version);
+			}
+		}
+		publication.oa = in.readBoolean();
+		publication.preprint = in.readBoolean();
+		publication.journalTitle = DatabaseSerializer.readString(in);
+		publication.pubDate = in.readLong();
+		publication.citationsCount = in.readInt();
+		publication.citationsTimestamp = in.readLong();
+		int correspAuthorSize = in.unpackInt();
+		for (int i = 0; i < correspAuthorSize; ++i) {
+			publication.correspAuthor.add(CorrespAuthor.read(in, version));
+		}
+		if (version < 3) {
+			publication.readVisitedSites(in, version);
+		} else {
+			publication.contentSeparate = true;
+		}
+		return publication;
+	}
+
+	public static Publication readContent(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		Publication publication = new Publication();
+		for (PublicationPart part : publication.getContentParts()) {
+			part.readContent(in, version, compression);
+		}
+		publication.readVisitedSites(in, version);
+		return publication;
+	}
+
+	private void readVisitedSites(DataInput2 in, int version) throws IOException {
+		int visitedSitesSize = in.unpackInt();
+		for (int i = 0; i < visitedSitesSize; ++i) {
+			visitedSites.add(Link.read(in, version));
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) return true;
@@ -524,7 +702,7 @@ public class Publication extends DatabaseEntry<Publication> {
 		sb.append(prepend).append("<br>\n");
 		sb.append(prepend).append("<div><span>Visited sites:</span></div>\n");
 		sb.append(prepend).append("<ul>\n");
-		for (Link link : visitedSites) {
+		for (Link link : getVisitedSites()) {
 			sb.append(prepend).append("<li>\n");
 			sb.append(link.toStringHtml(prepend)).append("\n");
 			sb.append(prepend).append("</li>\n");
@@ -550,7 +728,7 @@ public class Publication extends DatabaseEntry<Publication> {
 			ca.toStringJson(generator);
 		}
 		generator.writeEndArray();
-		generator.writeObjectField("visitedSites", visitedSites);
+		generator.writeObjectField("visitedSites", getVisitedSites());
 		generator.writeBooleanField("empty", isEmpty());
 		generator.writeBooleanField("usable", isUsable(fetcherArgs));
 		generator.writeBooleanField("final", isFinal(fetcherArgs));
@@ -578,7 +756,7 @@ public class Publication extends DatabaseEntry<Publication> {
 		sb.append("CITATIONS: ").append(citationsCount).append(" (").append(getCitationsTimestampHuman()).append(" (").append(citationsTimestamp).append("))\n");
 		sb.append("CORRESP. AUTHOR: ").append(CorrespAuthor.toString(correspAuthor)).append("\n\n");
 		sb.append("VISITED SITES:");
-		for (Link link : visitedSites) {
+		for (Link link : getVisitedSites()) {
 			sb.append("\n").append(link);
 		}
 		return sb.toString();
@@ -24,8 +24,13 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.Locale;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.DatabaseCompression;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -41,6 +46,9 @@ public abstract class PublicationPart implements Serializable {
 
 	private long timestamp;
 
+	// set if content is stored separately in the database and not loaded yet
+	private transient volatile Runnable contentLoader = null;
+
 	protected PublicationPart(PublicationPartName name) {
 		if (name == null) {
 			throw new IllegalArgumentException("Publication part name can't be null");
@@ -49,6 +57,14 @@ public abstract class PublicationPart implements Serializable {
 		set(null, null);
 	}
 
+	// the content loader is not copied
+	protected PublicationPart(PublicationPart part) {
+		name = part.name;
+		type = part.type;
+		url = part.url;
+		timestamp = part.timestamp;
+	}
+
 	protected void set(PublicationPartType type, String url) {
 		if (type == null) {
 			this.type = PublicationPartType.na;
@@ -99,6 +115,50 @@ public abstract class PublicationPart implements Serializable {
 		return "final";
 	}
 
+	void setContentLoader(Runnable contentLoader) {
+		this.contentLoader = contentLoader;
+	}
+
+	boolean isContentLoaded() {
+		return contentLoader == null;
+	}
+
+	protected void loadContent() {
+		Runnable contentLoader = this.contentLoader;
+		if (contentLoader != null) {
+			contentLoader.run();
+			this.contentLoader = null;
+		}
+	}
+
+	abstract void setContent(PublicationPart loaded);
+
+	abstract void writeContent(DataOutput2 out, DatabaseCompression compression) throws IOException;
+
+	abstract void readContent(DataInput2 in, int version, DatabaseCompression compression) throws IOException;
+
+	void writeMeta(DataOutput2 out) throws IOException {
+		DatabaseSerializer.writeString(out, type.name());
+		DatabaseSerializer.writeString(out, url);
+		out.packLong(timestamp);
+	}
+
+	void readMeta(DataInput2 in, int version) throws IOException {
+		type = PublicationPartType.valueOf(DatabaseSerializer.readString(in));
+		url = DatabaseSerializer.readString(in);
+		timestamp = in.unpackLong();
+	}
+
+	void write(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		writeMeta(out);
+		writeContent(out, compression);
+	}
+
+	void read(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		readMeta(in, version);
+		readContent(in, version, compression);
+	}
+
 	public abstract String toStringPlain();
 
 	public abstract String toStringPlainHtml();
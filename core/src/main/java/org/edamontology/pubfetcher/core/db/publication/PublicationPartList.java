@@ -24,7 +24,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
+import org.edamontology.pubfetcher.core.db.DatabaseCompression;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -39,11 +44,25 @@ public class PublicationPartList<T> extends PublicationPart {
 		list = new ArrayList<>();
 	}
 
+	// the list is copied as is, without loading it, with mutable elements copied too
+	@SuppressWarnings("unchecked")
+	PublicationPartList(PublicationPartList<T> part) {
+		super(part);
+		list = new ArrayList<>(part.list.size());
+		for (T e : part.list) {
+			if (e instanceof MeshTerm) list.add((T) new MeshTerm((MeshTerm) e));
+			else if (e instanceof MinedTerm) list.add((T) new MinedTerm((MinedTerm) e));
+			else list.add(e);
+		}
+	}
+
 	public List<T> getList() {
+		loadContent();
 		return list;
 	}
 
 	void set(List<T> list, PublicationPartType type, String url) {
+		setContentLoader(null);
 		if (list == null ) {
 			this.list = new ArrayList<>();
 			set(null, null);
@@ -55,11 +74,13 @@ public class PublicationPartList<T> extends PublicationPart {
 
 	@Override
 	public int getSize() {
+		loadContent();
 		return list.size();
 	}
 
 	@Override
 	public boolean isEmpty() {
+		loadContent();
 		return list.isEmpty();
 	}
 
@@ -74,13 +95,46 @@ public class PublicationPartList<T> extends PublicationPart {
 		}
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	void setContent(PublicationPart loaded) {
+		list = ((PublicationPartList<T>) loaded).list;
+	}
+
+	@Override
+	void writeContent(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		loadContent();
+		out.packInt(list.size());
+		for (T e : list) {
+			if (e instanceof MeshTerm) ((MeshTerm) e).write(out);
+			else if (e instanceof MinedTerm) ((MinedTerm) e).write(out);
+			else DatabaseSerializer.writeString(out, e.toString());
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	void readContent(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		int size = in.unpackInt();
+		list = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i) {
+			switch (getName()) {
+				case mesh: list.add((T) MeshTerm.read(in, version)); break;
+				case efo: case go: list.add((T) MinedTerm.read(in, version)); break;
+				default: list.add((T) DatabaseSerializer.readString(in));
+			}
+		}
+	}
+
 	@Override
 	public String toStringPlain() {
+		loadContent();
 		return "[" + list.stream().map(e -> e.toString()).collect(Collectors.joining("; ")) + "]";
 	}
 
 	@Override
 	public String toStringPlainHtml() {
+		loadContent();
 		return list.stream().map(e -> {
 			if (e instanceof MeshTerm) return ((MeshTerm) e).toStringHtml();
 			else if (e instanceof MinedTerm) return ((MinedTerm) e).toStringHtml();
@@ -90,6 +144,7 @@ public class PublicationPartList<T> extends PublicationPart {
 
 	@Override
 	public void toStringPlainJson(JsonGenerator generator, boolean withName) throws IOException {
+		loadContent();
 		generator.writeObjectField(withName ? getName().name() : "list", list);
 	}
 }
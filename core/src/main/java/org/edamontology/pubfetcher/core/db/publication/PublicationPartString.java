@@ -21,8 +21,12 @@ package org.edamontology.pubfetcher.core.db.publication;
 
 import java.io.IOException;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.DatabaseCompression;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -37,11 +41,19 @@ public class PublicationPartString extends PublicationPart {
 		content = "";
 	}
 
+	// the content is copied as is, without loading it
+	PublicationPartString(PublicationPartString part) {
+		super(part);
+		content = part.content;
+	}
+
 	public String getContent() {
+		loadContent();
 		return content;
 	}
 
 	void set(String content, PublicationPartType type, String url) {
+		setContentLoader(null);
 		if (content == null) {
 			this.content = "";
 			set(null, null);
@@ -53,11 +65,13 @@ public class PublicationPartString extends PublicationPart {
 
 	@Override
 	public int getSize() {
+		loadContent();
 		return content.length();
 	}
 
 	@Override
 	public boolean isEmpty() {
+		loadContent();
 		return content.isEmpty();
 	}
 
@@ -72,21 +86,41 @@ public class PublicationPartString extends PublicationPart {
 		}
 	}
 
+	@Override
+	void setContent(PublicationPart loaded) {
+		content = ((PublicationPartString) loaded).content;
+	}
+
+	@Override
+	void writeContent(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		loadContent();
+		compression.writeText(out, content);
+	}
+
+	@Override
+	void readContent(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		content = compression.readText(in, version);
+	}
+
 	@Override
 	public String toStringPlain() {
+		loadContent();
 		return content;
 	}
 
 	@Override
 	public String toStringPlainHtml() {
+		loadContent();
 		return PubFetcher.getParagraphsHtml(content);
 	}
 
 	@Override
 	public void toStringPlainJson(JsonGenerator generator, boolean withName) throws IOException {
+		loadContent();
 		generator.writeStringField(withName ? getName().name() : "content", content);
 	}
 	public void toStringPlainJson(JsonGenerator generator, String name) throws IOException {
+		loadContent();
 		generator.writeStringField(name, content);
 	}
 }
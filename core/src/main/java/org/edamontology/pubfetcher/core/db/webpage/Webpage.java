@@ -22,9 +22,14 @@ package org.edamontology.pubfetcher.core.db.webpage;
 import java.io.IOException;
 import java.time.Instant;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
 import org.edamontology.pubfetcher.core.db.DatabaseEntry;
+import org.edamontology.pubfetcher.core.db.DatabaseCompression;
+import org.edamontology.pubfetcher.core.db.DatabaseSerializer;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
@@ -54,6 +59,20 @@ public class Webpage extends DatabaseEntry<Webpage> {
 
 	public Webpage() {}
 
+	// strings are immutable, thus the copy can share them
+	public Webpage(Webpage webpage) {
+		super(webpage);
+		startUrl = webpage.startUrl;
+		finalUrl = webpage.finalUrl;
+		contentType = webpage.contentType;
+		statusCode = webpage.statusCode;
+		title = webpage.title;
+		content = webpage.content;
+		contentTime = webpage.contentTime;
+		license = webpage.license;
+		language = webpage.language;
+	}
+
 	public void overwrite(Webpage webpage) {
 		if (!startUrl.equals(webpage.startUrl)) {
 			throw new IllegalArgumentException("Webpage start URL " + startUrl + " is not same as overwriting webpage start URL " + webpage.startUrl);
@@ -175,6 +194,34 @@ public class Webpage extends DatabaseEntry<Webpage> {
 		}
 	}
 
+	public void write(DataOutput2 out, DatabaseCompression compression) throws IOException {
+		writeEntry(out);
+		DatabaseSerializer.writeString(out, startUrl);
+		DatabaseSerializer.writeString(out, finalUrl);
+		DatabaseSerializer.writeString(out, contentType);
+		out.packInt(statusCode);
+		DatabaseSerializer.writeString(out, title);
+		compression.writeText(out, content);
+		out.packLong(contentTime);
+		DatabaseSerializer.writeString(out, license);
+		DatabaseSerializer.writeString(out, language);
+	}
+
+	public static Webpage read(DataInput2 in, int version, DatabaseCompression compression) throws IOException {
+		Webpage webpage = new Webpage();
+		webpage.readEntry(in, version);
+		webpage.startUrl = DatabaseSerializer.readString(in);
+		webpage.finalUrl = DatabaseSerializer.readString(in);
+		webpage.contentType = DatabaseSerializer.readString(in);
+		webpage.statusCode = in.unpackInt();
+		webpage.title = DatabaseSerializer.readString(in);
+		webpage.content = compression.readText(in, version);
+		webpage.contentTime = in.unpackLong();
+		webpage.license = DatabaseSerializer.readString(in);
+		webpage.language = DatabaseSerializer.readString(in);
+		return webpage;
+	}
+
 	@Override
 	public String toStringId() {
 		return startUrl;
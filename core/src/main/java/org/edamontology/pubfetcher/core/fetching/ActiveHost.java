@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Erik Jaaniso
+ * Copyright © 2018, 2026 Erik Jaaniso
  *
  * This file is part of PubFetcher.
  *
@@ -19,32 +19,45 @@
 
 package org.edamontology.pubfetcher.core.fetching;
 
+import java.util.concurrent.Semaphore;
+
+/**
+ * Connection permits of one host, shared by all fetching threads. Permits are
+ * handed out in the order they were requested.
+ */
 public class ActiveHost {
 
 	private final String host;
 
-	private int count;
+	private final Semaphore permits;
+
+	// threads holding or waiting for a permit, changed only under the lock of the map of HostLimiter
+	private int users = 0;
 
-	ActiveHost(String host) {
+	ActiveHost(String host, int max) {
 		this.host = host;
-		count = 1;
+		this.permits = new Semaphore(max, true);
 	}
 
 	String getHost() {
 		return host;
 	}
 
-	int getCount() {
-		return count;
+	Semaphore getPermits() {
+		return permits;
+	}
+
+	int getUsers() {
+		return users;
 	}
 
-	void increment() {
-		++count;
+	void incrementUsers() {
+		++users;
 	}
 
-	void decrement() {
-		if (count > 0) {
-			--count;
+	void decrementUsers() {
+		if (users > 0) {
+			--users;
 		}
 	}
 
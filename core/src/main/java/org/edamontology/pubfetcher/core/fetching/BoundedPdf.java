@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * A PDF downloaded and loaded with bounded memory use. The PDF is read from a
+ * stream, failing if it is larger than
+ * {@link FetcherPrivateArgs#getPdfMaxSize()}. If it is larger than
+ * {@link FetcherPrivateArgs#getPdfMemory()}, it is written to a temporary file
+ * and loaded from there, which is deleted when the PDF is closed. Streams of
+ * the loaded PDF are cached in memory up to the same size and in temporary
+ * files after that. Reading and loading are separate steps, so that the PDF
+ * can be loaded in another thread than it was downloaded in.
+ */
+class BoundedPdf implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final long MB = 1048576;
+
+	private static final int BUFFER_SIZE = 65536;
+
+	// null if in tempFile
+	private final byte[] bytes;
+
+	// null if in bytes
+	private final Path tempFile;
+
+	private final FetcherPrivateArgs fetcherPrivateArgs;
+
+	private PDDocument document = null;
+
+	private BoundedPdf(byte[] bytes, Path tempFile, FetcherPrivateArgs fetcherPrivateArgs) {
+		this.bytes = bytes;
+		this.tempFile = tempFile;
+		this.fetcherPrivateArgs = fetcherPrivateArgs;
+	}
+
+	private static StreamCacheCreateFunction streamCache(FetcherPrivateArgs fetcherPrivateArgs) {
+		return MemoryUsageSetting.setupMixed(fetcherPrivateArgs.getPdfMemory() * MB).streamCache;
+	}
+
+	private static IOException tooLarge(long size, String url, FetcherPrivateArgs fetcherPrivateArgs) {
+		return new IOException("PDF larger than " + fetcherPrivateArgs.getPdfMaxSize() + " MB" + (size > 0 ? " (" + size + " bytes)" : "") + " in " + url);
+	}
+
+	/**
+	 * A PDF already received whole into memory.
+	 */
+	static BoundedPdf read(byte[] pdf, String url, FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		long maxSize = fetcherPrivateArgs.getPdfMaxSize() * MB;
+		if (maxSize > 0 && pdf.length > maxSize) {
+			throw tooLarge(pdf.length, url, fetcherPrivateArgs);
+		}
+		return new BoundedPdf(pdf, null, fetcherPrivateArgs);
+	}
+
+	/**
+	 * Reads a PDF from the given stream.
+	 *
+	 * @param contentLength length of the PDF announced by the server, or -1 if
+	 * unknown, to fail without reading if it is too large
+	 */
+	static BoundedPdf read(InputStream in, long contentLength, String url, FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		long maxSize = fetcherPrivateArgs.getPdfMaxSize() * MB;
+		long memory = fetcherPrivateArgs.getPdfMemory() * MB;
+		if (maxSize > 0 && contentLength > maxSize) {
+			throw tooLarge(contentLength, url, fetcherPrivateArgs);
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(contentLength > 0 && contentLength <= memory ? (int) contentLength : BUFFER_SIZE);
+		byte[] bytes = new byte[BUFFER_SIZE];
+		long size = 0;
+		int read;
+		while ((read = in.read(bytes)) != -1) {
+			size += read;
+			if (maxSize > 0 && size > maxSize) {
+				throw tooLarge(-1, url, fetcherPrivateArgs);
+			}
+			buffer.write(bytes, 0, read);
+			if (size > memory) break;
+		}
+		if (read == -1) {
+			return new BoundedPdf(buffer.toByteArray(), null, fetcherPrivateArgs);
+		}
+
+		Path tempFile = Files.createTempFile("pubfetcher", ".pdf");
+		try {
+			try (OutputStream out = Files.newOutputStream(tempFile)) {
+				buffer.writeTo(out);
+				while ((read = in.read(bytes)) != -1) {
+					size += read;
+					if (maxSize > 0 && size > maxSize) {
+						throw tooLarge(-1, url, fetcherPrivateArgs);
+					}
+					out.write(bytes, 0, read);
+				}
+			}
+			logger.info("    PDF of {} bytes written to temporary file {}", size, tempFile);
+			return new BoundedPdf(null, tempFile, fetcherPrivateArgs);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the read PDF as a new stream, to be closed by the caller
+	 */
+	InputStream openStream() throws IOException {
+		if (bytes != null) {
+			return new ByteArrayInputStream(bytes);
+		}
+		return Files.newInputStream(tempFile);
+	}
+
+	/**
+	 * Parses the read PDF, which is done once.
+	 */
+	PDDocument load() throws IOException {
+		if (document == null) {
+			if (bytes != null) {
+				document = Loader.loadPDF(bytes, "", null, null, streamCache(fetcherPrivateArgs));
+			} else {
+				document = Loader.loadPDF(tempFile.toFile(), streamCache(fetcherPrivateArgs));
+			}
+		}
+		return document;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (document != null) {
+				document.close();
+			}
+		} finally {
+			if (tempFile != null) {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+}
@@ -22,6 +22,7 @@ package org.edamontology.pubfetcher.core.fetching;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
@@ -29,21 +30,36 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
 import java.text.ParseException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -52,19 +68,7 @@ import java.util.stream.Collectors;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.io.IOUtils;
-import org.apache.pdfbox.io.RandomAccessReadBuffer;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDDocumentInformation;
-import org.apache.pdfbox.pdmodel.common.PDMetadata;
 import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.xmpbox.XMPMetadata;
-import org.apache.xmpbox.schema.AdobePDFSchema;
-import org.apache.xmpbox.schema.DublinCoreSchema;
-import org.apache.xmpbox.xml.DomXmpParser;
-import org.apache.xmpbox.xml.XmpParsingException;
 import org.jsoup.Connection;
 import org.jsoup.Connection.Method;
 import org.jsoup.Connection.Response;
@@ -73,13 +77,11 @@ import org.jsoup.Jsoup;
 import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
 import org.jsoup.select.Selector.SelectorParseException;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxOptions;
-import org.openqa.selenium.firefox.FirefoxProfile;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -109,12 +111,12 @@ public class Fetcher implements AutoCloseable {
 	private static final Logger logger = LogManager.getLogger();
 
 	private static int LINKS_LIMIT = 10;
-	// private static long MAX_PDF_SIZE = 104857600; // 100 MiB
-	private static long JAVASCRIPT_HARD_TIMEOUT = 120000; // 2 minutes
+	private static long PDF_CLOSE_WAIT = 10000; // 10 seconds
 
 	private static final String EUROPEPMC = "https://www.ebi.ac.uk/europepmc/webservices/rest/";
 	private static final String EUROPEPMC_ANNOTATIONS = "https://www.ebi.ac.uk/europepmc/annotations_api/annotationsByArticleIds?";
 	private static final String EUTILS = "https://eutils.ncbi.nlm.nih.gov/entrez/eutils/";
+	private static final String OADOI_HOST = "api.unpaywall.org";
 
 	private static final Pattern KEYWORDS_BEGIN = Pattern.compile("(?i)^[\\p{Z}\\p{Cc}]*keywords?[\\p{Z}\\p{Cc}]*:*[\\p{Z}\\p{Cc}]*");
 	private static final Pattern SEPARATOR = Pattern.compile("[,;|]");
@@ -150,41 +152,165 @@ public class Fetcher implements AutoCloseable {
 	private static final Pattern HTTP_OR_HTTPS = Pattern.compile("(?i)^(http|https)://");
 	private static final Pattern HTML = Pattern.compile("(?i)<[\\p{Z}\\p{Cc}\\p{Cf}]*html[>\\p{Z}\\p{Cc}\\p{Cf}]");
 
-	private static Set<ActiveHost> activeHosts = new HashSet<>();
-	private static final int ACTIVE_HOSTS_MAX = 4;
+	private static final HostLimiter hostLimiter = new HostLimiter();
 
-	private final List<WebDriver> drivers = new ArrayList<>();
-	private final List<Boolean> driversFree = new ArrayList<>();
-	private static final int DRIVERS_MAX = 4;
+	// Firefox instances getting pages with JavaScript if Selenium is used
+	private final WebDriverPool webDriverPool;
+
+	// HtmlUnit workers getting pages with JavaScript if Selenium is not used
+	private final JavascriptPool javascriptPool = new JavascriptPool();
+
+	// created on first use, if enabled by FetcherPrivateArgs
+	private HttpEngine httpEngine = null;
+
+	// threads making requests of sources and links concurrently, created on first use if enabled by FetcherPrivateArgs
+	private ExecutorService sourcesExecutor = null;
+
+	// threads parsing and extracting content of downloaded PDFs, created on first use
+	private ExecutorService pdfExecutor = null;
+
+	// concurrently requested responses of sources and links of the publication currently fetched by a thread, by request (like "GET https://..."), removed when used
+	private final ThreadLocal<Map<String, CompletableFuture<HttpEngine.Response>>> sourcesRequested = ThreadLocal.withInitial(HashMap::new);
+
+	private static final int EUROPEPMC_BATCH = 100;
+	private static final int PUBMED_BATCH = 200;
+	// full texts can be large, but full texts of open access articles are got from Europe PMC and not prefetched from PMC
+	private static final int PMC_BATCH = 50;
+	// maximum number of articles the Europe PMC Annotations API accepts in one request
+	private static final int ANNOTATIONS_BATCH = 8;
+	private static final String ANNOTATIONS_EFO = "Experimental Methods";
+	private static final String ANNOTATIONS_GO = "Gene Ontology";
+	private static final int PREFETCHED_MAX = 10 * 5 * EUROPEPMC_BATCH;
+
+	private static final class Prefetched {
+		// null if no matching result was found
+		private final Element result;
+		// the URI the result would have been got from without prefetching
+		private final String location;
+		private Prefetched(Element result, String location) {
+			this.result = result;
+			this.location = location;
+		}
+	}
+
+	// prefetched Europe PMC results and E-utilities articles, by queried ID (like "pmid:12345" or "pubmed:12345"), removed when used or when too many results are not used
+	private final Map<String, Prefetched> prefetchedResults = new LinkedHashMap<String, Prefetched>() {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Prefetched> eldest) {
+			return size() > PREFETCHED_MAX;
+		}
+	};
 
 	private final Scrape scrape;
 
+	private final RateLimiter rateLimiter;
+
+	// null if disabled by FetcherPrivateArgs
+	private final HttpCache httpCache;
+
+	// null if disabled by FetcherPrivateArgs
+	private final JavascriptHosts javascriptHosts;
+
+	// limit of responses received by the HTTP engine, as these are received whole into memory (PDFs are streamed and limited separately)
+	private final long httpMaxBodySize;
+
 	public Fetcher(FetcherPrivateArgs fetcherPrivateArgs) throws IOException, ParseException {
 		scrape = new Scrape(fetcherPrivateArgs.getJournalsYaml(), fetcherPrivateArgs.getWebpagesYaml());
+		rateLimiter = new RateLimiter(fetcherPrivateArgs);
+		httpCache = (fetcherPrivateArgs.getHttpCache().isEmpty() ? null : new HttpCache(fetcherPrivateArgs));
+		javascriptHosts = (fetcherPrivateArgs.getJavascriptHosts().isEmpty() ? null : new JavascriptHosts(fetcherPrivateArgs));
+		httpMaxBodySize = fetcherPrivateArgs.getHttpMaxSize() * 1048576L;
+		webDriverPool = new WebDriverPool(fetcherPrivateArgs);
+		if (isSelenium(fetcherPrivateArgs)) {
+			webDriverPool.startWarmUp();
+		}
 	}
 
 	public Scrape getScrape() {
 		return scrape;
 	}
 
-	@Override
-	public void close() {
-		for (WebDriver driver : drivers) {
-			if (driver != null) {
-				driver.quit();
+	/**
+	 * The HTTP engine used for getting resources without JavaScript, if
+	 * {@link FetcherPrivateArgs#isHttpClient()} is enabled. It can also be
+	 * used directly for making asynchronous requests that share connections
+	 * with the fetching of this fetcher.
+	 *
+	 * @return the HTTP engine of this fetcher
+	 */
+	public HttpEngine getHttpEngine() {
+		synchronized(this) {
+			if (httpEngine == null) {
+				httpEngine = new HttpEngine(res -> rateLimiter.update(getHost(res.getFinalUrl()), res.getStatusCode(), res.getHeaders().firstValue("Retry-After").orElse(null)), httpMaxBodySize);
 			}
+			return httpEngine;
 		}
 	}
+	// the HTTP cache stores the raw responses received by the HTTP engine and concurrent requests of sources and links are made with it, thus it is used also if enabled only by these
+	private boolean isHttpEngine(String url, FetcherArgs fetcherArgs) {
+		return (fetcherArgs.getPrivateArgs().isHttpClient() || httpCache != null || fetcherArgs.getPrivateArgs().isConcurrentSources() || fetcherArgs.getPrivateArgs().getConcurrentLinks() > 1) && url != null && HTTP_OR_HTTPS.matcher(url).find();
+	}
 
-	private static ActiveHost findActiveHost(String host) {
-		ActiveHost activeHost = null;
-		for (ActiveHost ah : activeHosts) {
-			if (ah.getHost().equals(host)) {
-				activeHost = ah;
-				break;
+	private static String requestKey(String url, Method method) {
+		return method.name() + " " + url;
+	}
+
+	private boolean isRequested(String url, Method method, Map<String, String> data) {
+		return data == null && sourcesRequested.get().containsKey(requestKey(url, method));
+	}
+
+	// whether the response can be got from the HTTP cache or from a concurrent request already made, in which case the host is not waited for
+	private boolean isCached(String url, Method method, Map<String, String> data, boolean javascript, FetcherArgs fetcherArgs) {
+		if (httpCache != null && httpCache.isOffline()) return true;
+		if (javascript || !isHttpEngine(url, fetcherArgs)) return false;
+		if (isRequested(url, method, data)) return true;
+		return httpCache != null && httpCache.isFresh(HttpCache.key(method.name(), url, data));
+	}
+
+	private static boolean isSelenium(FetcherPrivateArgs fetcherPrivateArgs) {
+		return fetcherPrivateArgs.isSelenium() || !fetcherPrivateArgs.getSeleniumGeckodriver().isEmpty() || !fetcherPrivateArgs.getSeleniumFirefox().isEmpty();
+	}
+
+	private void checkOffline(String url) throws IOException {
+		if (httpCache != null && httpCache.isOffline()) {
+			throw new IOException("Not in HTTP cache (offline): " + url);
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized(this) {
+			if (sourcesExecutor != null) {
+				sourcesExecutor.shutdownNow();
+			}
+			if (pdfExecutor != null) {
+				// extractions check for interruption before each page, wait for them to end so that their temporary files get deleted
+				// extractions not started are cancelled, so that threads waiting for them don't wait for the start forever
+				for (Runnable task : pdfExecutor.shutdownNow()) {
+					if (task instanceof Future) {
+						((Future<?>) task).cancel(false);
+					}
+				}
+				try {
+					if (!pdfExecutor.awaitTermination(PDF_CLOSE_WAIT, TimeUnit.MILLISECONDS)) {
+						logger.warn("PDF extractions did not end in {} ms", PDF_CLOSE_WAIT);
+					}
+				} catch (InterruptedException e) {
+					logger.error("Interrupt!", e);
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		javascriptPool.close();
+		webDriverPool.close();
+		if (javascriptHosts != null) {
+			try {
+				javascriptHosts.save();
+			} catch (IOException e) {
+				logger.error("Failed to save JavaScript need of hosts", e);
 			}
 		}
-		return activeHost;
 	}
 
 	private static String getHost(String url) {
@@ -199,54 +325,189 @@ public class Fetcher implements AutoCloseable {
 		}
 	}
 
-	private ActiveHost activateHost(String host) {
+	private static String ncbiApiKey(FetcherArgs fetcherArgs) {
+		String apiKey = fetcherArgs.getPrivateArgs().getNcbiApiKey();
+		return apiKey.isEmpty() ? "" : "&api_key=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8);
+	}
+
+	private ActiveHost activateHost(String host, FetcherArgs fetcherArgs) {
 		if (host == null || host.equals("doi.org") || host.equals("dx.doi.org")) {
 			return null;
 		}
-		ActiveHost activeHost = null;
-		synchronized(activeHosts) {
-			boolean waited = false;
-			while ((activeHost = findActiveHost(host)) != null && activeHost.getCount() >= ACTIVE_HOSTS_MAX) {
-				waited = true;
-				logger.info("Waiting behind host {}", host);
-				try {
-					activeHosts.wait();
-				} catch (InterruptedException e) {
-					logger.error("Interrupt!", e);
-					Thread.currentThread().interrupt();
-					return null;
-				}
-			}
-			if (waited) {
-				logger.info("Resuming for host {}", host);
+		// the rate limit is waited for first, so that a connection slot of the host is not held during a possibly long pause
+		if (!rateLimiter.acquire(host)) {
+			return null;
+		}
+		return hostLimiter.acquire(host, hostLimiter.getMax(host, fetcherArgs.getPrivateArgs()));
+	}
+
+	// The request is made once more if the host responded with a Retry-After of a short time.
+	// The hosts held by the thread are released while waiting for the retry, so that other threads are not kept from hosts that are not paused, or from making requests of the paused host as soon as the pause ends.
+	private boolean retry(String host, int status) {
+		if (!rateLimiter.retry(host, status)) return false;
+		List<ActiveHost> suspended = hostLimiter.suspend();
+		try {
+			return rateLimiter.acquire(host);
+		} finally {
+			hostLimiter.resume(suspended);
+		}
+	}
+
+	private HttpEngine.Response engineDoc(String url, Method method, Map<String, String> data, Parser parser, FetcherArgs fetcherArgs) throws IOException {
+		if (httpCache != null || isRequested(url, method, data) || parser != null) {
+			return HttpEngine.parse(engineSend(url, method, data, HttpEngine.Body.DOCUMENT, fetcherArgs), parser);
+		}
+		try {
+			return HttpEngine.await(getHttpEngine().getDocAsync(url, method.name(), data, fetcherArgs.getPrivateArgs().getUserAgent(), fetcherArgs.getTimeout() * 2));
+		} catch (HttpStatusException e) {
+			if (retry(getHost(e.getUrl()), e.getStatusCode())) {
+				return HttpEngine.await(getHttpEngine().getDocAsync(url, method.name(), data, fetcherArgs.getPrivateArgs().getUserAgent(), fetcherArgs.getTimeout() * 2));
 			}
-			if (activeHost == null) {
-				activeHost = new ActiveHost(host);
-			} else {
-				activeHost.increment();
+			throw e;
+		}
+	}
+
+	private HttpEngine.Response engineGet(String url, FetcherArgs fetcherArgs) throws IOException {
+		return engineSend(url, Method.GET, null, HttpEngine.Body.WHOLE, fetcherArgs);
+	}
+
+	private CompletableFuture<HttpEngine.Response> engineSendAsync(String url, Method method, Map<String, String> data, Map<String, String> headers, String headersUrl, HttpEngine.Body body, FetcherArgs fetcherArgs) {
+		return getHttpEngine().sendAsync(url, method.name(), data, headers, headersUrl, body, fetcherArgs.getPrivateArgs().getUserAgent(), fetcherArgs.getTimeout() * 2);
+	}
+
+	private HttpEngine.Response engineSend(String url, Method method, Map<String, String> data, Map<String, String> headers, String headersUrl, HttpEngine.Body body, FetcherArgs fetcherArgs) throws IOException {
+		HttpEngine.Response res = HttpEngine.await(engineSendAsync(url, method, data, headers, headersUrl, body, fetcherArgs));
+		if (retry(getHost(res.getFinalUrl()), res.getStatusCode())) {
+			closeBody(res);
+			res = HttpEngine.await(engineSendAsync(url, method, data, headers, headersUrl, body, fetcherArgs));
+		}
+		return res;
+	}
+
+	// the connection of a streamed response whose body is not read is released
+	private static void closeBody(HttpEngine.Response res) {
+		if (res.isStreamed()) {
+			try {
+				res.getBodyStream().close();
+			} catch (IOException e) {
+				logger.warn(e);
 			}
-			activeHosts.add(activeHost);
 		}
-		return activeHost;
 	}
 
-	private WebDriver makeWebDriver(FetcherArgs fetcherArgs, int driversIndex) {
-		logger.info("Making WebDriver {}", driversIndex);
-		FirefoxOptions options = new FirefoxOptions();
-		if (!fetcherArgs.getPrivateArgs().getSeleniumGeckodriver().isEmpty()) {
-			System.setProperty("webdriver.gecko.driver", fetcherArgs.getPrivateArgs().getSeleniumGeckodriver());
+	// if the HTTP cache is enabled, a fresh cached response is used, otherwise the request is made (conditionally, if the cached response can be revalidated) and the response is cached
+	// with STREAM, the body of a response got from the network is left to be read from its stream, and is not cached here, and a response whose body was discarded is not cached at all
+	private HttpEngine.Response engineSend(String url, Method method, Map<String, String> data, HttpEngine.Body body, FetcherArgs fetcherArgs) throws IOException {
+		if (data == null) {
+			CompletableFuture<HttpEngine.Response> requested = sourcesRequested.get().remove(requestKey(url, method));
+			if (requested != null) {
+				return HttpEngine.await(requested);
+			}
+		}
+		if (httpCache == null) {
+			return engineSend(url, method, data, null, null, body, fetcherArgs);
+		}
+		String key = HttpCache.key(method.name(), url, data);
+		HttpCache.Entry entry = httpCache.get(key);
+		if (entry != null && httpCache.isFresh(entry)) {
+			logger.info("    CACHED {}", entry.getResponse().getFinalUrl());
+			return entry.getResponse();
+		}
+		checkOffline(url);
+		// the validators are sent to the URL the cached response was got from, which can be reached through redirects
+		HttpEngine.Response res = engineSend(url, method, data, entry != null ? HttpCache.getValidators(entry) : null, entry != null ? entry.getResponse().getFinalUrl() : null, body, fetcherArgs);
+		if (entry != null && res.getStatusCode() == 304) {
+			closeBody(res);
+			logger.info("    NOT MODIFIED {}", res.getFinalUrl());
+			return httpCache.revalidated(entry, res);
+		}
+		if (!res.isStreamed() && !res.isDiscarded()) {
+			httpCache.put(key, res);
+		}
+		return res;
+	}
+
+	// with a given parser, the body is not cut off at the default size limit of jsoup, as a partial XML would still parse
+	private Response jsoupExecute(String url, Method method, Map<String, String> data, Parser parser, FetcherArgs fetcherArgs) throws IOException {
+		checkOffline(url);
+		URL u = new URL(url);
+		Response res = null;
+		for (int i = 0; i < 2; ++i) {
+			// HTTP errors and content type are checked only after the rate limiter has seen the response
+			Connection con = Jsoup.connect(url)
+				.userAgent(fetcherArgs.getPrivateArgs().getUserAgent())
+				.referrer(u.getProtocol() + "://" + u.getAuthority())
+				.timeout(fetcherArgs.getTimeout() * 2)
+				.followRedirects(true)
+				.ignoreHttpErrors(true)
+				.ignoreContentType(true)
+				.method(method);
+			if (data != null) {
+				con.data(data);
+			}
+			if (parser != null) {
+				con.parser(parser).maxBodySize(0);
+			}
+			res = con.execute();
+			String host = getHost(res.url().toString());
+			rateLimiter.update(host, res.statusCode(), res.header("Retry-After"));
+			if (i > 0 || !retry(host, res.statusCode())) break;
+		}
+		HttpEngine.checkStatus(res.statusCode(), res.url().toString());
+		HttpEngine.checkContentType(res.contentType(), res.url().toString());
+		return res;
+	}
+
+	private URLConnection newConnection(String url, FetcherArgs fetcherArgs) throws IOException {
+		checkOffline(url);
+		URLConnection con = null;
+		for (int i = 0; i < 2; ++i) {
+			con = PubFetcher.newConnection(url, fetcherArgs.getTimeout(), fetcherArgs.getPrivateArgs().getUserAgent());
+			if (!(con instanceof HttpURLConnection)) break;
+			HttpURLConnection httpCon = (HttpURLConnection) con;
+			String host = getHost(httpCon.getURL().toString());
+			rateLimiter.update(host, httpCon.getResponseCode(), httpCon.getHeaderField("Retry-After"));
+			if (i > 0 || !retry(host, httpCon.getResponseCode())) break;
+			httpCon.disconnect();
+		}
+		return con;
+	}
+
+	// a PDF streamed from the HTTP engine is stored in the HTTP cache after it has been read, as the engine has not received its body
+	private BoundedPdf readPdf(HttpEngine.Response res, String requestUrl, FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		if (!res.isStreamed()) {
+			// the size of a response received whole has been limited while receiving it
+			return BoundedPdf.read(HttpEngine.checkStatus(res).getBody(), res.getFinalUrl(), fetcherPrivateArgs);
+		}
+		BoundedPdf pdf;
+		// closing the stream before its end aborts the request
+		try (InputStream in = res.getBodyStream()) {
+			HttpEngine.checkStatus(res);
+			pdf = BoundedPdf.read(in, res.getContentLength(), res.getFinalUrl(), fetcherPrivateArgs);
+		}
+		if (httpCache != null) {
+			try (InputStream in = pdf.openStream()) {
+				httpCache.put(HttpCache.key(Method.GET.name(), requestUrl, null), res, in);
+			} catch (IOException e) {
+				pdf.close();
+				throw e;
+			}
 		}
-		if (!fetcherArgs.getPrivateArgs().getSeleniumFirefox().isEmpty()) {
-			options.setBinary(fetcherArgs.getPrivateArgs().getSeleniumFirefox());
+		return pdf;
+	}
+
+	// the connection is closed also if reading is aborted (e.g. as the PDF is too large), instead of being left half-read
+	private static BoundedPdf readPdf(URLConnection con, String url, FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		boolean read = false;
+		try (InputStream in = con.getInputStream()) {
+			BoundedPdf pdf = BoundedPdf.read(in, con.getContentLengthLong(), url, fetcherPrivateArgs);
+			read = true;
+			return pdf;
+		} finally {
+			if (!read && con instanceof HttpURLConnection) {
+				((HttpURLConnection) con).disconnect();
+			}
 		}
-		options.addArguments("-headless");
-		FirefoxProfile profile = new FirefoxProfile();
-		options.setProfile(profile);
-		options.setAcceptInsecureCerts(true);
-		options.setPageLoadTimeout(Duration.ofMillis(fetcherArgs.getTimeout() * 2)); // connect timeout plus read timeout
-		//options.setScriptTimeout(Duration.ofMillis(10000));
-		options.addPreference("general.useragent.override", fetcherArgs.getPrivateArgs().getUserAgent());
-		return new FirefoxDriver(options);
 	}
 
 	private void setFetchException(Webpage webpage, Publication publication, String exceptionUrl) {
@@ -265,69 +526,65 @@ public class Fetcher implements AutoCloseable {
 	}
 
 	public Document postDoc(String url, Map<String, String> data, FetcherArgs fetcherArgs) {
-		return getDoc(url, null, null, null, null, null, null, false, false, Method.POST, data, fetcherArgs, false);
+		return getDoc(url, null, null, null, null, null, null, false, false, Method.POST, data, null, fetcherArgs, false);
+	}
+
+	// the response is read whole and positions are tracked, so that with isClosed() it can be checked whether a part of the XML is missing
+	private Document postXml(String url, Map<String, String> data, FetcherArgs fetcherArgs) {
+		return getDoc(url, null, null, null, null, null, null, false, false, Method.POST, data, Parser.xmlParser().setTrackPosition(true), fetcherArgs, false);
+	}
+
+	// whether the end tag of the element was in the XML parsed by postXml(), i.e. the element was not cut off
+	private static boolean isClosed(Element element) {
+		return element != null && element.endSourceRange().isTracked();
 	}
 
 	public Document getDoc(String url, boolean javascript, FetcherArgs fetcherArgs) {
-		return getDoc(url, null, null, null, null, null, null, javascript, false, Method.GET, null, fetcherArgs, false);
+		return getDoc(url, null, null, null, null, null, null, javascript, false, Method.GET, null, null, fetcherArgs, false);
 	}
 
 	private Document getDoc(String url, Publication publication, FetcherArgs fetcherArgs) {
-		return getDoc(url, null, publication, null, null, null, null, false, false, Method.GET, null, fetcherArgs, false);
+		return getDoc(url, null, publication, null, null, null, null, false, false, Method.GET, null, null, fetcherArgs, false);
 	}
 
 	private Document getDoc(Webpage webpage, boolean javascript, FetcherArgs fetcherArgs) {
-		return getDoc(webpage.getStartUrl(), webpage, null, null, null, null, null, javascript, false, Method.GET, null, fetcherArgs, false);
+		return getDoc(webpage.getStartUrl(), webpage, null, null, null, null, null, javascript, false, Method.GET, null, null, fetcherArgs, false);
 	}
 
 	private Document getDoc(String url, Publication publication, PublicationPartType type, String from, Links links, EnumMap<PublicationPartName, Boolean> parts, boolean javascript, FetcherArgs fetcherArgs) {
-		return getDoc(url, null, publication, type, from, links, parts, javascript, false, Method.GET, null, fetcherArgs, false);
+		return getDoc(url, null, publication, type, from, links, parts, javascript, false, Method.GET, null, null, fetcherArgs, false);
 	}
 
-	@SuppressWarnings("deprecation")
-	private Document getDoc(String url, Webpage webpage, Publication publication, PublicationPartType type, String from, Links links, EnumMap<PublicationPartName, Boolean> parts, boolean javascript, boolean timeout, Method method, Map<String, String> data, FetcherArgs fetcherArgs, boolean reentry) {
+	private Document getDoc(String url, Webpage webpage, Publication publication, PublicationPartType type, String from, Links links, EnumMap<PublicationPartName, Boolean> parts, boolean javascript, boolean timeout, Method method, Map<String, String> data, Parser parser, FetcherArgs fetcherArgs, boolean reentry) {
 		Document doc = null;
 
 		logger.info("    {} {}{}{}", method, url, javascript ? " (with JavaScript)" : "", data != null ? (" (with data " + data + ")") : "");
 
 		ActiveHost activeHost = null;
-		if (!reentry) {
-			activeHost = activateHost(getHost(url));
+		if (!reentry && !isCached(url, method, data, javascript, fetcherArgs)) {
+			activeHost = activateHost(getHost(url), fetcherArgs);
 			if (Thread.currentThread().isInterrupted()) return null;
 		}
-		int driversIndex = -1;
-		if (javascript && (fetcherArgs.getPrivateArgs().isSelenium() || !fetcherArgs.getPrivateArgs().getSeleniumGeckodriver().isEmpty() || !fetcherArgs.getPrivateArgs().getSeleniumFirefox().isEmpty())) {
-			synchronized(driversFree) {
-				boolean waited = false;
-				while (true) {
-					for (int i = 0; i < driversFree.size(); ++i) {
-						if (driversFree.get(i)) {
-							driversIndex = i;
-							driversFree.set(i, false);
-							break;
-						}
-					}
-					if (driversIndex < 0 && driversFree.size() < DRIVERS_MAX) {
-						driversIndex = driversFree.size();
-						drivers.add(null);
-						driversFree.add(false);
-					}
-					if (driversIndex >= 0) {
-						break;
-					}
-					logger.info("Waiting for free WebDriver");
-					waited = true;
-					try {
-						driversFree.wait();
-					} catch (InterruptedException e) {
-						logger.error("Interrupt!", e);
-						Thread.currentThread().interrupt();
-						return null;
-					}
-				}
-				if (waited) {
-					logger.info("Found free WebDriver {}", driversIndex);
-				}
+		WebDriverPool.Slot driverSlot = null;
+		// no Firefox is started if offline, as the page can't be got anyway
+		if (javascript && isSelenium(fetcherArgs.getPrivateArgs()) && (httpCache == null || !httpCache.isOffline())) {
+			try {
+				driverSlot = webDriverPool.acquire(scrape.getRestart(url), fetcherArgs.getTimeout() * 2L); // connect timeout plus read timeout
+			} catch (InterruptedException e) {
+				logger.error("Interrupt!", e);
+				Thread.currentThread().interrupt();
+				hostLimiter.release(activeHost);
+				return null;
+			} catch (TimeoutException e) {
+				logger.warn(e);
+				setFetchException(webpage, publication, null);
+				hostLimiter.release(activeHost);
+				return null;
+			} catch (RuntimeException e) {
+				logger.warn("Exception!", e);
+				setFetchException(webpage, publication, null);
+				hostLimiter.release(activeHost);
+				return null;
 			}
 		}
 
@@ -337,15 +594,9 @@ public class Fetcher implements AutoCloseable {
 			}
 
 			if (javascript) {
-				if (driversIndex >= 0) {
-					WebDriver driver = drivers.get(driversIndex);
-					if (driver == null || scrape.getRestart(url) || driver.manage().timeouts().getPageLoadTimeout().toMillis() != fetcherArgs.getTimeout() * 2) {
-						if (driver != null) {
-							driver.quit();
-						}
-						driver = makeWebDriver(fetcherArgs, driversIndex);
-						drivers.set(driversIndex, driver);
-					}
+				checkOffline(url);
+				if (driverSlot != null) {
+					WebDriver driver = driverSlot.getDriver();
 					new URL(url);
 					if (!HTTP_OR_HTTPS.matcher(url).find()) {
 						throw new MalformedURLException("Must be http or https");
@@ -382,54 +633,30 @@ public class Fetcher implements AutoCloseable {
 					doc = Jsoup.parse(pageSource, driver.getCurrentUrl());
 					logger.info("    GOT {} (with JavaScript)", doc.location());
 				} else {
-					JavascriptThread javascriptThread = new JavascriptThread(url, webpage, fetcherArgs);
-
-					Thread t = new Thread(javascriptThread);
-					t.setDaemon(true);
-					t.start();
-
-					long start = System.currentTimeMillis();
+					JavascriptPool.Result res = javascriptPool.get(url, fetcherArgs);
 
-					while (!javascriptThread.isFinished()) {
-						try {
-							Thread.sleep(100);
-							long elapsed = System.currentTimeMillis() - start;
-							// 2 * timeout is expected timeout if htmlunit behaves, give twice that amount plus a fixed 1 second independent of timeout arg value
-							// but cap max timeout for javascript at 2 minutes, because letting stuck htmlunit code run beyond that will start to cause errors for other fetching threads
-							if (elapsed > 2 * 2 * fetcherArgs.getTimeout() + 1000 || elapsed > JAVASCRIPT_HARD_TIMEOUT) {
-								t.stop(); // alternative is to call stop0(new ThreadDeath()) directly with Thread.class.getDeclaredMethod("stop0") and setAccessible(true)
-								break;
-							}
-						} catch (InterruptedException e) {
-							logger.error("Exception!", e);
-							break;
-						}
+					if (webpage != null) {
+						webpage.setContentType(res.getContentType());
+						webpage.setStatusCode(res.getStatusCode());
 					}
 
-					if (javascriptThread.getException() != null) {
-						throw javascriptThread.getException();
-					} else if (javascriptThread.getDoc() == null) {
-						throw new NullPointerException("JavascriptThread has not created a Document!");
-					} else {
-						doc = javascriptThread.getDoc();
+					if (res.getDoc() == null) {
+						throw new UnsupportedMimeTypeException("Not a HTML page", res.getContentType(), res.getFinalUrl());
 					}
+					doc = res.getDoc();
+					logger.info("    GOT {} (with JavaScript)", doc.location());
 				}
-			} else {
-				URL u = new URL(url);
+			} else if (isHttpEngine(url, fetcherArgs)) {
+				HttpEngine.Response res = engineDoc(url, method, data, parser, fetcherArgs);
 
-				Connection con = Jsoup.connect(url)
-					.userAgent(fetcherArgs.getPrivateArgs().getUserAgent())
-					.referrer(u.getProtocol() + "://" + u.getAuthority())
-					.timeout(fetcherArgs.getTimeout() * 2)
-					.followRedirects(true)
-					.ignoreHttpErrors(false)
-					.ignoreContentType(false)
-					.method(method);
-				if (data != null) {
-					con.data(data);
+				if (webpage != null) {
+					webpage.setContentType(res.getContentType());
+					webpage.setStatusCode(res.getStatusCode());
 				}
 
-				Response res = con.execute();
+				doc = res.getDocument();
+			} else {
+				Response res = jsoupExecute(url, method, data, parser, fetcherArgs);
 
 				if (webpage != null) {
 					webpage.setContentType(res.contentType());
@@ -459,7 +686,7 @@ public class Fetcher implements AutoCloseable {
 			// if the request URL is not a HTTP or HTTPS URL, or is otherwise malformed
 			logger.warn(e);
 			if (webpage != null || publication != null) {
-				fetchPdf(url, webpage, publication, type, from, links, parts, fetcherArgs, true);
+				fetchPdf(url, webpage, publication, type, from, links, parts, fetcherArgs, reentry || activeHost != null);
 			}
 		} catch (HttpStatusException e) {
 			// if the response is not OK and HTTP response errors are not ignored
@@ -506,7 +733,8 @@ public class Fetcher implements AutoCloseable {
 			if (e.getMimeType() != null && (APPLICATION_PDF.matcher(e.getMimeType()).matches() || e.getMimeType().startsWith("PB"))) {
 				// webpage/doc urls and doi links can point directly to PDF files
 				if (webpage != null || publication != null) {
-					fetchPdf(e.getUrl(), webpage, publication, type, from, links, parts, fetcherArgs, true);
+					// the host is still held, unless the response was got from cache or requested beforehand
+					fetchPdf(e.getUrl(), webpage, publication, type, from, links, parts, fetcherArgs, reentry || activeHost != null);
 				} else {
 					logger.warn(e);
 				}
@@ -517,7 +745,7 @@ public class Fetcher implements AutoCloseable {
 			// if the connection times out
 			logger.warn(e);
 			if (!timeout && !fetcherArgs.isQuick()) {
-				doc = getDoc(url, webpage, publication, type, from, links, parts, javascript, true, method, data, fetcherArgs, true);
+				doc = getDoc(url, webpage, publication, type, from, links, parts, javascript, true, method, data, parser, fetcherArgs, true);
 			} else {
 				setFetchException(webpage, publication, null);
 			}
@@ -526,7 +754,7 @@ public class Fetcher implements AutoCloseable {
 			// jsoup has deprecated validateTLSCertificates(false), so try with htmlunit and setUseInsecureSSL(true) or selenium and setAcceptInsecureCerts(true)
 			// in jsoup, Connection.sslSocketFactory(SSLSocketFactory sslSocketFactory) provides a path to implement a workaround
 			if (!javascript && method == Method.GET) {
-				doc = getDoc(url, webpage, publication, type, from, links, parts, true, timeout, method, data, fetcherArgs, true);
+				doc = getDoc(url, webpage, publication, type, from, links, parts, true, timeout, method, data, parser, fetcherArgs, true);
 			}
 		} catch (IOException e) {
 			// if a connection or read error occurs
@@ -535,20 +763,9 @@ public class Fetcher implements AutoCloseable {
 			logger.warn("Exception!", e);
 			setFetchException(webpage, publication, null);
 		} finally {
-			if (activeHost != null) {
-				synchronized(activeHosts) {
-					activeHost.decrement();
-					if (activeHost.getCount() <= 0) {
-						activeHosts.remove(activeHost);
-					}
-					activeHosts.notifyAll();
-				}
-			}
-			if (driversIndex >= 0) {
-				synchronized(driversFree) {
-					driversFree.set(driversIndex, true);
-					driversFree.notifyAll();
-				}
+			hostLimiter.release(activeHost);
+			if (driverSlot != null) {
+				webDriverPool.release(driverSlot);
 			}
 		}
 
@@ -570,30 +787,59 @@ public class Fetcher implements AutoCloseable {
 		logger.info("    GET PDF {}", url);
 
 		ActiveHost activeHost = null;
-		if (!reentry) {
-			activeHost = activateHost(getHost(url));
+		if (!reentry && !isCached(url, Method.GET, null, false, fetcherArgs)) {
+			activeHost = activateHost(getHost(url), fetcherArgs);
 			if (Thread.currentThread().isInterrupted()) return;
 		}
 
 		try {
-			URLConnection con;
+			URLConnection con = null;
+			HttpEngine.Response res = null;
 			try {
-				con = PubFetcher.newConnection(url, fetcherArgs.getTimeout(), fetcherArgs.getPrivateArgs().getUserAgent());
+				if (isHttpEngine(url, fetcherArgs)) {
+					res = engineSend(url, Method.GET, null, HttpEngine.Body.STREAM, fetcherArgs);
+					if (res.isDiscarded()) {
+						// requested beforehand as a webpage
+						res = engineSend(url, Method.GET, null, null, null, HttpEngine.Body.STREAM, fetcherArgs);
+					}
+				} else {
+					con = newConnection(url, fetcherArgs);
+				}
 			} catch (IOException e) {
 				logger.warn(e);
 				return;
 			}
 
-			String finalUrl = con.getURL().toString();
+			String finalUrl = (res != null ? res.getFinalUrl() : con.getURL().toString());
 			if (webpage != null) {
 				webpage.setFinalUrl(finalUrl);
 			}
 
-			// TODO MAX_PDF_SIZE
-			try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBuffer(con.getInputStream()), IOUtils.createMemoryOnlyStreamCache())) {
+			try {
+				BoundedPdf pdf = (res != null
+					? readPdf(res, url, fetcherArgs.getPrivateArgs())
+					: readPdf(con, finalUrl, fetcherArgs.getPrivateArgs()));
+
+				// the host is not waited for while the PDF is parsed
+				hostLimiter.release(activeHost);
+				activeHost = null;
+
+				boolean titlePart = (parts == null || (parts.get(PublicationPartName.title) != null && parts.get(PublicationPartName.title)));
+				boolean keywordsPart = (parts == null || (parts.get(PublicationPartName.keywords) != null && parts.get(PublicationPartName.keywords)));
+				boolean abstractPart = (parts == null || (parts.get(PublicationPartName.theAbstract) != null && parts.get(PublicationPartName.theAbstract)));
+				boolean fulltextPart = (parts == null || (parts.get(PublicationPartName.fulltext) != null && parts.get(PublicationPartName.fulltext)));
+
+				boolean metadata = (webpage != null && webpage.getTitle().isEmpty()
+					|| publication != null && (!publication.getTitle().isFinal(fetcherArgs) && titlePart || !publication.getKeywords().isFinal(fetcherArgs) && keywordsPart || !publication.getAbstract().isFinal(fetcherArgs) && abstractPart));
+				boolean text = (webpage != null || publication != null && !publication.getFulltext().isFinal(fetcherArgs) && fulltextPart);
+
+				PdfContent content = extractPdf(pdf, metadata, text, metadata, fetcherArgs);
+
 				logger.info("    GOT PDF {}", finalUrl);
 				if (webpage != null) {
-					if (con instanceof HttpURLConnection) {
+					if (res != null) {
+						webpage.setStatusCode(res.getStatusCode());
+					} else if (con instanceof HttpURLConnection) {
 						HttpURLConnection httpCon = (HttpURLConnection) con;
 						webpage.setStatusCode(httpCon.getResponseCode());
 					}
@@ -607,124 +853,92 @@ public class Fetcher implements AutoCloseable {
 					links.addTriedLink(finalUrl, type, from);
 				}
 
-				boolean titlePart = (parts == null || (parts.get(PublicationPartName.title) != null && parts.get(PublicationPartName.title)));
-				boolean keywordsPart = (parts == null || (parts.get(PublicationPartName.keywords) != null && parts.get(PublicationPartName.keywords)));
-				boolean abstractPart = (parts == null || (parts.get(PublicationPartName.theAbstract) != null && parts.get(PublicationPartName.theAbstract)));
-				boolean fulltextPart = (parts == null || (parts.get(PublicationPartName.fulltext) != null && parts.get(PublicationPartName.fulltext)));
-
 				if (webpage != null && webpage.getTitle().isEmpty()
 					|| publication != null && (!publication.getTitle().isFinal(fetcherArgs) && titlePart || !publication.getKeywords().isFinal(fetcherArgs) && keywordsPart || !publication.getAbstract().isFinal(fetcherArgs) && abstractPart)) {
-					PDDocumentInformation info = doc.getDocumentInformation();
-					if (info != null) {
-						if (webpage != null) {
-							if (webpage.getTitle().isEmpty()) {
-								String title = info.getTitle();
-								if (title != null) {
-									webpage.setTitle(title);
-									if (!webpage.getTitle().isEmpty()) {
-										logger.info("        title: {}", webpage.getTitle());
-									}
+					if (webpage != null) {
+						if (webpage.getTitle().isEmpty()) {
+							String title = content.getInfoTitle();
+							if (title != null) {
+								webpage.setTitle(title);
+								if (!webpage.getTitle().isEmpty()) {
+									logger.info("        title: {}", webpage.getTitle());
 								}
 							}
 						}
-						if (publication != null) {
-							if (!publication.getTitle().isFinal(fetcherArgs) && titlePart) {
-								String title = info.getTitle();
-								if (title != null) {
-									publication.setTitle(title, type, finalUrl, fetcherArgs, true);
-								}
+					}
+					if (publication != null) {
+						if (!publication.getTitle().isFinal(fetcherArgs) && titlePart) {
+							String title = content.getInfoTitle();
+							if (title != null) {
+								publication.setTitle(title, type, finalUrl, fetcherArgs, true);
 							}
-							if (!publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
-								String keywords = info.getKeywords();
-								if (keywords != null) {
-									publication.setKeywords(Arrays.asList(SEPARATOR.split(keywords)), type, finalUrl, fetcherArgs, true);
-								}
+						}
+						if (!publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
+							String keywords = content.getInfoKeywords();
+							if (keywords != null) {
+								publication.setKeywords(Arrays.asList(SEPARATOR.split(keywords)), type, finalUrl, fetcherArgs, true);
 							}
-							if (!publication.getAbstract().isFinal(fetcherArgs) && abstractPart) {
-								String theAbstract = info.getSubject();
-								if (theAbstract != null) {
-									publication.setAbstract(theAbstract, type, finalUrl, fetcherArgs, true);
-								}
+						}
+						if (!publication.getAbstract().isFinal(fetcherArgs) && abstractPart) {
+							String theAbstract = content.getInfoSubject();
+							if (theAbstract != null) {
+								publication.setAbstract(theAbstract, type, finalUrl, fetcherArgs, true);
 							}
 						}
 					}
 				}
 
 				if (webpage != null || publication != null && !publication.getFulltext().isFinal(fetcherArgs) && fulltextPart) {
-					try {
-						PDFTextStripper stripper = new PDFTextStripper();
-						String pdfText = stripper.getText(doc);
-						if (pdfText != null) {
-							if (webpage != null) {
-								webpage.setContent(pdfText);
-								logger.info("        content length: {}", webpage.getContent().length());
-							}
-							if (publication != null && !publication.getFulltext().isFinal(fetcherArgs) && fulltextPart) {
-								publication.setFulltext(pdfText, type, finalUrl, fetcherArgs);
-							}
+					String pdfText = content.getText();
+					if (pdfText != null) {
+						if (webpage != null) {
+							webpage.setContent(pdfText);
+							logger.info("        content length: {}", webpage.getContent().length());
+						}
+						if (publication != null && !publication.getFulltext().isFinal(fetcherArgs) && fulltextPart) {
+							publication.setFulltext(pdfText, type, finalUrl, fetcherArgs);
 						}
-					} catch (IOException e) {
-						logger.warn(e);
 					}
 				}
 
 				if (webpage != null && webpage.getTitle().isEmpty()
 					|| publication != null && (!publication.getTitle().isFinal(fetcherArgs) && titlePart || !publication.getKeywords().isFinal(fetcherArgs) && keywordsPart || !publication.getAbstract().isFinal(fetcherArgs) && abstractPart)) {
-					PDMetadata meta = doc.getDocumentCatalog().getMetadata();
-					if (meta != null) {
-						try (InputStream xmlInputStream = meta.createInputStream()) {
-							XMPMetadata xmp = new DomXmpParser().parse(xmlInputStream);
-
-							DublinCoreSchema dc = xmp.getDublinCoreSchema();
-							if (dc != null) {
-								if (webpage != null) {
-									if (webpage.getTitle().isEmpty()) {
-										String title = dc.getTitle();
-										if (title != null) {
-											webpage.setTitle(title);
-											if (!webpage.getTitle().isEmpty()) {
-												logger.info("        title: {}", webpage.getTitle());
-											}
-										}
-									}
-								}
-								if (publication != null) {
-									if (!publication.getTitle().isFinal(fetcherArgs) && titlePart) {
-										String title = dc.getTitle();
-										if (title != null) {
-											publication.setTitle(title, type, finalUrl, fetcherArgs, true);
-										}
-									}
-									if (!publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
-										List<String> keywords = dc.getSubjects();
-										if (keywords != null) {
-											publication.setKeywords(keywords, type, finalUrl, fetcherArgs, true);
-										}
-									}
-									if (!publication.getAbstract().isFinal(fetcherArgs) && abstractPart) {
-										String theAbstract = dc.getDescription();
-										if (theAbstract != null) {
-											publication.setAbstract(theAbstract, type, finalUrl, fetcherArgs, true);
-										}
-									}
+					if (webpage != null) {
+						if (webpage.getTitle().isEmpty()) {
+							String title = content.getDcTitle();
+							if (title != null) {
+								webpage.setTitle(title);
+								if (!webpage.getTitle().isEmpty()) {
+									logger.info("        title: {}", webpage.getTitle());
 								}
 							}
-
-							if (publication != null && !publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
-								AdobePDFSchema pdf = xmp.getAdobePDFSchema();
-								if (pdf != null) {
-									String keywords = pdf.getKeywords();
-									if (keywords != null) {
-										publication.setKeywords(Arrays.asList(SEPARATOR.split(keywords)), type, finalUrl, fetcherArgs, true);
-									}
-								}
+						}
+					}
+					if (publication != null) {
+						if (!publication.getTitle().isFinal(fetcherArgs) && titlePart) {
+							String title = content.getDcTitle();
+							if (title != null) {
+								publication.setTitle(title, type, finalUrl, fetcherArgs, true);
+							}
+						}
+						if (!publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
+							List<String> keywords = content.getDcSubjects();
+							if (keywords != null) {
+								publication.setKeywords(keywords, type, finalUrl, fetcherArgs, true);
+							}
+						}
+						if (!publication.getAbstract().isFinal(fetcherArgs) && abstractPart) {
+							String theAbstract = content.getDcDescription();
+							if (theAbstract != null) {
+								publication.setAbstract(theAbstract, type, finalUrl, fetcherArgs, true);
 							}
-						} catch (IOException e) {
-							logger.warn(e);
-						} catch (XmpParsingException e) {
-							logger.warn(e);
-						} catch (IllegalArgumentException e) {
-							logger.warn(e);
+						}
+					}
+
+					if (publication != null && !publication.getKeywords().isFinal(fetcherArgs) && keywordsPart) {
+						String keywords = content.getAdobeKeywords();
+						if (keywords != null) {
+							publication.setKeywords(Arrays.asList(SEPARATOR.split(keywords)), type, finalUrl, fetcherArgs, true);
 						}
 					}
 				}
@@ -743,14 +957,77 @@ public class Fetcher implements AutoCloseable {
 				setFetchException(webpage, publication, null);
 			}
 		} finally {
-			if (activeHost != null) {
-				synchronized(activeHosts) {
-					activeHost.decrement();
-					if (activeHost.getCount() <= 0) {
-						activeHosts.remove(activeHost);
-					}
-					activeHosts.notifyAll();
-				}
+			hostLimiter.release(activeHost);
+		}
+	}
+
+	private ExecutorService getPdfExecutor(FetcherArgs fetcherArgs) {
+		synchronized(this) {
+			if (pdfExecutor == null) {
+				int threads = fetcherArgs.getPrivateArgs().getPdfThreads();
+				pdfExecutor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), r -> {
+					Thread t = new Thread(r, "pdf");
+					t.setDaemon(true);
+					return t;
+				});
+			}
+			return pdfExecutor;
+		}
+	}
+
+	// Parses the PDF and extracts content from it in a thread of the PDF executor, waiting for at most the PDF timeout from the start of the extraction, after which the extraction is cancelled.
+	// The time spent waiting for a free thread of the executor is not counted, as that depends on the other PDFs being extracted, which have their own time limits.
+	// The PDF is closed by the thread extracting it, or here if the extraction was cancelled before it started.
+	private PdfContent extractPdf(BoundedPdf pdf, boolean info, boolean text, boolean metadata, FetcherArgs fetcherArgs) throws IOException {
+		AtomicBoolean started = new AtomicBoolean(false);
+		// 0 until the extraction starts
+		AtomicLong startTime = new AtomicLong(0);
+		Future<PdfContent> future = getPdfExecutor(fetcherArgs).submit(() -> {
+			if (!started.compareAndSet(false, true)) return null;
+			startTime.set(System.nanoTime());
+			try (pdf) {
+				return PdfContent.extract(pdf, info, text, metadata, fetcherArgs.getPrivateArgs().getPdfMaxPages());
+			}
+		});
+		int timeout = fetcherArgs.getPrivateArgs().getPdfTimeout();
+		try {
+			if (timeout <= 0) {
+				return future.get();
+			}
+			long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+			while (true) {
+				long start = startTime.get();
+				try {
+					// if not started yet, it is checked again after the whole timeout whether it has started in the meantime
+					return future.get(start != 0 ? start + timeoutNanos - System.nanoTime() : timeoutNanos, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					if (start != 0) throw e;
+				}
+			}
+		} catch (TimeoutException e) {
+			throw new IOException("Extraction of PDF took longer than " + timeout + " ms");
+		} catch (CancellationException e) {
+			throw new InterruptedIOException("Extraction of PDF cancelled, as fetcher was closed");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for extraction of PDF");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException(cause);
+			}
+		} finally {
+			if (!future.isDone()) {
+				future.cancel(true);
+			}
+			if (started.compareAndSet(false, true)) {
+				pdf.close();
 			}
 		}
 	}
@@ -1612,19 +1889,24 @@ public class Fetcher implements AutoCloseable {
 	}
 
 	private String getEuropepmcUri(Publication publication, FetcherPublicationState state, FetcherArgs fetcherArgs) {
-		String europepmcQuery = "resulttype=core&format=xml";
+		String query;
 		if (!publication.getPmid().isEmpty() && !state.europepmcPmid) {
-			europepmcQuery += "&query=ext_id:" + publication.getPmid().getContent() + " src:med";
+			query = "ext_id:" + publication.getPmid().getContent() + " src:med";
 			state.europepmcPmid = true;
 		} else if (!publication.getPmcid().isEmpty() && !state.europepmcPmcid) {
-			europepmcQuery += "&query=pmcid:" + publication.getPmcid().getContent();
+			query = "pmcid:" + publication.getPmcid().getContent();
 			state.europepmcPmcid = true;
 		} else if (!publication.getDoi().isEmpty() && !state.europepmcDoi) {
-			europepmcQuery += "&query=doi:" + publication.getDoi().getContent();
+			query = "doi:" + publication.getDoi().getContent();
 			state.europepmcDoi = true;
 		} else {
 			return null;
 		}
+		return getEuropepmcUri(query, fetcherArgs);
+	}
+
+	private static String getEuropepmcUri(String query, FetcherArgs fetcherArgs) {
+		String europepmcQuery = "resulttype=core&format=xml&query=" + query;
 
 		if (fetcherArgs.getPrivateArgs().getEuropepmcEmail() != null && !fetcherArgs.getPrivateArgs().getEuropepmcEmail().isEmpty()) {
 			europepmcQuery += "&email=" + fetcherArgs.getPrivateArgs().getEuropepmcEmail();
@@ -1640,98 +1922,451 @@ public class Fetcher implements AutoCloseable {
 		return europepmcUri;
 	}
 
-	private Element getEuropepmcResult(Document doc, Publication publication, FetcherPublicationState state) {
-		Elements results = doc.select("resultList > result");
-
+	// returns -1 if hitCount is missing or invalid
+	private static int getEuropepmcHitCount(Document doc) {
 		Element hitCount = doc.getElementsByTag("hitCount").first();
 		if (hitCount != null) {
 			try {
-				int count = Integer.parseInt(hitCount.text());
-				if (count != results.size()) {
-					logger.warn("Tag hitCount value ({}) does not match resultList size ({}) in {}", count, results.size(), doc.location());
-				}
+				return Integer.parseInt(hitCount.text());
 			} catch (NumberFormatException e) {
 				logger.warn("Tag hitCount does not contain an integer in {}", doc.location());
 			}
 		} else {
 			logger.warn("Tag hitCount not found in {}", doc.location());
 		}
+		return -1;
+	}
+
+	private Element getEuropepmcResult(Document doc, Publication publication, FetcherPublicationState state) {
+		Elements results = doc.select("resultList > result");
+
+		int count = getEuropepmcHitCount(doc);
+		if (count >= 0 && count != results.size()) {
+			logger.warn("Tag hitCount value ({}) does not match resultList size ({}) in {}", count, results.size(), doc.location());
+		}
 
 		if (results.size() > 1) {
-			Element bestResult = null;
-			String bestSource = null;
-			for (Element result : results) {
-				String pmid = null;
-				Element pmidTag = result.selectFirst("pmid");
-				if (pmidTag != null) {
-					pmid = pmidTag.text();
-					if (!PubFetcher.isPmid(pmid)) {
-						logger.error("Invalid PMID {} in Europe PMC results {}", pmid, doc.location());
-						pmid = null;
-					}
-				}
-				String pmcid = null;
-				Element pmcidTag = result.selectFirst("pmcid");
-				if (pmcidTag != null) {
-					pmcid = pmcidTag.text();
-					if (!PubFetcher.isPmcid(pmcid)) {
-						logger.error("Invalid PMCID {} in Europe PMC results {}", pmcid, doc.location());
-						pmcid = null;
-					}
-				}
-				String doi = null;
-				Element doiTag = result.selectFirst("doi");
-				if (doiTag != null) {
-					doi = doiTag.text();
-					if (!PubFetcher.isDoi(doi) || doi.indexOf(" ") > -1) {
-						logger.error("Invalid DOI {} in Europe PMC results {}", doi, doc.location());
-						doi = null;
-					} else {
-						doi = PubFetcher.normaliseDoi(doi);
-					}
+			return getEuropepmcBestResult(results, publication, doc.location());
+		} else if (results.size() == 1) {
+			return results.first();
+		} else {
+			if (state.europepmcDoi) {
+				logger.warn("There are {} results for {}", results.size(), doc.location());
+			} else {
+				logger.error("There are {} results for {}", results.size(), doc.location());
+			}
+			return null;
+		}
+	}
+
+	// of results matching the IDs of the publication, the one from the most authoritative source
+	private static Element getEuropepmcBestResult(List<Element> results, Publication publication, String location) {
+		Element bestResult = null;
+		String bestSource = null;
+		for (Element result : results) {
+			String pmid = null;
+			Element pmidTag = result.selectFirst("pmid");
+			if (pmidTag != null) {
+				pmid = pmidTag.text();
+				if (!PubFetcher.isPmid(pmid)) {
+					logger.error("Invalid PMID {} in Europe PMC results {}", pmid, location);
+					pmid = null;
+				}
+			}
+			String pmcid = null;
+			Element pmcidTag = result.selectFirst("pmcid");
+			if (pmcidTag != null) {
+				pmcid = pmcidTag.text();
+				if (!PubFetcher.isPmcid(pmcid)) {
+					logger.error("Invalid PMCID {} in Europe PMC results {}", pmcid, location);
+					pmcid = null;
+				}
+			}
+			String doi = null;
+			Element doiTag = result.selectFirst("doi");
+			if (doiTag != null) {
+				doi = doiTag.text();
+				if (!PubFetcher.isDoi(doi) || doi.indexOf(" ") > -1) {
+					logger.error("Invalid DOI {} in Europe PMC results {}", doi, location);
+					doi = null;
+				} else {
+					doi = PubFetcher.normaliseDoi(doi);
 				}
+			}
 
-				boolean mismatch = false;
-				if (!publication.getPmid().isEmpty() && pmid != null && !publication.getPmid().getContent().equals(pmid)) {
-					logger.error("Mismatch between current PMID {} and returned PMID {} in Europe PMC results {}", publication.getPmid().getContent(), pmid, doc.location());
+			boolean mismatch = false;
+			if (!publication.getPmid().isEmpty() && pmid != null && !publication.getPmid().getContent().equals(pmid)) {
+				logger.error("Mismatch between current PMID {} and returned PMID {} in Europe PMC results {}", publication.getPmid().getContent(), pmid, location);
+				mismatch = true;
+			}
+			if (!publication.getPmcid().isEmpty() && pmcid != null && !publication.getPmcid().getContent().equals(pmcid)) {
+				logger.error("Mismatch between current PMCID {} and returned PMCID {} in Europe PMC results {}", publication.getPmcid().getContent(), pmcid, location);
+				mismatch = true;
+			}
+			if (!publication.getDoi().isEmpty() && doi != null && !publication.getDoi().getContent().equals(doi)) {
+				if (F1000_DOI.matcher(publication.getDoi().getContent()).matches() && F1000_DOI.matcher(doi).matches()) {
+					logger.warn("Mismatch between current DOI {} and returned DOI {} in Europe PMC results {}", publication.getDoi().getContent(), doi, location);
+				} else {
+					logger.error("Mismatch between current DOI {} and returned DOI {} in Europe PMC results {}", publication.getDoi().getContent(), doi, location);
 					mismatch = true;
 				}
-				if (!publication.getPmcid().isEmpty() && pmcid != null && !publication.getPmcid().getContent().equals(pmcid)) {
-					logger.error("Mismatch between current PMCID {} and returned PMCID {} in Europe PMC results {}", publication.getPmcid().getContent(), pmcid, doc.location());
-					mismatch = true;
+			}
+			if (mismatch) continue;
+
+			// https://europepmc.org/Help#whatserachingEPMC
+			String source = "";
+			Element sourceTag = result.selectFirst("source");
+			if (sourceTag != null) {
+				source = sourceTag.text();
+			}
+			if (bestSource == null
+					|| source.equals("MED") && !bestSource.equals("MED")
+					|| source.equals("PMC") && !bestSource.equals("MED") && !bestSource.equals("PMC")
+					|| source.equals("PPR") && !bestSource.equals("MED") && !bestSource.equals("PMC") && !bestSource.equals("PPR")) {
+				bestResult = result;
+				bestSource = source;
+			}
+		}
+		return bestResult;
+	}
+
+	/**
+	 * Gets the Europe PMC search results, PubMed XML and PMC XML of many
+	 * publications with few requests (one per hundred or more publications),
+	 * so that the fetching of these publications can use the prefetched
+	 * results instead of querying Europe PMC and NCBI E-utilities separately
+	 * for each publication. PMC XML is prefetched only for articles that
+	 * Europe PMC has found, but that are not open access there. EFO and GO
+	 * terms are prefetched for articles that Europe PMC has text-mined
+	 * terms for, with one request per eight articles. Only a limited number
+	 * of results is kept until used, thus publications should be prefetched
+	 * shortly before fetching them, in batches of not more than a few
+	 * hundred.
+	 *
+	 * @param publicationIds IDs of publications to prefetch
+	 * @param parts a map where publication parts, which will be fetched, are
+	 * set to <code>true</code>. If <code>null</code>, then all publication
+	 * parts will be fetched.
+	 * @param fetcherArgs the {@link FetcherArgs} to use for fetching
+	 */
+	public void prefetch(List<PublicationIds> publicationIds, EnumMap<PublicationPartName, Boolean> parts, FetcherArgs fetcherArgs) {
+		for (int i = 0; i < publicationIds.size(); i += EUROPEPMC_BATCH) {
+			prefetchEuropepmcBatch(publicationIds.subList(i, Math.min(i + EUROPEPMC_BATCH, publicationIds.size())), fetcherArgs);
+			if (Thread.currentThread().isInterrupted()) return;
+		}
+
+		// IDs can also come from prefetched Europe PMC results
+		Set<String> pmids = new LinkedHashSet<>();
+		Set<String> pmcids = new LinkedHashSet<>();
+		Set<String> annotationsArticleIds = new LinkedHashSet<>();
+		synchronized(prefetchedResults) {
+			for (PublicationIds ids : publicationIds) {
+				if (PubFetcher.isPmid(ids.getPmid())) {
+					pmids.add(ids.getPmid());
+				}
+				Element result = null;
+				for (String key : getEuropepmcQueries(ids).keySet()) {
+					Prefetched prefetched = prefetchedResults.get(key);
+					if (prefetched != null && prefetched.result != null) {
+						result = prefetched.result;
+						break;
+					}
 				}
-				if (!publication.getDoi().isEmpty() && doi != null && !publication.getDoi().getContent().equals(doi)) {
-					if (F1000_DOI.matcher(publication.getDoi().getContent()).matches() && F1000_DOI.matcher(doi).matches()) {
-						logger.warn("Mismatch between current DOI {} and returned DOI {} in Europe PMC results {}", publication.getDoi().getContent(), doi, doc.location());
-					} else {
-						logger.error("Mismatch between current DOI {} and returned DOI {} in Europe PMC results {}", publication.getDoi().getContent(), doi, doc.location());
-						mismatch = true;
+				if (result != null) {
+					Element pmid = result.selectFirst("pmid");
+					if (pmid != null && PubFetcher.isPmid(pmid.text())) {
+						pmids.add(pmid.text());
+					}
+					Element pmcid = result.selectFirst("pmcid");
+					Element isOpen = result.getElementsByTag("isOpenAccess").first();
+					if (pmcid != null && PubFetcher.isPmcid(pmcid.text()) && (isOpen == null || !isOpen.text().equalsIgnoreCase("Y"))) {
+						pmcids.add(pmcid.text());
+					}
+					// same ID as first tried by fetchEuropepmcMinedTermsEfo and fetchEuropepmcMinedTermsGo
+					Element isMined = result.getElementsByTag("hasTextMinedTerms").first();
+					if (isMined != null && isMined.text().equalsIgnoreCase("Y")) {
+						if (pmcid != null && PubFetcher.isPmcid(pmcid.text())) {
+							annotationsArticleIds.add("PMC:" + pmcid.text());
+						} else if (pmid != null && PubFetcher.isPmid(pmid.text())) {
+							annotationsArticleIds.add("MED:" + pmid.text());
+						}
 					}
 				}
-				if (mismatch) continue;
+			}
+		}
+		prefetchEutils("pubmed", new ArrayList<>(pmids), PUBMED_BATCH, fetcherArgs);
+		prefetchEutils("pmc", new ArrayList<>(pmcids), PMC_BATCH, fetcherArgs);
+
+		List<String> types = new ArrayList<>();
+		if (parts == null || (parts.get(PublicationPartName.efo) != null && parts.get(PublicationPartName.efo))) {
+			types.add(ANNOTATIONS_EFO);
+		}
+		if (parts == null || (parts.get(PublicationPartName.go) != null && parts.get(PublicationPartName.go))) {
+			types.add(ANNOTATIONS_GO);
+		}
+		if (!types.isEmpty()) {
+			List<String> articleIds = new ArrayList<>(annotationsArticleIds);
+			for (int i = 0; i < articleIds.size(); i += ANNOTATIONS_BATCH) {
+				if (Thread.currentThread().isInterrupted()) return;
+				prefetchAnnotationsBatch(articleIds.subList(i, Math.min(i + ANNOTATIONS_BATCH, articleIds.size())), types, fetcherArgs);
+			}
+		}
+	}
+
+	// https://europepmc.org/AnnotationsApi
+	private void prefetchAnnotationsBatch(List<String> articleIds, List<String> types, FetcherArgs fetcherArgs) {
+		String url = getEuropepmcAnnotationsUri(String.join(",", articleIds), String.join(",", types));
+		logger.info("Prefetch mined terms of {} articles", articleIds.size());
+		Document doc = getDoc(url, false, fetcherArgs);
+		if (doc == null) return;
+
+		// annotations of each article and type, by article ID like "PMC:PMC12345"
+		Map<String, Map<String, Element>> articles = new HashMap<>();
+		for (Element annotation : doc.getElementsByTag("annotation")) {
+			Element article = annotation.parent();
+			while (article != null && article.getElementsByTag("extId").isEmpty()) {
+				article = article.parent();
+			}
+			if (article == null) {
+				logger.warn("Article of mined term not found in {}", doc.location());
+				continue;
+			}
+			Element source = article.getElementsByTag("source").first();
+			String articleId = (source != null ? source.text() : "") + ":" + article.getElementsByTag("extId").first().text();
+			Element typeTag = annotation.getElementsByTag("type").first();
+			String type = (typeTag != null ? typeTag.text() : "");
+			Element annotations = articles.computeIfAbsent(articleId, k -> new HashMap<>()).computeIfAbsent(type, k -> new Element("annotations"));
+			annotations.appendChild(annotation);
+		}
 
-				// https://europepmc.org/Help#whatserachingEPMC
-				String source = "";
-				Element sourceTag = result.selectFirst("source");
-				if (sourceTag != null) {
-					source = sourceTag.text();
+		synchronized(prefetchedResults) {
+			for (String articleId : articleIds) {
+				for (String type : types) {
+					Element annotations = articles.getOrDefault(articleId, Collections.emptyMap()).get(type);
+					prefetchedResults.put(type + ":" + articleId, new Prefetched(annotations != null ? annotations : new Element("annotations"), getEuropepmcAnnotationsUri(articleId, type)));
 				}
-				if (bestSource == null
-						|| source.equals("MED") && !bestSource.equals("MED")
-						|| source.equals("PMC") && !bestSource.equals("MED") && !bestSource.equals("PMC")
-						|| source.equals("PPR") && !bestSource.equals("MED") && !bestSource.equals("PMC") && !bestSource.equals("PPR")) {
-					bestResult = result;
-					bestSource = source;
+			}
+		}
+		logger.info("Prefetched mined terms of {} articles", articles.size());
+	}
+
+	private void prefetchEutils(String db, List<String> ids, int batchSize, FetcherArgs fetcherArgs) {
+		for (int i = 0; i < ids.size(); i += batchSize) {
+			if (Thread.currentThread().isInterrupted()) return;
+			prefetchEutilsBatch(db, ids.subList(i, Math.min(i + batchSize, ids.size())), fetcherArgs);
+		}
+	}
+
+	// https://www.ncbi.nlm.nih.gov/books/NBK25499/#chapter4.EFetch
+	private void prefetchEutilsBatch(String db, List<String> ids, FetcherArgs fetcherArgs) {
+		boolean pmc = db.equals("pmc");
+
+		Map<String, String> data = new LinkedHashMap<>();
+		data.put("db", db);
+		data.put("retmode", "xml");
+		data.put("id", ids.stream().map(id -> pmc ? PubFetcher.extractPmcid(id) : id).collect(Collectors.joining(",")));
+		if (!fetcherArgs.getPrivateArgs().getNcbiApiKey().isEmpty()) {
+			data.put("api_key", fetcherArgs.getPrivateArgs().getNcbiApiKey());
+		}
+
+		logger.info("Prefetch {} {} articles", ids.size(), db);
+		Document doc = postXml(EUTILS + "efetch.fcgi", data, fetcherArgs);
+		if (doc == null) return;
+
+		// if the response was cut off, then an article missing from it can still exist, and the last article in it can be partial
+		boolean complete = isClosed(doc.selectFirst(pmc ? "pmc-articleset" : "PubmedArticleSet"));
+		if (!complete) {
+			logger.warn("Incomplete response for {} {} articles in {}", ids.size(), db, doc.location());
+		}
+
+		Map<String, Element> articles = new HashMap<>();
+		if (pmc) {
+			for (Element article : doc.select("pmc-articleset > article")) {
+				if (!isClosed(article)) continue;
+				Element articleId = article.selectFirst("article > front article-id[pub-id-type=pmcid], article > front article-id[pub-id-type=pmc]");
+				if (articleId != null) {
+					String pmcid = articleId.text().trim();
+					articles.put(pmcid.startsWith("PMC") ? pmcid : "PMC" + pmcid, article);
 				}
 			}
-			return bestResult;
-		} else if (results.size() == 1) {
-			return results.first();
 		} else {
-			if (state.europepmcDoi) {
-				logger.warn("There are {} results for {}", results.size(), doc.location());
-			} else {
-				logger.error("There are {} results for {}", results.size(), doc.location());
+			for (Element article : doc.select("PubmedArticleSet > PubmedArticle")) {
+				if (!isClosed(article)) continue;
+				Element pmid = article.selectFirst("MedlineCitation > PMID");
+				if (pmid != null) {
+					articles.put(pmid.text().trim(), article);
+				}
+			}
+		}
+
+		synchronized(prefetchedResults) {
+			for (String id : ids) {
+				String location = getEutilsUri(db, id);
+				Element article = articles.get(id);
+				if (article != null) {
+					Document articleDoc = new Document(location);
+					articleDoc.appendChild(article);
+					prefetchedResults.put(db + ":" + id, new Prefetched(articleDoc, location));
+				} else if (complete) {
+					prefetchedResults.put(db + ":" + id, new Prefetched(null, location));
+				}
+				// otherwise the article is left to be fetched by itself
+			}
+		}
+		logger.info("Prefetched {} {} articles", articles.size(), db);
+	}
+
+	// the prefetched result for the given key, or null if not prefetched
+	private Prefetched takePrefetched(String key) {
+		synchronized(prefetchedResults) {
+			return prefetchedResults.remove(key);
+		}
+	}
+
+	private static String getEutilsUri(String db, String id) {
+		return EUTILS + "efetch.fcgi?retmode=xml&db=" + db + "&id=" + (db.equals("pmc") ? PubFetcher.extractPmcid(id) : id);
+	}
+
+	private static String getEuropepmcFulltextXmlUri(String pmcid) {
+		return EUROPEPMC + pmcid + "/fullTextXML";
+	}
+
+	private static String getOaDoiUri(String doi, FetcherArgs fetcherArgs) throws URISyntaxException {
+		return new URI("https", OADOI_HOST, "/v2/" + doi, "email=" + fetcherArgs.getPrivateArgs().getOadoiEmail(), null).toASCIIString();
+	}
+
+	// the API key is left out of the location of the returned document, as it ends up in the URLs of publication parts
+	private Document getEutilsDoc(String url, Publication publication, FetcherArgs fetcherArgs) {
+		String apiKey = ncbiApiKey(fetcherArgs);
+		Document doc = getDoc(url + apiKey, publication, fetcherArgs);
+		if (doc != null && !apiKey.isEmpty() && doc.location().endsWith(apiKey)) {
+			Document relocated = new Document(url);
+			relocated.appendChildren(new ArrayList<>(doc.childNodes()));
+			doc = relocated;
+		}
+		return doc;
+	}
+
+	private static Map<String, String> getEuropepmcQueries(PublicationIds publicationIds) {
+		Map<String, String> queries = new LinkedHashMap<>();
+		if (PubFetcher.isPmid(publicationIds.getPmid())) {
+			queries.put("pmid:" + publicationIds.getPmid(), "ext_id:" + publicationIds.getPmid() + " src:med");
+		}
+		if (PubFetcher.isPmcid(publicationIds.getPmcid())) {
+			queries.put("pmcid:" + publicationIds.getPmcid(), "pmcid:" + publicationIds.getPmcid());
+		}
+		if (PubFetcher.isDoi(publicationIds.getDoi())) {
+			queries.put("doi:" + publicationIds.getDoi(), "doi:" + publicationIds.getDoi());
+		}
+		return queries;
+	}
+
+	private void prefetchEuropepmcBatch(List<PublicationIds> batch, FetcherArgs fetcherArgs) {
+		List<String> terms = new ArrayList<>();
+		for (PublicationIds publicationIds : batch) {
+			for (String query : getEuropepmcQueries(publicationIds).values()) {
+				if (query.startsWith("ext_id:")) {
+					terms.add("(" + query.replace(" ", " AND ") + ")");
+				} else if (query.startsWith("doi:")) {
+					terms.add("doi:\"" + query.substring(4).replace("\"", "\\\"") + "\"");
+				} else {
+					terms.add(query);
+				}
+			}
+		}
+		if (terms.isEmpty()) return;
+
+		Map<String, String> data = new LinkedHashMap<>();
+		data.put("query", String.join(" OR ", terms));
+		data.put("resultType", "core");
+		data.put("format", "xml");
+		data.put("pageSize", "1000");
+		if (fetcherArgs.getPrivateArgs().getEuropepmcEmail() != null && !fetcherArgs.getPrivateArgs().getEuropepmcEmail().isEmpty()) {
+			data.put("email", fetcherArgs.getPrivateArgs().getEuropepmcEmail());
+		}
+
+		logger.info("Prefetch Europe PMC results of {} publications", batch.size());
+		Document doc = postXml(EUROPEPMC + "searchPOST", data, fetcherArgs);
+		if (doc == null) return;
+
+		Elements results = doc.select("resultList > result");
+		int count = getEuropepmcHitCount(doc);
+		if (!isClosed(doc.selectFirst("responseWrapper"))) {
+			// a cut off result would have a partial abstract or MeSH terms, so the whole batch is dropped
+			logger.warn("Dropping incomplete response of {} Europe PMC results in {}", count, doc.location());
+			return;
+		}
+		// if not all results fit to the page, then a missing result doesn't mean there is none
+		boolean complete = (count >= 0 && count <= results.size());
+		if (!complete) {
+			logger.warn("Got {} of {} Europe PMC results in {}", results.size(), count, doc.location());
+		}
+
+		Map<String, List<Element>> candidates = new HashMap<>();
+		for (Element result : results) {
+			Element pmidTag = result.selectFirst("pmid");
+			if (pmidTag != null) {
+				candidates.computeIfAbsent("pmid:" + pmidTag.text(), k -> new ArrayList<>()).add(result);
+			}
+			Element pmcidTag = result.selectFirst("pmcid");
+			if (pmcidTag != null) {
+				candidates.computeIfAbsent("pmcid:" + pmcidTag.text(), k -> new ArrayList<>()).add(result);
+			}
+			Element doiTag = result.selectFirst("doi");
+			if (doiTag != null && PubFetcher.isDoi(doiTag.text())) {
+				candidates.computeIfAbsent("doi:" + PubFetcher.normaliseDoi(doiTag.text()), k -> new ArrayList<>()).add(result);
+			}
+		}
+
+		int found = 0;
+		synchronized(prefetchedResults) {
+			for (PublicationIds publicationIds : batch) {
+				Publication publication = null;
+				for (Map.Entry<String, String> query : getEuropepmcQueries(publicationIds).entrySet()) {
+					String location = getEuropepmcUri(query.getValue(), fetcherArgs);
+					List<Element> queryResults = candidates.get(query.getKey());
+					if (queryResults == null) {
+						if (complete) {
+							prefetchedResults.put(query.getKey(), new Prefetched(null, location));
+						}
+					} else if (queryResults.size() == 1) {
+						prefetchedResults.put(query.getKey(), new Prefetched(queryResults.get(0), location));
+						++found;
+					} else {
+						if (publication == null) {
+							publication = initPublication(publicationIds, fetcherArgs);
+						}
+						Element result = getEuropepmcBestResult(queryResults, publication, location);
+						prefetchedResults.put(query.getKey(), new Prefetched(result, location));
+						if (result != null) ++found;
+					}
+				}
+			}
+		}
+		logger.info("Prefetched {} Europe PMC results for {} IDs", found, terms.size());
+	}
+
+	// returns a prefetched result for the first ID of the publication not yet tried, marking tried all IDs without a result
+	private Prefetched takePrefetched(Publication publication, FetcherPublicationState state) {
+		synchronized(prefetchedResults) {
+			if (prefetchedResults.isEmpty()) return null;
+			if (!publication.getPmid().isEmpty() && !state.europepmcPmid) {
+				Prefetched prefetched = prefetchedResults.remove("pmid:" + publication.getPmid().getContent());
+				if (prefetched == null) return null;
+				state.europepmcPmid = true;
+				if (prefetched.result != null) return prefetched;
+			}
+			if (!publication.getPmcid().isEmpty() && !state.europepmcPmcid) {
+				Prefetched prefetched = prefetchedResults.remove("pmcid:" + publication.getPmcid().getContent());
+				if (prefetched == null) return null;
+				state.europepmcPmcid = true;
+				if (prefetched.result != null) return prefetched;
+			}
+			if (!publication.getDoi().isEmpty() && !state.europepmcDoi) {
+				Prefetched prefetched = prefetchedResults.remove("doi:" + publication.getDoi().getContent());
+				if (prefetched == null) return null;
+				state.europepmcDoi = true;
+				if (prefetched.result != null) return prefetched;
 			}
 			return null;
 		}
@@ -1753,24 +2388,33 @@ public class Fetcher implements AutoCloseable {
 			return;
 		}
 
-		String europepmcUri = getEuropepmcUri(publication, state, fetcherArgs);
-		if (europepmcUri == null) return;
+		Element europepmcResult;
+		String location;
+		Prefetched prefetched = takePrefetched(publication, state);
+		if (prefetched != null) {
+			europepmcResult = prefetched.result;
+			location = prefetched.location;
+		} else {
+			String europepmcUri = getEuropepmcUri(publication, state, fetcherArgs);
+			if (europepmcUri == null) return;
 
-		Document doc = getDoc(europepmcUri, publication, fetcherArgs);
-		if (doc == null) return;
+			Document doc = getDoc(europepmcUri, publication, fetcherArgs);
+			if (doc == null) return;
 
-		Element europepmcResult = getEuropepmcResult(doc, publication, state);
-		if (europepmcResult == null) return;
+			europepmcResult = getEuropepmcResult(doc, publication, state);
+			if (europepmcResult == null) return;
+			location = doc.location();
+		}
 
 		state.europepmc = true;
 		PublicationPartType type = PublicationPartType.europepmc;
 
-		setIds(publication, europepmcResult, type, "pmid", "pmcid", "doi", false, doc.location(), true, fetcherArgs);
+		setIds(publication, europepmcResult, type, "pmid", "pmcid", "doi", false, location, true, fetcherArgs);
 
 		// subtitle is already embedded in title
-		setTitle(publication, europepmcResult, type, "result > title", null, doc.location(), parts, fetcherArgs);
+		setTitle(publication, europepmcResult, type, "result > title", null, location, parts, fetcherArgs);
 
-		setKeywords(publication, europepmcResult, type, "keyword", doc.location(), false, parts, fetcherArgs);
+		setKeywords(publication, europepmcResult, type, "keyword", location, false, parts, fetcherArgs);
 
 		if (parts == null || (parts.get(PublicationPartName.mesh) != null && parts.get(PublicationPartName.mesh))) {
 			if (!publication.getMeshTerms().isFinal(fetcherArgs)) {
@@ -1782,27 +2426,27 @@ public class Fetcher implements AutoCloseable {
 					if (majorTopic_YN != null) {
 						meshTerm.setMajorTopic(majorTopic_YN.text().equalsIgnoreCase("Y"));
 					} else {
-						logger.warn("Tag majorTopic_YN not found in {}", doc.location());
+						logger.warn("Tag majorTopic_YN not found in {}", location);
 					}
 
 					Element descriptorName = meshHeading.getElementsByTag("descriptorName").first();
 					if (descriptorName != null) {
 						String descriptorNameText = descriptorName.text();
 						if (descriptorNameText.isEmpty()) {
-							logger.warn("Tag descriptorName has no content in {}", doc.location());
+							logger.warn("Tag descriptorName has no content in {}", location);
 						}
 						meshTerm.setTerm(descriptorNameText);
 					} else {
-						logger.warn("Tag descriptorName not found in {}", doc.location());
+						logger.warn("Tag descriptorName not found in {}", location);
 					}
 
 					meshTerms.add(meshTerm);
 				}
-				publication.setMeshTerms(meshTerms, type, doc.location(), fetcherArgs);
+				publication.setMeshTerms(meshTerms, type, location, fetcherArgs);
 			}
 		}
 
-		setAbstract(publication, europepmcResult, type, "abstractText", doc.location(), parts, fetcherArgs);
+		setAbstract(publication, europepmcResult, type, "abstractText", location, parts, fetcherArgs);
 
 		Element isOpen = europepmcResult.getElementsByTag("isOpenAccess").first();
 		if (isOpen != null && isOpen.text().equalsIgnoreCase("Y")) {
@@ -1815,13 +2459,13 @@ public class Fetcher implements AutoCloseable {
 			publication.setPreprint(true);
 		}
 
-		setJournalTitle(publication, europepmcResult, "journalInfo > journal > title", doc.location());
+		setJournalTitle(publication, europepmcResult, "journalInfo > journal > title", location);
 
 		// "The date of first publication, whichever is first, electronic or print publication. Where a date is not fully available e.g. year only, an algorithm is applied to determine the value"
-		setPubDate(publication, europepmcResult, "firstPublicationDate", doc.location(), false);
+		setPubDate(publication, europepmcResult, "firstPublicationDate", location, false);
 
 		// "A count that indicates the number of times an article has been cited by other articles in our databases."
-		setCitationsCount(publication, europepmcResult, "citedByCount", doc.location());
+		setCitationsCount(publication, europepmcResult, "citedByCount", location);
 
 		setCorrespAuthor(publication, europepmcResult, true);
 
@@ -1849,19 +2493,28 @@ public class Fetcher implements AutoCloseable {
 			return false;
 		}
 
-		String europepmcUri = getEuropepmcUri(publication, state, fetcherArgs);
-		if (europepmcUri == null) return false;
+		Element europepmcResult;
+		String location;
+		Prefetched prefetched = takePrefetched(publication, state);
+		if (prefetched != null) {
+			europepmcResult = prefetched.result;
+			location = prefetched.location;
+		} else {
+			String europepmcUri = getEuropepmcUri(publication, state, fetcherArgs);
+			if (europepmcUri == null) return false;
 
-		Document doc = getDoc(europepmcUri, publication, fetcherArgs);
-		if (doc == null) return false;
+			Document doc = getDoc(europepmcUri, publication, fetcherArgs);
+			if (doc == null) return false;
 
-		Element europepmcResult = getEuropepmcResult(doc, publication, state);
-		if (europepmcResult == null) return false;
+			europepmcResult = getEuropepmcResult(doc, publication, state);
+			if (europepmcResult == null) return false;
+			location = doc.location();
+		}
 
 		state.europepmc = true;
 
 		// "A count that indicates the number of times an article has been cited by other articles in our databases."
-		return setCitationsCount(publication, europepmcResult, "citedByCount", doc.location());
+		return setCitationsCount(publication, europepmcResult, "citedByCount", location);
 	}
 
 	public boolean updateCitationsCount(Publication publication, FetcherArgs fetcherArgs) {
@@ -2005,7 +2658,7 @@ public class Fetcher implements AutoCloseable {
 		if (pmcid.isEmpty()) return;
 		state.europepmcFulltextXmlPmcid = true;
 
-		Document doc = getDoc(EUROPEPMC + pmcid + "/fullTextXML", publication, fetcherArgs);
+		Document doc = getDoc(getEuropepmcFulltextXmlUri(pmcid), publication, fetcherArgs);
 		if (doc != null) {
 			state.europepmcFulltextXml = fillWithPubMedCentralXml(publication, doc, PublicationPartType.europepmc_xml, parts, fetcherArgs);
 		}
@@ -2054,68 +2707,76 @@ public class Fetcher implements AutoCloseable {
 	}
 
 	private List<MinedTerm> getEuropepmcMinedTerms(String url, Publication publication, FetcherArgs fetcherArgs) {
-		Map<String, List<String>> minedTerms = new LinkedHashMap<>();
-
 		Document doc = getDoc(url, publication, fetcherArgs);
-
 		if (doc != null) {
-			Elements annotations = doc.getElementsByTag("annotation");
-			if (annotations.isEmpty()) {
-				logger.warn("No mined terms found in {}", doc.location());
-			}
-			for (Element annotation : annotations) {
-				String term = "";
-				Element termTag = annotation.getElementsByTag("exact").first();
-				if (termTag != null) {
-					term = termTag.text();
-					if (term.isEmpty()) {
-						logger.warn("Tag <exact> has no content in {}", doc.location());
-					}
-				} else {
-					logger.warn("Tag <exact> not found in {}", doc.location());
+			return getEuropepmcMinedTerms(doc.getElementsByTag("annotation"), doc.location());
+		} else {
+			return Collections.emptyList();
+		}
+	}
+
+	private static String getEuropepmcAnnotationsUri(String articleIds, String type) {
+		return EUROPEPMC_ANNOTATIONS + "articleIds=" + URLEncoder.encode(articleIds, StandardCharsets.UTF_8) + "&type=" + URLEncoder.encode(type, StandardCharsets.UTF_8).replace("+", "%20") + "&format=XML";
+	}
+
+	private static List<MinedTerm> getEuropepmcMinedTerms(Elements annotations, String location) {
+		Map<String, List<String>> minedTerms = new LinkedHashMap<>();
+
+		if (annotations.isEmpty()) {
+			logger.warn("No mined terms found in {}", location);
+		}
+		for (Element annotation : annotations) {
+			String term = "";
+			Element termTag = annotation.getElementsByTag("exact").first();
+			if (termTag != null) {
+				term = termTag.text();
+				if (term.isEmpty()) {
+					logger.warn("Tag <exact> has no content in {}", location);
 				}
+			} else {
+				logger.warn("Tag <exact> not found in {}", location);
+			}
 
-				int count = 1;
-				Element countTag = annotation.getElementsByTag("frequency").first();
-				if (countTag != null) {
-					try {
-						count = Integer.parseInt(countTag.text());
-						if (count < 1) {
-							logger.warn("Tag <frequency> has value less than 1 in {}", doc.location());
-						}
-					} catch (NumberFormatException e) {
-						logger.warn("Tag <frequency> does not contain an integer in {}", doc.location());
+			int count = 1;
+			Element countTag = annotation.getElementsByTag("frequency").first();
+			if (countTag != null) {
+				try {
+					count = Integer.parseInt(countTag.text());
+					if (count < 1) {
+						logger.warn("Tag <frequency> has value less than 1 in {}", location);
 					}
+				} catch (NumberFormatException e) {
+					logger.warn("Tag <frequency> does not contain an integer in {}", location);
 				}
+			}
 
-				String uri = "";
-				Element tags = annotation.getElementsByTag("tags").first();
-				if (tags != null) {
-					Element tag = annotation.getElementsByTag("tag").first();
-					if (tag != null) {
-						Element uriTag = annotation.getElementsByTag("uri").first();
-						if (uriTag != null) {
-							uri = uriTag.text();
-							if (uri.isEmpty()) {
-								logger.warn("Tag <uri> has no content in {}", doc.location());
-							}
-						} else {
-							logger.warn("Tag <uri> not found in {}", doc.location());
+			String uri = "";
+			Element tags = annotation.getElementsByTag("tags").first();
+			if (tags != null) {
+				Element tag = annotation.getElementsByTag("tag").first();
+				if (tag != null) {
+					Element uriTag = annotation.getElementsByTag("uri").first();
+					if (uriTag != null) {
+						uri = uriTag.text();
+						if (uri.isEmpty()) {
+							logger.warn("Tag <uri> has no content in {}", location);
 						}
 					} else {
-						logger.warn("Tag <uri> not found in {}", doc.location());
+						logger.warn("Tag <uri> not found in {}", location);
 					}
 				} else {
-					logger.warn("Tag <uri> not found in {}", doc.location());
+					logger.warn("Tag <uri> not found in {}", location);
 				}
+			} else {
+				logger.warn("Tag <uri> not found in {}", location);
+			}
 
-				if (!term.isEmpty() && count > 0 && !uri.isEmpty()) {
-					if (minedTerms.get(uri) == null) {
-						minedTerms.put(uri, new ArrayList<>());
-					}
-					for (int i = 0; i < count; ++i) {
-						minedTerms.get(uri).add(term);
-					}
+			if (!term.isEmpty() && count > 0 && !uri.isEmpty()) {
+				if (minedTerms.get(uri) == null) {
+					minedTerms.put(uri, new ArrayList<>());
+				}
+				for (int i = 0; i < count; ++i) {
+					minedTerms.get(uri).add(term);
 				}
 			}
 		}
@@ -2141,19 +2802,25 @@ public class Fetcher implements AutoCloseable {
 
 		if (isFinal(publication, new PublicationPartName[] { PublicationPartName.efo }, parts, false, fetcherArgs)) return;
 
-		String articleIds = null;
+		String articleId = null;
 		if (!publication.getPmcid().isEmpty() && !state.europepmcMinedTermsEfoPmcid) {
-			articleIds = "articleIds=PMC%3A" + publication.getPmcid().getContent();
+			articleId = "PMC:" + publication.getPmcid().getContent();
 			state.europepmcMinedTermsEfoPmcid = true;
 		} else if (!publication.getPmid().isEmpty() && !state.europepmcMinedTermsEfoPmid) {
-			articleIds = "articleIds=MED%3A" + publication.getPmid().getContent();
+			articleId = "MED:" + publication.getPmid().getContent();
 			state.europepmcMinedTermsEfoPmid = true;
 		} else {
 			return;
 		}
 
-		String efo = EUROPEPMC_ANNOTATIONS + articleIds + "&type=Experimental%20Methods&format=XML";
-		List<MinedTerm> efoTerms = getEuropepmcMinedTerms(efo, publication, fetcherArgs);
+		String efo = getEuropepmcAnnotationsUri(articleId, ANNOTATIONS_EFO);
+		List<MinedTerm> efoTerms;
+		Prefetched prefetched = takePrefetched(ANNOTATIONS_EFO + ":" + articleId);
+		if (prefetched != null) {
+			efoTerms = getEuropepmcMinedTerms(prefetched.result.getElementsByTag("annotation"), efo);
+		} else {
+			efoTerms = getEuropepmcMinedTerms(efo, publication, fetcherArgs);
+		}
 		if (!efoTerms.isEmpty()) {
 			state.europepmcMinedTermsEfo = true;
 			publication.setEfoTerms(efoTerms, PublicationPartType.europepmc, efo, fetcherArgs);
@@ -2166,19 +2833,25 @@ public class Fetcher implements AutoCloseable {
 
 		if (isFinal(publication, new PublicationPartName[] { PublicationPartName.go }, parts, false, fetcherArgs)) return;
 
-		String articleIds = null;
+		String articleId = null;
 		if (!publication.getPmcid().isEmpty() && !state.europepmcMinedTermsGoPmcid) {
-			articleIds = "articleIds=PMC%3A" + publication.getPmcid().getContent();
+			articleId = "PMC:" + publication.getPmcid().getContent();
 			state.europepmcMinedTermsGoPmcid = true;
 		} else if (!publication.getPmid().isEmpty() && !state.europepmcMinedTermsGoPmid) {
-			articleIds = "articleIds=MED%3A" + publication.getPmid().getContent();
+			articleId = "MED:" + publication.getPmid().getContent();
 			state.europepmcMinedTermsGoPmid = true;
 		} else {
 			return;
 		}
 
-		String go = EUROPEPMC_ANNOTATIONS + articleIds + "&type=Gene%20Ontology&format=XML";
-		List<MinedTerm> goTerms = getEuropepmcMinedTerms(go, publication, fetcherArgs);
+		String go = getEuropepmcAnnotationsUri(articleId, ANNOTATIONS_GO);
+		List<MinedTerm> goTerms;
+		Prefetched prefetched = takePrefetched(ANNOTATIONS_GO + ":" + articleId);
+		if (prefetched != null) {
+			goTerms = getEuropepmcMinedTerms(prefetched.result.getElementsByTag("annotation"), go);
+		} else {
+			goTerms = getEuropepmcMinedTerms(go, publication, fetcherArgs);
+		}
 		if (!goTerms.isEmpty()) {
 			state.europepmcMinedTermsGo = true;
 			publication.setGoTerms(goTerms, PublicationPartType.europepmc, go, fetcherArgs);
@@ -2200,7 +2873,19 @@ public class Fetcher implements AutoCloseable {
 
 		PublicationPartType type = PublicationPartType.pubmed_xml;
 
-		Document doc = getDoc(EUTILS + "efetch.fcgi?retmode=xml&db=pubmed&id=" + pmid, publication, fetcherArgs);
+		String url = getEutilsUri("pubmed", pmid);
+		Document doc;
+		Prefetched prefetched = takePrefetched("pubmed:" + pmid);
+		if (prefetched != null) {
+			doc = (Document) prefetched.result;
+			// only set if the batch response was complete
+			if (doc == null) {
+				logger.error("No article found in {}", url);
+				return;
+			}
+		} else {
+			doc = getEutilsDoc(url, publication, fetcherArgs);
+		}
 		if (doc != null) {
 			if (doc.getElementsByTag("PubmedArticle").first() == null) {
 				logger.error("No article found in {}", doc.location());
@@ -2334,7 +3019,19 @@ public class Fetcher implements AutoCloseable {
 		if (pmcid.isEmpty()) return;
 		state.pmcXmlPmcid = true;
 
-		Document doc = getDoc(EUTILS + "efetch.fcgi?retmode=xml&db=pmc&id=" + PubFetcher.extractPmcid(pmcid), publication, fetcherArgs);
+		String url = getEutilsUri("pmc", pmcid);
+		Document doc;
+		Prefetched prefetched = takePrefetched("pmc:" + pmcid);
+		if (prefetched != null) {
+			doc = (Document) prefetched.result;
+			// only set if the batch response was complete
+			if (doc == null) {
+				logger.error("No article found in {}", url);
+				return;
+			}
+		} else {
+			doc = getEutilsDoc(url, publication, fetcherArgs);
+		}
 		if (doc != null) {
 			state.pmcXml = fillWithPubMedCentralXml(publication, doc, PublicationPartType.pmc_xml, parts, fetcherArgs);
 			if (state.pmcXml) {
@@ -2604,23 +3301,37 @@ public class Fetcher implements AutoCloseable {
 		if (doi.isEmpty()) return;
 		state.oadoi = true;
 
-		String host = "api.unpaywall.org";
-		ActiveHost activeHost = activateHost(host);
-		if (Thread.currentThread().isInterrupted()) return;
+		String host = OADOI_HOST;
+		String oaDOI;
+		try {
+			oaDOI = getOaDoiUri(doi, fetcherArgs);
+		} catch (URISyntaxException e) {
+			logger.error(e);
+			return;
+		}
+		ActiveHost activeHost = null;
+		if (!isCached(oaDOI, Method.GET, null, false, fetcherArgs)) {
+			activeHost = activateHost(host, fetcherArgs);
+			if (Thread.currentThread().isInterrupted()) return;
+		}
 
 		try {
-			URLConnection con;
+			URLConnection con = null;
+			HttpEngine.Response res = null;
 			try {
-				String oaDOI = new URI("https", host, "/v2/" + doi, "email=" + fetcherArgs.getPrivateArgs().getOadoiEmail(), null).toASCIIString();
 				logger.info("    GET oaDOI {}", oaDOI);
-				con = PubFetcher.newConnection(oaDOI, fetcherArgs.getTimeout(), fetcherArgs.getPrivateArgs().getUserAgent());
-			} catch (URISyntaxException | IOException e) {
+				if (isHttpEngine(oaDOI, fetcherArgs)) {
+					res = engineGet(oaDOI, fetcherArgs);
+				} else {
+					con = newConnection(oaDOI, fetcherArgs);
+				}
+			} catch (IOException e) {
 				logger.error(e);
 				return;
 			}
 
-			try (InputStreamReader reader = new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8)) {
-				String finalUrl = con.getURL().toString();
+			try (InputStreamReader reader = new InputStreamReader(res != null ? HttpEngine.checkStatus(res).getBodyStream() : con.getInputStream(), StandardCharsets.UTF_8)) {
+				String finalUrl = (res != null ? res.getFinalUrl() : con.getURL().toString());
 				logger.info("    GOT oaDOI {}", finalUrl);
 
 				ObjectMapper mapper = new ObjectMapper();
@@ -2699,14 +3410,196 @@ public class Fetcher implements AutoCloseable {
 				setFetchException(null, publication, null);
 			}
 		} finally {
-			if (activeHost != null) {
-				synchronized(activeHosts) {
-					activeHost.decrement();
-					if (activeHost.getCount() <= 0) {
-						activeHosts.remove(activeHost);
-					}
-					activeHosts.notifyAll();
+			hostLimiter.release(activeHost);
+		}
+	}
+
+	private ExecutorService getSourcesExecutor() {
+		synchronized(this) {
+			if (sourcesExecutor == null) {
+				sourcesExecutor = Executors.newCachedThreadPool(r -> {
+					Thread t = new Thread(r, "sources");
+					t.setDaemon(true);
+					return t;
+				});
+			}
+			return sourcesExecutor;
+		}
+	}
+
+	private boolean hasPrefetched(String key) {
+		synchronized(prefetchedResults) {
+			return prefetchedResults.containsKey(key);
+		}
+	}
+
+	// same ID as chosen by fetchEuropepmcMinedTermsEfo and fetchEuropepmcMinedTermsGo
+	private static String getMinedTermsArticleId(Publication publication, boolean pmcidDone, boolean pmidDone) {
+		if (!publication.getPmcid().isEmpty() && !pmcidDone) {
+			return "PMC:" + publication.getPmcid().getContent();
+		} else if (!publication.getPmid().isEmpty() && !pmidDone) {
+			return "MED:" + publication.getPmid().getContent();
+		}
+		return null;
+	}
+
+	// Makes a GET request in a thread of the sources executor, for its response to be used later by engineSend in the current thread.
+	// Returns the key of the request in sourcesRequested, or null if the request has already been made. Cancelling the request also interrupts it, if it is waiting for the host or for the response.
+	private String requestAhead(String url, HttpEngine.Body body, FetcherArgs fetcherArgs) {
+		Map<String, CompletableFuture<HttpEngine.Response>> requested = sourcesRequested.get();
+		String key = requestKey(url, Method.GET);
+		if (requested.containsKey(key)) return null;
+		logger.info("    GET {} (concurrently)", url);
+		CompletableFuture<HttpEngine.Response> response = new CompletableFuture<>();
+		Future<?> task = getSourcesExecutor().submit(() -> {
+			ActiveHost activeHost = null;
+			try {
+				if (!isCached(url, Method.GET, null, false, fetcherArgs)) {
+					activeHost = activateHost(getHost(url), fetcherArgs);
+				}
+				if (!Thread.currentThread().isInterrupted()) {
+					response.complete(engineSend(url, Method.GET, null, body, fetcherArgs));
 				}
+			} catch (IOException | RuntimeException e) {
+				response.completeExceptionally(e);
+			} finally {
+				hostLimiter.release(activeHost);
+				if (!response.isDone()) {
+					response.completeExceptionally(new InterruptedIOException("Interrupted while requesting " + url));
+				}
+			}
+		});
+		response.whenComplete((res, e) -> {
+			if (response.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+		requested.put(key, response);
+		return key;
+	}
+
+	// Cancels the given requests made by requestAhead whose responses have not been used.
+	private void cancelRequested(Collection<String> keys) {
+		Map<String, CompletableFuture<HttpEngine.Response>> requested = sourcesRequested.get();
+		int cancelled = 0;
+		for (String key : keys) {
+			CompletableFuture<HttpEngine.Response> future = requested.remove(key);
+			if (future != null) {
+				future.cancel(true);
+				++cancelled;
+			}
+		}
+		if (cancelled > 0) {
+			logger.info("    Responses of {} concurrent requests not needed", cancelled);
+		}
+	}
+
+	// Requests the resources that the sources following the Europe PMC search in fetchAll would get, concurrently and with the same checks as these sources (except that the sources before them are not done yet).
+	// The responses are used by the sources, which are still processed one after another in the usual order, so that the content set to the publication does not depend on the order the responses arrive in.
+	private List<String> requestSources(Publication publication, FetcherPublicationState state, EnumMap<PublicationPartName, Boolean> parts, FetcherArgs fetcherArgs) {
+		List<String> urls = new ArrayList<>();
+
+		String pmid = publication.getPmid().getContent();
+		String pmcid = publication.getPmcid().getContent();
+		String doi = publication.getDoi().getContent();
+
+		if (!state.europepmcFulltextXmlPmcid && state.europepmcHasFulltextXML && !pmcid.isEmpty()
+			&& !isFinal(publication, new PublicationPartName[] {
+				PublicationPartName.pmid, PublicationPartName.doi,
+				PublicationPartName.title, PublicationPartName.keywords, PublicationPartName.theAbstract, PublicationPartName.fulltext
+			}, parts, false, fetcherArgs)) {
+			urls.add(getEuropepmcFulltextXmlUri(pmcid));
+		}
+
+		if (!state.europepmcMinedTermsEfo && state.europepmcHasMinedTerms
+			&& !isFinal(publication, new PublicationPartName[] { PublicationPartName.efo }, parts, false, fetcherArgs)) {
+			String articleId = getMinedTermsArticleId(publication, state.europepmcMinedTermsEfoPmcid, state.europepmcMinedTermsEfoPmid);
+			if (articleId != null && !hasPrefetched(ANNOTATIONS_EFO + ":" + articleId)) {
+				urls.add(getEuropepmcAnnotationsUri(articleId, ANNOTATIONS_EFO));
+			}
+		}
+		if (!state.europepmcMinedTermsGo && state.europepmcHasMinedTerms
+			&& !isFinal(publication, new PublicationPartName[] { PublicationPartName.go }, parts, false, fetcherArgs)) {
+			String articleId = getMinedTermsArticleId(publication, state.europepmcMinedTermsGoPmcid, state.europepmcMinedTermsGoPmid);
+			if (articleId != null && !hasPrefetched(ANNOTATIONS_GO + ":" + articleId)) {
+				urls.add(getEuropepmcAnnotationsUri(articleId, ANNOTATIONS_GO));
+			}
+		}
+
+		if (!state.pubmedXmlPmid && !pmid.isEmpty() && !hasPrefetched("pubmed:" + pmid)
+			&& !isFinal(publication, new PublicationPartName[] {
+				PublicationPartName.pmid, PublicationPartName.pmcid, PublicationPartName.doi,
+				PublicationPartName.title, PublicationPartName.mesh, PublicationPartName.theAbstract
+			}, parts, false, fetcherArgs)) {
+			urls.add(getEutilsUri("pubmed", pmid) + ncbiApiKey(fetcherArgs));
+		}
+
+		if (!state.pmcXmlPmcid && !pmcid.isEmpty() && !hasPrefetched("pmc:" + pmcid)
+			&& !isFinal(publication, new PublicationPartName[] {
+				PublicationPartName.pmid, PublicationPartName.pmcid, PublicationPartName.doi,
+				PublicationPartName.title, PublicationPartName.keywords, PublicationPartName.theAbstract, PublicationPartName.fulltext
+			}, parts, false, fetcherArgs)) {
+			urls.add(getEutilsUri("pmc", pmcid) + ncbiApiKey(fetcherArgs));
+		}
+
+		if (!state.oadoi && !doi.isEmpty()
+			&& !(isFinal(publication, new PublicationPartName[] {
+				PublicationPartName.title, PublicationPartName.theAbstract, PublicationPartName.fulltext
+			}, parts, true, fetcherArgs)
+			&& (isFinal(publication, new PublicationPartName[] {
+				PublicationPartName.pmid, PublicationPartName.pmcid, PublicationPartName.doi,
+			}, parts, true, fetcherArgs) || !idOnly(parts)))) {
+			try {
+				urls.add(getOaDoiUri(doi, fetcherArgs));
+			} catch (URISyntaxException e) {
+				logger.error(e);
+			}
+		}
+
+		List<String> keys = new ArrayList<>();
+		for (String url : urls) {
+			String key = requestAhead(url, HttpEngine.Body.WHOLE, fetcherArgs);
+			if (key != null) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+	// Requests the best links not tried yet concurrently, so that up to max requests of links are in progress, each to a different host.
+	// Links that will be fetched with JavaScript and PDF links are skipped. Requests of links that can't improve the publication anymore are cancelled.
+	// The responses are used when the links are popped and fetched one after another in the usual order, thus the result does not depend on the order the responses arrive in.
+	private void requestLinks(Publication publication, Links links, Map<String, Link> requestedLinks, int max, FetcherArgs fetcherArgs) {
+		Map<String, CompletableFuture<HttpEngine.Response>> requested = sourcesRequested.get();
+		PublicationPartType lowestType = publication.getLowestType();
+
+		Set<String> hosts = new HashSet<>();
+		for (Iterator<Map.Entry<String, Link>> it = requestedLinks.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<String, Link> requestedLink = it.next();
+			Link link = requestedLink.getValue();
+			if (!requested.containsKey(requestedLink.getKey())) {
+				it.remove();
+			} else if (!link.getType().isBetterThan(lowestType)) {
+				cancelRequested(Collections.singletonList(requestedLink.getKey()));
+				it.remove();
+			} else {
+				hosts.add(getHost(link.getUrl().toString()));
+			}
+		}
+
+		for (Link link : links.getLinks()) {
+			if (requestedLinks.size() >= max) break;
+			// links are ordered by type
+			if (!link.getType().isBetterThan(lowestType)) break;
+			if (links.isTried(link)) continue;
+			String url = link.getUrl().toString();
+			// PDFs are streamed when got, thus not received beforehand
+			if (link.getType().isPdf() || scrape.getJavascript(url)) continue;
+			if (!hosts.add(getHost(url))) continue;
+			// the body of a link turning out to be a PDF is not received, but the PDF is got when the link is fetched
+			String key = requestAhead(url, HttpEngine.Body.DOCUMENT, fetcherArgs);
+			if (key != null) {
+				requestedLinks.put(key, link);
 			}
 		}
 	}
@@ -2722,6 +3615,12 @@ public class Fetcher implements AutoCloseable {
 		fetchEuropepmc(publication, state, parts, fetcherArgs);
 		fetchEuropepmc(publication, state, parts, fetcherArgs);
 		fetchEuropepmc(publication, state, parts, fetcherArgs);
+
+		List<String> requestedSources = Collections.emptyList();
+		if (fetcherArgs.getPrivateArgs().isConcurrentSources()) {
+			requestedSources = requestSources(publication, state, parts, fetcherArgs);
+		}
+
 		fetchEuropepmcFulltextXml(publication, state, parts, fetcherArgs);
 
 		// https://europepmc.org/developers
@@ -2750,6 +3649,8 @@ public class Fetcher implements AutoCloseable {
 			fetchPmcHtml(publication, links, state, parts, true, fetcherArgs);
 		}
 
+		cancelRequested(requestedSources);
+
 		if (!pmid.isEmpty() && !publication.getPmid().isEmpty() && !pmid.equals(publication.getPmid().getContent())) {
 			logger.error("PMID changed from {} to {}", pmid, publication.getPmid().getContent());
 			return false;
@@ -2788,6 +3689,8 @@ public class Fetcher implements AutoCloseable {
 		if (goon) {
 			logger.info("Fetch links {}", publication.toStringId());
 		}
+		int concurrentLinks = fetcherArgs.getPrivateArgs().getConcurrentLinks();
+		Map<String, Link> requestedLinks = new HashMap<>();
 		long start = System.currentTimeMillis();
 		for (int linksFetched = 0; linksFetched < LINKS_LIMIT && goon; ++linksFetched) {
 			if (fetcherArgs.isQuick() && System.currentTimeMillis() - start > fetcherArgs.getTimeout() * 3) {
@@ -2802,13 +3705,16 @@ public class Fetcher implements AutoCloseable {
 					PublicationPartName.pmid, PublicationPartName.pmcid, PublicationPartName.doi
 				}, parts, false, fetcherArgs) || !idOnly(parts))) break;
 
-			Link link = links.pop();
-			if (link == null) break;
-
-			if (!link.getType().isBetterThan(publication.getLowestType())) {
-				break;
+			if (concurrentLinks > 1) {
+				requestLinks(publication, links, requestedLinks, Math.min(concurrentLinks, LINKS_LIMIT - linksFetched), fetcherArgs);
 			}
 
+			// links are ordered by type, thus if the best one can't improve the publication then none can
+			PublicationPartType bestType = links.peekType();
+			if (bestType == null || !bestType.isBetterThan(publication.getLowestType())) break;
+
+			Link link = links.pop();
+
 			if (!link.getType().isPdf()) {
 				if (link.getType() != PublicationPartType.link_oadoi) {
 					fetchSite(publication, link.getUrl().toString(), link.getType(), link.getFrom(), links, parts, true, true, fetcherArgs);
@@ -2826,6 +3732,7 @@ public class Fetcher implements AutoCloseable {
 				goon = fetchAll(publication, links, state, parts, fetcherArgs);
 			}
 		}
+		cancelRequested(requestedLinks.keySet());
 
 		if (!goon) {
 			fetchPublication(publication, parts, true, fetcherArgs);
@@ -2970,15 +3877,37 @@ public class Fetcher implements AutoCloseable {
 				}
 			}
 
-			Document doc = getDoc(newWebpage, javascript != null && javascript.equals(Boolean.valueOf(true)), fetcherArgs);
+			// learned need of JavaScript, used only if not set by scraping rules
+			// only pages not redirected to another host are learned from, so hosts only redirecting elsewhere are never decided for
+			String javascriptHost = null;
+			Boolean javascriptLearned = null;
+			if (javascript == null && javascriptHosts != null) {
+				javascriptHost = getHost(newWebpage.getStartUrl());
+				javascriptLearned = javascriptHosts.isJavascript(javascriptHost);
+			}
+
+			Document doc = null;
+			if (javascriptLearned != null && javascriptLearned.booleanValue()) {
+				logger.info("Getting {} with JavaScript enabled as JavaScript has made the content longer for host {} before", newWebpage.getStartUrl(), javascriptHost);
+				doc = getDoc(newWebpage, true, fetcherArgs);
+				if (doc == null) {
+					logger.warn("Discarding failed JavaScript webpage");
+					newWebpage = new Webpage();
+					newWebpage.setStartUrl(webpage.getStartUrl());
+				}
+			}
+			if (doc == null) {
+				doc = getDoc(newWebpage, javascript != null && javascript.equals(Boolean.valueOf(true)), fetcherArgs);
+			}
 
-			if (doc != null && javascript == null) {
+			if (doc != null && javascript == null && (javascriptLearned == null || !javascriptLearned.booleanValue())) {
 				boolean finalJavascript = !yaml;
 				if (!finalJavascript) {
 					Map<String, String> finalWebpage = scrape.getWebpage(newWebpage.getFinalUrl());
 					finalJavascript = finalWebpage == null || finalWebpage.get(ScrapeWebpageKey.javascript.toString()) != null && Boolean.valueOf(finalWebpage.get(ScrapeWebpageKey.javascript.toString()));
 				}
 				if (finalJavascript) {
+					boolean javascriptHostFinal = javascriptHost != null && javascriptHost.equals(getHost(newWebpage.getFinalUrl()));
 					int textLength = doc.text().length();
 					if (textLength < fetcherArgs.getWebpageMinLengthJavascript() || !doc.select("noscript").isEmpty()) {
 						String reason = null;
@@ -2987,21 +3916,29 @@ public class Fetcher implements AutoCloseable {
 						} else {
 							reason = "webpage contains noscript tag";
 						}
-						logger.info("Refetching {} with JavaScript enabled as {}", newWebpage.getStartUrl(), reason);
-						Webpage newWebpageJavascript = new Webpage();
-						newWebpageJavascript.setStartUrl(newWebpage.getStartUrl());
-						Document docJavascript = getDoc(newWebpageJavascript, true, fetcherArgs);
-						if (docJavascript != null) {
-							doc = docJavascript;
-							newWebpage = newWebpageJavascript;
-							int textLengthAfter = doc.text().length();
-							if (textLength != textLengthAfter) {
-								logger.info("Content length changed from {} to {}", textLength, textLengthAfter);
+						if (javascriptLearned != null && javascriptHostFinal) {
+							logger.info("Not refetching {} with JavaScript enabled as {}, as JavaScript has not made the content longer for host {} before", newWebpage.getStartUrl(), reason, javascriptHost);
+						} else {
+							logger.info("Refetching {} with JavaScript enabled as {}", newWebpage.getStartUrl(), reason);
+							Webpage newWebpageJavascript = new Webpage();
+							newWebpageJavascript.setStartUrl(newWebpage.getStartUrl());
+							Document docJavascript = getDoc(newWebpageJavascript, true, fetcherArgs);
+							if (docJavascript != null) {
+								if (javascriptHostFinal) {
+									// HtmlUnit adds whitespace when serializing the page, which should not count
+									javascriptHosts.update(javascriptHost, WHITESPACE.matcher(docJavascript.text()).replaceAll("").length() > WHITESPACE.matcher(doc.text()).replaceAll("").length());
+								}
+								doc = docJavascript;
+								newWebpage = newWebpageJavascript;
+								int textLengthAfter = doc.text().length();
+								if (textLength != textLengthAfter) {
+									logger.info("Content length changed from {} to {}", textLength, textLengthAfter);
+								} else {
+									logger.info("Content length did not change with JavaScript");
+								}
 							} else {
-								logger.info("Content length did not change with JavaScript");
+								logger.warn("Discarding failed JavaScript webpage");
 							}
-						} else {
-							logger.warn("Discarding failed JavaScript webpage");
 						}
 					}
 				}
@@ -4,17 +4,31 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 
 import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.pubfetcher.core.common.PubFetcher;
@@ -471,6 +485,188 @@ public final class FetcherTest {
 		else logger.error("There were {} mismatches!", mismatch);
 	}
 
+	private static HttpServer startServer() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.start();
+		return server;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, status == 304 ? -1 : bytes.length);
+		if (status != 304) {
+			exchange.getResponseBody().write(bytes);
+		}
+		exchange.close();
+	}
+
+	private static void deleteDirectory(Path dir) throws IOException {
+		try (Stream<Path> walk = Files.walk(dir)) {
+			for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	// a stale response in the HTTP cache got through a redirect is revalidated with a conditional request to the URL redirected to
+	private static void testHttpCache(FetcherArgs fetcherArgs) throws IOException {
+		int mismatch = 0;
+		String etag = "\"pubfetcher-test\"";
+		String html = "<html><head><title>Test</title></head><body>Cached through redirect</body></html>";
+		AtomicInteger got = new AtomicInteger();
+		AtomicInteger notModified = new AtomicInteger();
+		HttpServer server = startServer();
+		server.createContext("/redirect", exchange -> {
+			exchange.getResponseHeaders().set("Location", "/page");
+			respond(exchange, 301, "");
+		});
+		server.createContext("/page", exchange -> {
+			exchange.getResponseHeaders().set("ETag", etag);
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				respond(exchange, 304, "");
+			} else {
+				got.incrementAndGet();
+				respond(exchange, 200, html);
+			}
+		});
+		String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/redirect";
+		Path dir = Files.createTempDirectory("pubfetcher-test-http-cache");
+		try {
+			FetcherArgs cacheArgs = new FetcherArgs(fetcherArgs.getRetryLimit(), fetcherArgs.getTimeout(), fetcherArgs.isQuick());
+			cacheArgs.getPrivateArgs().setSelenium(false);
+			cacheArgs.getPrivateArgs().setHttpCache(dir.toString());
+
+			logger.info("Test getting {} into HTTP cache", url);
+			String first;
+			try (Fetcher fetcher = new Fetcher(cacheArgs.getPrivateArgs())) {
+				Document doc = fetcher.getDoc(url, false, cacheArgs);
+				first = (doc != null ? doc.text() : "");
+			}
+			mismatch += equal("1", got.get(), "full responses");
+
+			// make the cached response stale for a cache opened anew
+			try (Stream<Path> walk = Files.walk(dir)) {
+				for (Path path : walk.filter(Files::isRegularFile).collect(Collectors.toList())) {
+					Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+				}
+			}
+
+			logger.info("Test revalidating {} in HTTP cache", url);
+			String second;
+			try (Fetcher fetcher = new Fetcher(cacheArgs.getPrivateArgs())) {
+				Document doc = fetcher.getDoc(url, false, cacheArgs);
+				second = (doc != null ? doc.text() : "");
+			}
+			mismatch += equal("1", got.get(), "full responses");
+			mismatch += equal("1", notModified.get(), "not modified responses");
+			mismatch += equal(first, second, "revalidated content");
+			mismatch += equal(Jsoup.parse(html).text(), second, "content");
+		} catch (ParseException e) {
+			logger.error(e);
+			++mismatch;
+		} finally {
+			server.stop(0);
+			deleteDirectory(dir);
+		}
+		if (mismatch == 0) logger.info("OK");
+		else logger.error("There were {} mismatches!", mismatch);
+	}
+
+	private static int javascriptHostsDecisions(JavascriptHosts javascriptHosts, String host, Boolean decision) {
+		int mismatch = 0;
+		int decided = 0;
+		int rechecked = 0;
+		for (int i = 0; i < JavascriptHosts.RECHECK; ++i) {
+			Boolean javascript = javascriptHosts.isJavascript(host);
+			if (javascript == null) {
+				++rechecked;
+			} else if (javascript.equals(decision)) {
+				++decided;
+			} else {
+				logger.error("JavaScript for {} must be {}, actually is {}", host, decision, javascript);
+				++mismatch;
+			}
+		}
+		if (decision != null) {
+			mismatch += equal(String.valueOf(JavascriptHosts.RECHECK - 1), decided, "decided pages of " + host);
+			mismatch += equal("1", rechecked, "rechecked pages of " + host);
+		} else {
+			mismatch += equal(String.valueOf(JavascriptHosts.RECHECK), rechecked, "undecided pages of " + host);
+		}
+		return mismatch;
+	}
+
+	// learned need of JavaScript is decided at 90% and 10% of refetches made longer, survives saving and loading, and is not learned from webpages redirected to another host
+	private static void testJavascriptHosts(FetcherArgs fetcherArgs) throws IOException {
+		int mismatch = 0;
+		Path dir = Files.createTempDirectory("pubfetcher-test-javascript-hosts");
+		HttpServer server = null;
+		try {
+			Path file = dir.resolve("javascript-hosts.tsv");
+			FetcherArgs hostsArgs = new FetcherArgs(fetcherArgs.getRetryLimit(), fetcherArgs.getTimeout(), fetcherArgs.isQuick());
+			hostsArgs.getPrivateArgs().setSelenium(false);
+			hostsArgs.getPrivateArgs().setJavascriptHosts(file.toString());
+			hostsArgs.getPrivateArgs().setJavascriptHostsMin(10);
+
+			logger.info("Test thresholds of JavaScript hosts");
+			JavascriptHosts javascriptHosts = new JavascriptHosts(hostsArgs.getPrivateArgs());
+			int[][] counts = { { 9, 1 }, { 1, 9 }, { 8, 2 }, { 2, 8 }, { 9, 0 } };
+			Boolean[] decisions = { true, false, null, null, null };
+			for (int i = 0; i < counts.length; ++i) {
+				for (int j = 0; j < counts[i][0]; ++j) javascriptHosts.update("host" + i, true);
+				for (int j = 0; j < counts[i][1]; ++j) javascriptHosts.update("host" + i, false);
+			}
+			for (int i = 0; i < counts.length; ++i) {
+				mismatch += javascriptHostsDecisions(javascriptHosts, "host" + i, decisions[i]);
+			}
+			mismatch += javascriptHostsDecisions(javascriptHosts, "host" + counts.length, null);
+
+			logger.info("Test saving and loading JavaScript hosts");
+			javascriptHosts.save();
+			JavascriptHosts javascriptHostsLoaded = new JavascriptHosts(hostsArgs.getPrivateArgs());
+			for (int i = 0; i < counts.length; ++i) {
+				mismatch += javascriptHostsDecisions(javascriptHostsLoaded, "host" + i, decisions[i]);
+			}
+			String saved = String.join("\n", Files.readAllLines(file, StandardCharsets.UTF_8));
+			javascriptHostsLoaded.update("host0", true);
+			javascriptHostsLoaded.save();
+			mismatch += equal(saved.replace("host0\t9\t1", "host0\t10\t1"), String.join("\n", Files.readAllLines(file, StandardCharsets.UTF_8)), "saved counts");
+
+			// a short page made longer by JavaScript, got directly and through a redirect to another host
+			String html = "<html><head><title>Test</title></head><body><p id=\"content\"></p><script>document.getElementById('content').textContent = 'Content written by JavaScript';</script></body></html>";
+			server = startServer();
+			int port = server.getAddress().getPort();
+			server.createContext("/redirect", exchange -> {
+				exchange.getResponseHeaders().set("Location", "http://localhost:" + port + "/page");
+				respond(exchange, 301, "");
+			});
+			server.createContext("/page", exchange -> {
+				exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+				respond(exchange, 200, html);
+			});
+			Files.delete(file);
+			try (Fetcher fetcher = new Fetcher(hostsArgs.getPrivateArgs())) {
+				for (String url : new String[] { "http://127.0.0.1:" + port + "/page", "http://127.0.0.1:" + port + "/redirect" }) {
+					logger.info("Test learning JavaScript need from {}", url);
+					Webpage webpage = fetcher.initWebpage(url);
+					fetcher.getWebpage(webpage, hostsArgs);
+					mismatch += equal("Content written by JavaScript", webpage.getContent(), "content of " + url);
+				}
+			}
+			mismatch += equal("# host\tlonger\tnotLonger\n127.0.0.1\t1\t0", String.join("\n", Files.readAllLines(file, StandardCharsets.UTF_8)), "learned counts");
+		} catch (ParseException e) {
+			logger.error(e);
+			++mismatch;
+		} finally {
+			if (server != null) server.stop(0);
+			deleteDirectory(dir);
+		}
+		if (mismatch == 0) logger.info("OK");
+		else logger.error("There were {} mismatches!", mismatch);
+	}
+
 	public static void run(FetcherTestArgs args, Fetcher fetcher, FetcherArgs fetcherArgs, EnumMap<PublicationPartName, Boolean> parts, String pubIdSource) throws IOException, ReflectiveOperationException {
 		PUB_ID_SOURCE = pubIdSource;
 
@@ -508,5 +704,8 @@ public final class FetcherTest {
 		if (args.printWebpage != null) printWebpage(args.printWebpage, fetcher, fetcherArgs);
 		if (args.testWebpage) testWebpage(fetcher, fetcherArgs, null);
 		if (args.testWebpageRegex != null) testWebpage(fetcher, fetcherArgs, args.testWebpageRegex);
+
+		if (args.testHttpCache) testHttpCache(fetcherArgs);
+		if (args.testJavascriptHosts) testJavascriptHosts(fetcherArgs);
 	}
 }
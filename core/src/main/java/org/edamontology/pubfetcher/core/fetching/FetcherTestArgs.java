@@ -75,4 +75,10 @@ public class FetcherTestArgs {
 
 	@Parameter(names = { "-test-webpage-regex" }, description = "From all tests written for the built-in rules webpages.yaml (from webpages.csv), run only those whose URL has a match with the given regular expression")
 	String testWebpageRegex = null;
+
+	@Parameter(names = { "-test-http-cache" }, description = "Test with a local server that a stale response in the HTTP cache got through a redirect is revalidated")
+	boolean testHttpCache = false;
+
+	@Parameter(names = { "-test-javascript-hosts" }, description = "Test the thresholds of learning the need of JavaScript for hosts, saving and loading the learned counts, and that only webpages not redirected to another host are learned from")
+	boolean testJavascriptHosts = false;
 }
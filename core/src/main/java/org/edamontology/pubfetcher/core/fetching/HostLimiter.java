@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * Limits the number of concurrent connections to each host. Every host has
+ * its own fair semaphore, so that a thread waiting for one host is not woken
+ * up by releases of other hosts. The semaphore of a host is removed once no
+ * thread holds or waits for its permits, so that the limit of a host can be
+ * changed between uses and hosts are not accumulated over long runs.
+ */
+class HostLimiter {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private final ConcurrentHashMap<String, ActiveHost> activeHosts = new ConcurrentHashMap<>();
+
+	// permits held by the current thread, so that they can be suspended while the thread waits for something else than the hosts
+	private final ThreadLocal<List<ActiveHost>> held = ThreadLocal.withInitial(ArrayList::new);
+
+	// FetcherPrivateArgs#getHostMaxPerHost last seen and its parsed value
+	private volatile Map.Entry<String, Map<String, Integer>> perHost = new AbstractMap.SimpleImmutableEntry<>("", Collections.emptyMap());
+
+	static Map<String, Integer> parsePerHost(String spec) {
+		Map<String, Integer> perHost = new HashMap<>();
+		for (String pair : spec.split(",")) {
+			pair = pair.trim();
+			if (pair.isEmpty()) continue;
+			int eq = pair.lastIndexOf('=');
+			if (eq < 1) {
+				logger.error("Ignoring host limit {} not in format host=count", pair);
+				continue;
+			}
+			String host = pair.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+			if (host.startsWith("www.")) {
+				host = host.substring(4);
+			}
+			try {
+				perHost.put(host, Integer.parseInt(pair.substring(eq + 1).trim()));
+			} catch (NumberFormatException e) {
+				logger.error("Ignoring host limit {} with illegal count", pair);
+			}
+		}
+		return perHost;
+	}
+
+	int getMax(String host, FetcherPrivateArgs fetcherPrivateArgs) {
+		String spec = fetcherPrivateArgs.getHostMaxPerHost();
+		Map.Entry<String, Map<String, Integer>> perHost = this.perHost;
+		if (!spec.equals(perHost.getKey())) {
+			perHost = new AbstractMap.SimpleImmutableEntry<>(spec, parsePerHost(spec));
+			this.perHost = perHost;
+		}
+		Integer max = perHost.getValue().get(host);
+		if (max == null) {
+			max = fetcherPrivateArgs.getHostMax();
+		}
+		return Math.max(max, 1);
+	}
+
+	/**
+	 * Acquires a connection permit for the given host, waiting until one is
+	 * free.
+	 *
+	 * @return the acquired permit to release with {@link #release}, or null if
+	 * interrupted while waiting
+	 */
+	ActiveHost acquire(String host, int max) {
+		ActiveHost activeHost = activeHosts.compute(host, (h, ah) -> {
+			if (ah == null) {
+				ah = new ActiveHost(h, max);
+			}
+			ah.incrementUsers();
+			return ah;
+		});
+		try {
+			// unlike the untimed tryAcquire, the timed one doesn't barge ahead of threads already waiting
+			if (!activeHost.getPermits().tryAcquire(0, TimeUnit.SECONDS)) {
+				logger.info("Waiting behind host {}", host);
+				activeHost.getPermits().acquire();
+				logger.info("Resuming for host {}", host);
+			}
+		} catch (InterruptedException e) {
+			// expected when a concurrent request is cancelled
+			logger.debug("Interrupted while waiting behind host {}", host);
+			Thread.currentThread().interrupt();
+			removeUser(activeHost);
+			return null;
+		}
+		held.get().add(activeHost);
+		return activeHost;
+	}
+
+	private void removeUser(ActiveHost activeHost) {
+		activeHosts.computeIfPresent(activeHost.getHost(), (h, ah) -> {
+			ah.decrementUsers();
+			return ah.getUsers() > 0 ? ah : null;
+		});
+	}
+
+	void release(ActiveHost activeHost) {
+		if (activeHost == null) return;
+		for (Iterator<ActiveHost> it = held.get().iterator(); it.hasNext(); ) {
+			if (it.next() == activeHost) {
+				it.remove();
+				break;
+			}
+		}
+		activeHost.getPermits().release();
+		removeUser(activeHost);
+	}
+
+	/**
+	 * Releases the permits held by the current thread for the time it is
+	 * waiting on something else, for example on a pause asked by a host. The
+	 * hosts stay in use, so the permits must be taken back with
+	 * {@link #resume} before they are released with {@link #release}.
+	 *
+	 * @return the suspended permits
+	 */
+	List<ActiveHost> suspend() {
+		List<ActiveHost> suspended = new ArrayList<>(held.get());
+		for (ActiveHost activeHost : suspended) {
+			activeHost.getPermits().release();
+		}
+		return suspended;
+	}
+
+	/**
+	 * Takes back the permits suspended with {@link #suspend}, waiting until
+	 * they are free. The wait is not interrupted, as the permits must be held
+	 * again when released, but the interrupt status of the thread is kept.
+	 */
+	void resume(List<ActiveHost> suspended) {
+		for (ActiveHost activeHost : suspended) {
+			// the untimed tryAcquire barges ahead of threads that started waiting during the suspension
+			if (!activeHost.getPermits().tryAcquire()) {
+				logger.info("Waiting behind host {} to resume", activeHost.getHost());
+				activeHost.getPermits().acquireUninterruptibly();
+			}
+		}
+	}
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * Persistent cache of raw HTTP responses in a directory on disk (see
+ * {@link FetcherPrivateArgs#getHttpCache()}). A response is stored in a file
+ * named by the SHA-256 hash of the request method, URL and form data, with
+ * its status code, final URL, headers and gzip-compressed body. The time a
+ * response was stored (or last revalidated) is the modification time of its
+ * file. If the total size of the files exceeds the maximum, files of least
+ * recently used responses are removed, where the use of responses in earlier
+ * runs is approximated by their storage time.
+ */
+class HttpCache {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final int MAGIC = 0x50464843; // "PFHC"
+	private static final int VERSION = 1;
+
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private static final Pattern FILE_NAME = Pattern.compile("^[0-9a-f]{64}(\\.[0-9]+\\.tmp)?$");
+
+	// the body is stored decoded, and cookies and connection details are not to be replayed
+	private static final Set<String> HEADERS_SKIPPED = Set.of("content-encoding", "content-length", "transfer-encoding", "connection", "keep-alive", "set-cookie");
+
+	/**
+	 * A response got from the cache.
+	 */
+	static final class Entry {
+
+		private final String key;
+
+		private final HttpEngine.Response response;
+
+		private final long stored;
+
+		private Entry(String key, HttpEngine.Response response, long stored) {
+			this.key = key;
+			this.response = response;
+			this.stored = stored;
+		}
+
+		HttpEngine.Response getResponse() {
+			return response;
+		}
+	}
+
+	private static final class Info {
+		private final long size;
+		private final long stored;
+		private Info(long size, long stored) {
+			this.size = size;
+			this.stored = stored;
+		}
+	}
+
+	private final Path dir;
+
+	// in milliseconds
+	private final long ttl;
+
+	// in bytes, or 0 if not limited
+	private final long maxSize;
+
+	private final boolean offline;
+
+	// the cached files, in access order, thus the first file is the least recently used
+	private final LinkedHashMap<String, Info> files = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size = 0;
+
+	HttpCache(FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		dir = Paths.get(fetcherPrivateArgs.getHttpCache());
+		ttl = fetcherPrivateArgs.getHttpCacheTtl() * 3600000L;
+		maxSize = fetcherPrivateArgs.getHttpCacheSize() * 1048576L;
+		offline = fetcherPrivateArgs.isHttpCacheOffline();
+
+		Files.createDirectories(dir);
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(dir, 2)) {
+			// other files in the directory are left alone
+			paths = walk.filter(path -> Files.isRegularFile(path) && FILE_NAME.matcher(path.getFileName().toString()).matches()).collect(Collectors.toList());
+		}
+		Map<Path, Long> modified = new HashMap<>();
+		for (Path path : paths) {
+			if (path.getFileName().toString().endsWith(TMP_SUFFIX)) {
+				// left over from an interrupted write
+				Files.deleteIfExists(path);
+			} else {
+				modified.put(path, Files.getLastModifiedTime(path).toMillis());
+			}
+		}
+		List<Path> sorted = new ArrayList<>(modified.keySet());
+		sorted.sort(Comparator.comparing(modified::get));
+		for (Path path : sorted) {
+			long fileSize = Files.size(path);
+			files.put(path.getFileName().toString(), new Info(fileSize, modified.get(path)));
+			size += fileSize;
+		}
+		logger.info("HTTP cache {} has {} responses of total size {} bytes", dir, files.size(), size);
+		evict();
+	}
+
+	boolean isOffline() {
+		return offline;
+	}
+
+	static String key(String method, String url, Map<String, String> data) {
+		String request = method + " " + url;
+		if (data != null) {
+			request += "\n" + HttpEngine.formData(new TreeMap<>(data));
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : hash) {
+				sb.append(String.format("%02x", b & 0xFF));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Path path(String key) {
+		return dir.resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	/**
+	 * Whether a response of the given request is in the cache and can be
+	 * used without revalidation.
+	 */
+	boolean isFresh(String key) {
+		synchronized(files) {
+			Info info = files.get(key);
+			return info != null && (offline || System.currentTimeMillis() - info.stored < ttl);
+		}
+	}
+
+	boolean isFresh(Entry entry) {
+		return offline || System.currentTimeMillis() - entry.stored < ttl;
+	}
+
+	/**
+	 * @return the cached response, or null if not in cache
+	 */
+	Entry get(String key) {
+		synchronized(files) {
+			if (files.get(key) == null) return null;
+		}
+		Path path = path(key);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			long stored = Files.getLastModifiedTime(path).toMillis();
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a cached response");
+			}
+			int statusCode = in.readInt();
+			String finalUrl = in.readUTF();
+			Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			int headersSize = in.readInt();
+			for (int i = 0; i < headersSize; ++i) {
+				String name = in.readUTF();
+				headers.computeIfAbsent(name, k -> new ArrayList<>()).add(in.readUTF());
+			}
+			byte[] body;
+			try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+				body = gzip.readAllBytes();
+			}
+			return new Entry(key, new HttpEngine.Response(statusCode, finalUrl, HttpHeaders.of(headers, (k, v) -> true), body), stored);
+		} catch (NoSuchFileException e) {
+			remove(key);
+			return null;
+		} catch (IOException e) {
+			logger.warn("Removing unreadable cached response {}: {}", path, e.toString());
+			remove(key);
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e2) {
+				logger.warn(e2);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @return headers for a conditional request revalidating the cached
+	 * response, or null if it has no validators
+	 */
+	static Map<String, String> getValidators(Entry entry) {
+		Map<String, String> validators = new LinkedHashMap<>();
+		entry.response.getHeaders().firstValue("ETag").ifPresent(etag -> validators.put("If-None-Match", etag));
+		entry.response.getHeaders().firstValue("Last-Modified").ifPresent(lastModified -> validators.put("If-Modified-Since", lastModified));
+		return validators.isEmpty() ? null : validators;
+	}
+
+	// like HTTP caches, only responses that are final for the URL are stored
+	private static boolean isStorable(HttpEngine.Response response) {
+		int status = response.getStatusCode();
+		return status >= 200 && status < 300 || status == 404 || status == 410;
+	}
+
+	/**
+	 * Stores the response of a request, replacing a previous response of the
+	 * same request. Responses with other status codes than 2xx, 404 and 410
+	 * are not stored.
+	 */
+	void put(String key, HttpEngine.Response response) {
+		put(key, response, new ByteArrayInputStream(response.getBody()));
+	}
+
+	/**
+	 * Stores the response of a request with the body read from the given
+	 * stream, like for a streamed response whose body has been read
+	 * elsewhere.
+	 *
+	 * @see #put(String, HttpEngine.Response)
+	 */
+	void put(String key, HttpEngine.Response response, InputStream body) {
+		if (!isStorable(response)) return;
+		Path path = path(key);
+		Path tmp = path.resolveSibling(key + "." + Thread.currentThread().getId() + TMP_SUFFIX);
+		try {
+			Files.createDirectories(path.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(response.getStatusCode());
+				out.writeUTF(response.getFinalUrl());
+				List<Map.Entry<String, String>> headers = new ArrayList<>();
+				for (Map.Entry<String, List<String>> header : response.getHeaders().map().entrySet()) {
+					if (header.getKey().startsWith(":") || HEADERS_SKIPPED.contains(header.getKey().toLowerCase(Locale.ROOT))) continue;
+					for (String value : header.getValue()) {
+						headers.add(Map.entry(header.getKey(), value));
+					}
+				}
+				out.writeInt(headers.size());
+				for (Map.Entry<String, String> header : headers) {
+					out.writeUTF(header.getKey());
+					out.writeUTF(header.getValue());
+				}
+				GZIPOutputStream gzip = new GZIPOutputStream(out);
+				body.transferTo(gzip);
+				gzip.finish();
+			}
+			long now = System.currentTimeMillis();
+			Files.setLastModifiedTime(tmp, FileTime.fromMillis(now));
+			long fileSize = Files.size(tmp);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			synchronized(files) {
+				Info old = files.put(key, new Info(fileSize, now));
+				if (old != null) {
+					size -= old.size;
+				}
+				size += fileSize;
+			}
+			evict();
+		} catch (IOException e) {
+			logger.warn("Can't store response of {} in HTTP cache: {}", response.getFinalUrl(), e.toString());
+			try {
+				Files.deleteIfExists(tmp);
+			} catch (IOException e2) {
+				logger.warn(e2);
+			}
+		}
+	}
+
+	/**
+	 * Stores a cached response again after the server has confirmed with a
+	 * 304 (Not Modified) response that it is still valid, updating its
+	 * headers with the ones of the 304 response.
+	 *
+	 * @return the revalidated response
+	 */
+	HttpEngine.Response revalidated(Entry entry, HttpEngine.Response notModified) {
+		Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		headers.putAll(entry.response.getHeaders().map());
+		for (Map.Entry<String, List<String>> header : notModified.getHeaders().map().entrySet()) {
+			if (header.getKey().startsWith(":") || HEADERS_SKIPPED.contains(header.getKey().toLowerCase(Locale.ROOT))) continue;
+			headers.put(header.getKey(), header.getValue());
+		}
+		HttpEngine.Response response = new HttpEngine.Response(entry.response.getStatusCode(), entry.response.getFinalUrl(), HttpHeaders.of(headers, (k, v) -> true), entry.response.getBody());
+		put(entry.key, response);
+		return response;
+	}
+
+	private void remove(String key) {
+		synchronized(files) {
+			Info old = files.remove(key);
+			if (old != null) {
+				size -= old.size;
+			}
+		}
+	}
+
+	private void evict() {
+		if (maxSize <= 0) return;
+		List<String> evicted = new ArrayList<>();
+		synchronized(files) {
+			Iterator<Map.Entry<String, Info>> it = files.entrySet().iterator();
+			while (size > maxSize && it.hasNext()) {
+				Map.Entry<String, Info> file = it.next();
+				size -= file.getValue().size;
+				evicted.add(file.getKey());
+				it.remove();
+			}
+		}
+		for (String key : evicted) {
+			try {
+				Files.deleteIfExists(path(key));
+			} catch (IOException e) {
+				logger.warn(e);
+			}
+		}
+		if (!evicted.isEmpty()) {
+			logger.info("Evicted {} responses from HTTP cache {}", evicted.size(), dir);
+		}
+	}
+}
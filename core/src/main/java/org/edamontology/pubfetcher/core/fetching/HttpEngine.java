@@ -0,0 +1,785 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+/**
+ * Non-blocking HTTP engine built on the HTTP client of the JDK. All requests
+ * made through one engine share its connection pool, and HTTP/2 connections
+ * (e.g. to Europe PMC and NCBI) are multiplexed between concurrent requests.
+ * Redirects, including from http to https, are followed by the engine itself,
+ * keeping cookies set during a chain of redirects. Responses are received and
+ * parsed asynchronously, so that one thread can have many requests in flight;
+ * the blocking methods of {@link Fetcher} wait for the result with
+ * {@link #await(CompletableFuture)}.
+ */
+public class HttpEngine {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final int REDIRECT_LIMIT = 10;
+
+	private static final String ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+
+	// like in jsoup, XML content types are parsed with the XML parser and other content types than text or XML are not supported
+	private static final Pattern XML_CONTENT_TYPE = Pattern.compile("(?i)(application|text)/\\w*\\+?xml.*");
+	private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+
+	private static final Pattern HTTP_OR_HTTPS = Pattern.compile("(?i)^(http|https)://");
+
+	// how the body of a final response is received
+	enum Body {
+		// whole into memory
+		WHOLE,
+		// whole into memory, if it can be parsed to a document, otherwise it is discarded (like jsoup does not read it)
+		DOCUMENT,
+		// not received, but left to be read from the stream of the response
+		STREAM
+	}
+
+	/**
+	 * A received response, with the body decoded according to its
+	 * Content-Encoding and, if requested, parsed to a document. The body of a
+	 * response got with {@link HttpEngine#streamAsync} is not received
+	 * beforehand, but is read from {@link #getBodyStream()}.
+	 */
+	public static class Response {
+
+		private final int statusCode;
+
+		private final String finalUrl;
+
+		private final HttpHeaders headers;
+
+		// null until read, if streamed
+		private byte[] body;
+
+		// the body as not yet decoded, if streamed
+		private final InputStream stream;
+
+		// whether the body was not received, as it can't be parsed to a document
+		private final boolean discarded;
+
+		private Document document = null;
+
+		Response(int statusCode, String finalUrl, HttpHeaders headers, byte[] body) {
+			this(statusCode, finalUrl, headers, body, false);
+		}
+
+		private Response(int statusCode, String finalUrl, HttpHeaders headers, byte[] body, boolean discarded) {
+			this.statusCode = statusCode;
+			this.finalUrl = finalUrl;
+			this.headers = headers;
+			this.body = body;
+			this.stream = null;
+			this.discarded = discarded;
+		}
+
+		private Response(int statusCode, String finalUrl, HttpHeaders headers, InputStream stream) {
+			this.statusCode = statusCode;
+			this.finalUrl = finalUrl;
+			this.headers = headers;
+			this.body = null;
+			this.stream = stream;
+			this.discarded = false;
+		}
+
+		public int getStatusCode() {
+			return statusCode;
+		}
+
+		/**
+		 * @return the URL the response was got from, after following redirects
+		 */
+		public String getFinalUrl() {
+			return finalUrl;
+		}
+
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		/**
+		 * @return the value of the Content-Type header, or null if missing
+		 */
+		public String getContentType() {
+			return headers.firstValue("Content-Type").orElse(null);
+		}
+
+		/**
+		 * @return the body, which is read whole from the stream first, if the
+		 * response is streamed
+		 */
+		public byte[] getBody() {
+			if (body == null) {
+				try (InputStream in = decode(headers, stream)) {
+					body = in.readAllBytes();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return body;
+		}
+
+		/**
+		 * @return the body as a stream, which, if the response is streamed, is
+		 * read from the connection and must be closed (also if not read to the
+		 * end), and can be got only once
+		 * @throws IOException if decoding of the body can't be started
+		 */
+		public InputStream getBodyStream() throws IOException {
+			if (body == null) {
+				return decode(headers, stream);
+			}
+			return new ByteArrayInputStream(body);
+		}
+
+		boolean isStreamed() {
+			return stream != null;
+		}
+
+		boolean isDiscarded() {
+			return discarded;
+		}
+
+		/**
+		 * @return the length in bytes of the body as announced by the server,
+		 * or -1 if unknown (also if the body is compressed in transfer)
+		 */
+		public long getContentLength() {
+			if (body != null) {
+				return body.length;
+			}
+			String encoding = headers.firstValue("Content-Encoding").orElse("").trim();
+			if (!encoding.isEmpty() && !encoding.equalsIgnoreCase("identity")) {
+				return -1;
+			}
+			return headers.firstValueAsLong("Content-Length").orElse(-1);
+		}
+
+		/**
+		 * @return the parsed document, if got with {@link HttpEngine#getDocAsync}
+		 */
+		public Document getDocument() {
+			return document;
+		}
+	}
+
+	// passes the body on to the given subscriber, failing as soon as the body (as announced by Content-Length or as received so far) is larger than the limit, or if nothing more of the body is received in the read timeout while it is waited for
+	private static final class BoundedBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+		private final HttpResponse.BodySubscriber<T> subscriber;
+
+		// 0 if not limited
+		private final long limit;
+
+		private final long contentLength;
+
+		private final int readTimeout;
+
+		private final URI uri;
+
+		private Flow.Subscription subscription;
+
+		private long size = 0;
+
+		// time of the last received part of the body or of the last request for more, guarded by this
+		private long lastActivity;
+
+		// guarded by this
+		private boolean done = false;
+
+		private BoundedBodySubscriber(HttpResponse.BodySubscriber<T> subscriber, long limit, long contentLength, int readTimeout, URI uri) {
+			this.subscriber = subscriber;
+			this.limit = limit;
+			this.contentLength = contentLength;
+			this.readTimeout = readTimeout;
+			this.uri = uri;
+		}
+
+		private synchronized void fail(IOException e) {
+			if (done) return;
+			done = true;
+			subscription.cancel();
+			subscriber.onError(e);
+		}
+
+		private synchronized void activity() {
+			lastActivity = System.currentTimeMillis();
+		}
+
+		private void scheduleTimeout(long delay) {
+			CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::checkTimeout);
+		}
+
+		// a slow reader of the body is not timed out, as the time is counted from its last request for more
+		private void checkTimeout() {
+			long remaining;
+			synchronized(this) {
+				if (done) return;
+				remaining = lastActivity + readTimeout - System.currentTimeMillis();
+				if (remaining <= 0) {
+					fail(new HttpTimeoutException("Nothing of response body received in " + readTimeout + " ms in " + uri));
+					return;
+				}
+			}
+			scheduleTimeout(remaining);
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return subscriber.getBody();
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			activity();
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					activity();
+					subscription.request(n);
+				}
+				@Override
+				public void cancel() {
+					subscription.cancel();
+				}
+			});
+			if (limit > 0 && contentLength > limit) {
+				fail(new IOException("Response body larger than " + limit + " bytes (" + contentLength + " bytes) in " + uri));
+			} else if (readTimeout > 0) {
+				scheduleTimeout(readTimeout);
+			}
+		}
+
+		@Override
+		public synchronized void onNext(List<ByteBuffer> items) {
+			if (done) return;
+			lastActivity = System.currentTimeMillis();
+			for (ByteBuffer item : items) {
+				size += item.remaining();
+			}
+			if (limit > 0 && size > limit) {
+				fail(new IOException("Response body larger than " + limit + " bytes in " + uri));
+			} else {
+				subscriber.onNext(items);
+			}
+		}
+
+		@Override
+		public synchronized void onError(Throwable throwable) {
+			if (done) return;
+			done = true;
+			subscriber.onError(throwable);
+		}
+
+		@Override
+		public synchronized void onComplete() {
+			if (done) return;
+			done = true;
+			subscriber.onComplete();
+		}
+	}
+
+	// cancels receiving the body, so that it is not downloaded at all (unlike with BodySubscribers.discarding())
+	private static final class CancellingBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+		private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+
+		@Override
+		public CompletionStage<byte[]> getBody() {
+			return body;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.cancel();
+			body.complete(null);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			body.complete(null);
+		}
+
+		@Override
+		public void onComplete() {
+			body.complete(null);
+		}
+	}
+
+	private final HttpClient client;
+
+	private final Consumer<Response> listener;
+
+	private final long maxBodySize;
+
+	public HttpEngine() {
+		this(null);
+	}
+
+	/**
+	 * @param listener called with every final response received (after
+	 * redirects), before it is parsed or checked, or null
+	 */
+	public HttpEngine(Consumer<Response> listener) {
+		this(listener, 0);
+	}
+
+	/**
+	 * @param listener called with every final response received (after
+	 * redirects), before it is parsed or checked, or null
+	 * @param maxBodySize maximum size in bytes of a response body (before
+	 * decoding its Content-Encoding), receiving a larger body fails with an
+	 * IOException, or 0 for no limit; streamed bodies are not limited
+	 */
+	public HttpEngine(Consumer<Response> listener, long maxBodySize) {
+		this.client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.build();
+		this.listener = listener;
+		this.maxBodySize = maxBodySize;
+	}
+
+	private static boolean isUnreserved(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || "-._~:/?#[]@!$&'()*+,;=%".indexOf(c) >= 0;
+	}
+
+	// URLs found in web pages can contain characters not allowed in a URI, which are percent-encoded here (existing escapes are kept)
+	private static URI escape(String url) throws URISyntaxException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < url.length(); ++i) {
+			char c = url.charAt(i);
+			if (isUnreserved(c)) {
+				sb.append(c);
+			} else {
+				int end = i + 1;
+				if (Character.isHighSurrogate(c) && end < url.length()) {
+					++end;
+				}
+				for (byte b : url.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+					sb.append('%').append(String.format("%02X", b & 0xFF));
+				}
+				i = end - 1;
+			}
+		}
+		String escaped = sb.toString();
+		// the fragment is not sent
+		int fragment = escaped.indexOf('#');
+		if (fragment >= 0) {
+			escaped = escaped.substring(0, fragment);
+		}
+		return new URI(escaped);
+	}
+
+	static URI toUri(String url) throws MalformedURLException {
+		try {
+			URI uri = escape(url);
+			if (uri.getHost() == null) {
+				throw new MalformedURLException("No host in " + url);
+			}
+			return uri;
+		} catch (URISyntaxException e) {
+			throw new MalformedURLException(e.getMessage());
+		}
+	}
+
+	static String formData(Map<String, String> data) {
+		return data.entrySet().stream()
+			.map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+			.collect(Collectors.joining("&"));
+	}
+
+	private static InputStream decode(HttpHeaders headers, InputStream in) throws IOException {
+		String encoding = headers.firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+		if (encoding.isEmpty() || encoding.equals("identity")) {
+			return in;
+		}
+		try {
+			return encoding.equals("gzip") || encoding.equals("x-gzip") ? new GZIPInputStream(in) : new InflaterInputStream(in);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	// with DOCUMENT, a body that parse() would refuse because of its content type (like a PDF) is not received
+	private static boolean isDiscarded(HttpResponse.ResponseInfo info, Body body) {
+		if (body != Body.DOCUMENT) return false;
+		String contentType = info.headers().firstValue("Content-Type").orElse(null);
+		return contentType != null && !contentType.toLowerCase(Locale.ROOT).startsWith("text/") && !XML_CONTENT_TYPE.matcher(contentType).matches();
+	}
+
+	private static byte[] decode(HttpHeaders headers, byte[] body) {
+		String encoding = headers.firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+		if (body.length == 0 || encoding.isEmpty() || encoding.equals("identity")) {
+			return body;
+		}
+		try (InputStream in = encoding.equals("gzip") || encoding.equals("x-gzip")
+				? new GZIPInputStream(new ByteArrayInputStream(body))
+				: new InflaterInputStream(new ByteArrayInputStream(body))) {
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// the extra headers are added to the request of headersUri, or to the first request if headersUri is null
+	private CompletableFuture<Response> send(URI uri, String method, String form, Map<String, String> headers, URI headersUri, Body body, String userAgent, String referrer, int timeout, CookieManager cookies, int redirects) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+			.timeout(Duration.ofMillis(timeout))
+			.header("User-Agent", userAgent)
+			.header("Referer", referrer)
+			.header("Accept", ACCEPT)
+			.header("Accept-Encoding", "gzip, deflate");
+		if (headers != null && (headersUri != null ? uri.equals(headersUri) : redirects == 0)) {
+			headers.forEach(builder::header);
+		}
+		try {
+			for (Map.Entry<String, List<String>> cookie : cookies.get(uri, Collections.emptyMap()).entrySet()) {
+				if (!cookie.getValue().isEmpty()) {
+					builder.header(cookie.getKey(), String.join("; ", cookie.getValue()));
+				}
+			}
+		} catch (IOException e) {
+			logger.warn(e);
+		}
+		if (form != null) {
+			builder.header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+			builder.method(method, HttpRequest.BodyPublishers.ofString(form, StandardCharsets.UTF_8));
+		} else {
+			builder.method(method, HttpRequest.BodyPublishers.noBody());
+		}
+
+		boolean stream = (body == Body.STREAM);
+		// the size of a streamed body is limited by its reader
+		CompletableFuture<HttpResponse<?>> sent = (stream
+			? client.sendAsync(builder.build(), info -> new BoundedBodySubscriber<>(HttpResponse.BodySubscribers.ofInputStream(), 0, -1, timeout, uri)).thenApply(res -> res)
+			: client.sendAsync(builder.build(), info -> isDiscarded(info, body)
+				? new CancellingBodySubscriber()
+				: new BoundedBodySubscriber<>(HttpResponse.BodySubscribers.ofByteArray(), maxBodySize, info.headers().firstValueAsLong("Content-Length").orElse(-1), timeout, uri)).thenApply(res -> res));
+
+		return sent.thenCompose(res -> {
+			try {
+				cookies.put(uri, res.headers().map());
+			} catch (IOException e) {
+				logger.warn(e);
+			}
+			int status = res.statusCode();
+			String location = res.headers().firstValue("Location").orElse(null);
+			if (status >= 300 && status < 400 && status != 304 && location != null) {
+				if (stream) {
+					try {
+						((InputStream) res.body()).close();
+					} catch (IOException e) {
+						logger.warn(e);
+					}
+				}
+				if (redirects >= REDIRECT_LIMIT) {
+					return CompletableFuture.failedFuture(new IOException("Too many redirects (" + (redirects + 1) + ") in " + uri + " (last location " + location + ")"));
+				}
+				URI next;
+				try {
+					next = uri.resolve(escape(location));
+				} catch (URISyntaxException | IllegalArgumentException e) {
+					return CompletableFuture.failedFuture(new MalformedURLException("Bad redirect location " + location + " in " + uri));
+				}
+				if (!HTTP_OR_HTTPS.matcher(next.toString()).find()) {
+					return CompletableFuture.failedFuture(new MalformedURLException("Redirect to non-http location " + next));
+				}
+				// like browsers, change to GET for redirects other than 307 and 308
+				boolean keepMethod = (status == 307 || status == 308);
+				return send(next, keepMethod ? method : "GET", keepMethod ? form : null, headers, headersUri, body, userAgent, referrer, timeout, cookies, redirects + 1);
+			}
+			Response response;
+			if (stream) {
+				response = new Response(status, res.uri().toString(), res.headers(), (InputStream) res.body());
+			} else if (res.body() == null) {
+				response = new Response(status, res.uri().toString(), res.headers(), new byte[0], true);
+			} else {
+				response = new Response(status, res.uri().toString(), res.headers(), decode(res.headers(), (byte[]) res.body()));
+			}
+			if (listener != null) {
+				listener.accept(response);
+			}
+			return CompletableFuture.completedFuture(response);
+		});
+	}
+
+	/**
+	 * Sends a request asynchronously, following redirects.
+	 *
+	 * @param url the URL to request, must be http or https
+	 * @param method the HTTP method, like "GET" or "POST"
+	 * @param data form data to send (URL-encoded) in the request body, or null
+	 * @param userAgent the User-Agent header to send
+	 * @param timeout time in milliseconds in which the response headers of
+	 * each request (including the connecting) must be received, and in which
+	 * more of the body must be received while receiving it, otherwise the
+	 * request fails with a timeout; a large body received steadily does not
+	 * time out
+	 * @return future response, failing with an IOException in case of
+	 * connection problems
+	 */
+	public CompletableFuture<Response> sendAsync(String url, String method, Map<String, String> data, String userAgent, int timeout) {
+		return sendAsync(url, method, data, null, userAgent, timeout);
+	}
+
+	/**
+	 * Sends a request asynchronously with extra headers, following redirects.
+	 *
+	 * @param headers headers to add to the request (but not to requests of
+	 * redirects), like If-None-Match, or null
+	 * @see #sendAsync(String, String, Map, String, int)
+	 */
+	public CompletableFuture<Response> sendAsync(String url, String method, Map<String, String> data, Map<String, String> headers, String userAgent, int timeout) {
+		return sendAsync(url, method, data, headers, null, userAgent, timeout);
+	}
+
+	/**
+	 * Sends a request asynchronously with extra headers meant for a URL
+	 * redirected to, following redirects. This is needed for revalidating a
+	 * cached response got through redirects, as its validators (like ETag)
+	 * are from the response of the last URL.
+	 *
+	 * @param headers headers to add to the request of headersUrl, like
+	 * If-None-Match, or null
+	 * @param headersUrl the URL to add the headers to the request of, if it
+	 * is reached (possibly through redirects), or null to add the headers to
+	 * the request of url only
+	 * @see #sendAsync(String, String, Map, String, int)
+	 */
+	public CompletableFuture<Response> sendAsync(String url, String method, Map<String, String> data, Map<String, String> headers, String headersUrl, String userAgent, int timeout) {
+		return sendAsync(url, method, data, headers, headersUrl, Body.WHOLE, userAgent, timeout);
+	}
+
+	/**
+	 * Sends a request asynchronously, following redirects, without receiving
+	 * the body of the response, which is left to be read from
+	 * {@link Response#getBodyStream()}. The size of the body is not limited
+	 * by the engine, but the read timeout applies.
+	 *
+	 * @see #sendAsync(String, String, Map, Map, String, String, int)
+	 */
+	public CompletableFuture<Response> streamAsync(String url, String method, Map<String, String> data, Map<String, String> headers, String headersUrl, String userAgent, int timeout) {
+		return sendAsync(url, method, data, headers, headersUrl, Body.STREAM, userAgent, timeout);
+	}
+
+	CompletableFuture<Response> sendAsync(String url, String method, Map<String, String> data, Map<String, String> headers, String headersUrl, Body body, String userAgent, int timeout) {
+		URI uri;
+		URI headersUri;
+		try {
+			if (!HTTP_OR_HTTPS.matcher(url).find()) {
+				throw new MalformedURLException("Must be http or https: " + url);
+			}
+			uri = toUri(url);
+			headersUri = (headersUrl != null ? toUri(headersUrl) : null);
+		} catch (MalformedURLException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		String referrer = uri.getScheme() + "://" + uri.getRawAuthority();
+		CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+		return send(uri, method, data != null ? formData(data) : null, headers, headersUri, body, userAgent, referrer, timeout, cookies, 0);
+	}
+
+	static String charset(String contentType) {
+		if (contentType == null) return null;
+		Matcher m = CHARSET.matcher(contentType);
+		if (m.find()) {
+			String charset = m.group(1).trim();
+			try {
+				if (Charset.isSupported(charset)) {
+					return charset;
+				}
+			} catch (IllegalArgumentException e) {
+				// unsupported charset, detect from document instead
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks that the status code of a response is OK.
+	 *
+	 * @param response the received response
+	 * @return the response
+	 * @throws HttpStatusException if the status code is not OK
+	 */
+	public static Response checkStatus(Response response) throws HttpStatusException {
+		checkStatus(response.getStatusCode(), response.getFinalUrl());
+		return response;
+	}
+
+	static void checkStatus(int statusCode, String url) throws HttpStatusException {
+		if (statusCode < 200 || statusCode >= 400) {
+			throw new HttpStatusException("HTTP error fetching URL", statusCode, url);
+		}
+	}
+
+	// returns whether the content type is XML
+	static boolean checkContentType(String contentType, String url) throws UnsupportedMimeTypeException {
+		boolean xml = (contentType != null && XML_CONTENT_TYPE.matcher(contentType).matches());
+		if (contentType != null && !contentType.toLowerCase(Locale.ROOT).startsWith("text/") && !xml) {
+			throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, application/xml, or application/*+xml", contentType, url);
+		}
+		return xml;
+	}
+
+	/**
+	 * Parses the body of a response to a document, failing like jsoup in case
+	 * of a HTTP error status or unsupported content type.
+	 *
+	 * @param response the received response
+	 * @return the response, with the parsed document set
+	 * @throws HttpStatusException if the status code is not OK
+	 * @throws UnsupportedMimeTypeException if the content type is not text or XML
+	 * @throws IOException if the body can't be read
+	 */
+	public static Response parse(Response response) throws IOException {
+		return parse(response, null);
+	}
+
+	/**
+	 * Parses the body of a response to a document with the given parser.
+	 *
+	 * @param parser the parser to use, or null to choose the HTML or XML
+	 * parser according to the content type
+	 * @see #parse(Response)
+	 */
+	public static Response parse(Response response, Parser parser) throws IOException {
+		checkStatus(response);
+		String contentType = response.getContentType();
+		boolean xml = checkContentType(contentType, response.getFinalUrl());
+		if (parser == null) {
+			parser = (xml ? Parser.xmlParser() : Parser.htmlParser());
+		}
+		try (InputStream in = response.getBodyStream()) {
+			response.document = Jsoup.parse(in, charset(contentType), response.getFinalUrl(), parser);
+		}
+		return response;
+	}
+
+	/**
+	 * Gets and parses a HTML or XML document asynchronously. Parsing is done
+	 * in the common fork-join pool, not in the thread of the caller.
+	 *
+	 * @see #sendAsync(String, String, Map, String, int)
+	 * @see #parse(Response)
+	 */
+	public CompletableFuture<Response> getDocAsync(String url, String method, Map<String, String> data, String userAgent, int timeout) {
+		return sendAsync(url, method, data, null, null, Body.DOCUMENT, userAgent, timeout).thenApplyAsync(response -> {
+			try {
+				return parse(response);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
+	/**
+	 * Waits for the result of a request, rethrowing the exception it failed
+	 * with. Timeouts are thrown as {@link SocketTimeoutException}, like with
+	 * blocking connections.
+	 *
+	 * @param future future result of a request of this engine
+	 * @return the result
+	 * @throws IOException if the request failed
+	 */
+	public static <T> T await(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for response");
+		} catch (CancellationException e) {
+			throw new InterruptedIOException("Request cancelled");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+				throw new SocketTimeoutException(cause.getMessage() != null ? cause.getMessage() : "Timeout");
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IOException(cause);
+			}
+		}
+	}
+}
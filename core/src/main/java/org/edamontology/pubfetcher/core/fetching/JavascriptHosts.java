@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * Learned need of JavaScript for webpages of each host (see
+ * {@link FetcherPrivateArgs#getJavascriptHosts()}). For each host, it is
+ * counted how many times refetching a webpage with JavaScript made the content
+ * of the page longer and how many times not. If at least
+ * {@link FetcherPrivateArgs#getJavascriptHostsMin()} refetches are counted
+ * and at least 90% of them made the content longer, webpages of the host are got
+ * with JavaScript right away, and if at most 10% did, they are not refetched.
+ * Every {@value #RECHECK}th webpage of a host is still got the usual way, so
+ * that the counts keep up with changes of the host. The counts are halved if
+ * they grow too large, so that recent refetches weigh more. The counts are
+ * kept in a text file with a line of host, longer count and not longer count
+ * (separated by tabs) for each host.
+ */
+class JavascriptHosts {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	static final int RECHECK = 20;
+
+	private static final int MAX_COUNT = 100;
+
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private static final class Counts {
+		private int longer = 0;
+		private int notLonger = 0;
+		private int pages = 0;
+	}
+
+	private final Path file;
+
+	private final int min;
+
+	private final Map<String, Counts> hosts = new TreeMap<>();
+
+	private boolean modified = false;
+
+	JavascriptHosts(FetcherPrivateArgs fetcherPrivateArgs) throws IOException {
+		file = Paths.get(fetcherPrivateArgs.getJavascriptHosts());
+		min = Math.max(1, fetcherPrivateArgs.getJavascriptHostsMin());
+		if (Files.exists(file)) {
+			try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line;
+				int lineNumber = 0;
+				while ((line = br.readLine()) != null) {
+					++lineNumber;
+					if (line.isEmpty() || line.startsWith("#")) continue;
+					String[] fields = line.split("\t");
+					try {
+						if (fields.length != 3) {
+							throw new NumberFormatException("expected 3 fields, found " + fields.length);
+						}
+						Counts counts = new Counts();
+						counts.longer = Integer.parseInt(fields[1]);
+						counts.notLonger = Integer.parseInt(fields[2]);
+						hosts.put(fields[0], counts);
+					} catch (NumberFormatException e) {
+						logger.warn("Ignoring line {} of {}: {}", lineNumber, file, e.getMessage());
+					}
+				}
+			}
+			logger.info("Loaded JavaScript need of {} hosts from {}", hosts.size(), file);
+		}
+	}
+
+	/**
+	 * Whether to get a webpage of the given host with JavaScript right away
+	 * (true), without ever refetching it with JavaScript (false), or the usual
+	 * way (null).
+	 */
+	synchronized Boolean isJavascript(String host) {
+		if (host == null) return null;
+		Counts counts = hosts.get(host);
+		if (counts == null) return null;
+		++counts.pages;
+		if (counts.pages % RECHECK == 0) return null;
+		int total = counts.longer + counts.notLonger;
+		if (total < min) return null;
+		if (counts.longer * 10 >= total * 9) return true;
+		if (counts.longer * 10 <= total) return false;
+		return null;
+	}
+
+	/**
+	 * Counts a refetch with JavaScript of a webpage of the given host.
+	 *
+	 * @param longer whether the content of the webpage got longer
+	 */
+	synchronized void update(String host, boolean longer) {
+		if (host == null) return;
+		Counts counts = hosts.computeIfAbsent(host, k -> new Counts());
+		if (longer) {
+			++counts.longer;
+		} else {
+			++counts.notLonger;
+		}
+		if (counts.longer + counts.notLonger > MAX_COUNT) {
+			counts.longer /= 2;
+			counts.notLonger /= 2;
+		}
+		modified = true;
+	}
+
+	/**
+	 * Writes the counts to the file, if anything has changed.
+	 */
+	synchronized void save() throws IOException {
+		if (!modified) return;
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		Path tmp = file.resolveSibling(file.getFileName() + TMP_SUFFIX);
+		try {
+			try (BufferedWriter bw = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				bw.write("# host\tlonger\tnotLonger");
+				bw.newLine();
+				for (Map.Entry<String, Counts> host : hosts.entrySet()) {
+					bw.write(host.getKey() + "\t" + host.getValue().longer + "\t" + host.getValue().notLonger);
+					bw.newLine();
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		modified = false;
+		logger.info("Saved JavaScript need of {} hosts to {}", hosts.size(), file);
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.gargoylesoftware.htmlunit.NicelyResynchronizingAjaxController;
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.SilentCssErrorHandler;
+import com.gargoylesoftware.htmlunit.TopLevelWindow;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.FetcherArgs;
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * A pool of workers getting pages with JavaScript using HtmlUnit. Each worker
+ * is a thread with a HtmlUnit browser (WebClient) of its own, which is reused
+ * for subsequent pages (with windows and cookies of the previous page
+ * cleared) and restarted after {@link FetcherPrivateArgs#getHtmlunitMaxPages()}
+ * pages or when memory use exceeds
+ * {@link FetcherPrivateArgs#getHtmlunitMaxMemory()}. Idle workers are reused,
+ * new ones are started if none are idle, and workers idle for longer than
+ * {@link FetcherPrivateArgs#getHtmlunitIdle()} are ended with their browsers
+ * closed. As executing JavaScript in HtmlUnit
+ * can get stuck, a page not got in time is abandoned: the browser of its
+ * worker is closed from the waiting thread, stopping its JavaScript and
+ * connections, the worker thread is interrupted and left to end on its own,
+ * and a new worker is started for the next page.
+ */
+class JavascriptPool implements AutoCloseable {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	// letting stuck HtmlUnit code run beyond this will start to cause errors for other fetching threads
+	private static final long HARD_TIMEOUT = 120000; // 2 minutes
+
+	/**
+	 * A page got with JavaScript. The document is null if the page was not a
+	 * HTML page.
+	 */
+	static final class Result {
+		private final Document doc;
+		private final String contentType;
+		private final int statusCode;
+		private final String finalUrl;
+		private Result(Document doc, String contentType, int statusCode, String finalUrl) {
+			this.doc = doc;
+			this.contentType = contentType;
+			this.statusCode = statusCode;
+			this.finalUrl = finalUrl;
+		}
+		Document getDoc() {
+			return doc;
+		}
+		String getContentType() {
+			return contentType;
+		}
+		int getStatusCode() {
+			return statusCode;
+		}
+		String getFinalUrl() {
+			return finalUrl;
+		}
+	}
+
+	private static final class Job {
+		private final String url;
+		private final FetcherArgs fetcherArgs;
+		private final CompletableFuture<Result> future = new CompletableFuture<>();
+		private Job(String url, FetcherArgs fetcherArgs) {
+			this.url = url;
+			this.fetcherArgs = fetcherArgs;
+		}
+	}
+
+	private final class Worker implements Runnable {
+
+		private final LinkedBlockingQueue<Job> jobs = new LinkedBlockingQueue<>();
+
+		private final Thread thread;
+
+		// accessed from the waiting thread only when abandoning
+		private volatile WebClient webClient = null;
+
+		private int pages = 0;
+
+		// guarded by the pool
+		private boolean abandoned = false;
+
+		// the job the worker was acquired for, null when idle, guarded by the pool
+		private Job job = null;
+
+		private Worker(int id) {
+			thread = new Thread(this, "javascript-" + id);
+			thread.setDaemon(true);
+		}
+
+		private WebClient getWebClient(FetcherArgs fetcherArgs) {
+			if (webClient == null) {
+				WebClient newWebClient = new WebClient();
+				newWebClient.getOptions().setUseInsecureSSL(true);
+				newWebClient.getOptions().setRedirectEnabled(true);
+				newWebClient.getOptions().setJavaScriptEnabled(true);
+				newWebClient.getOptions().setCssEnabled(true);
+				newWebClient.getOptions().setGeolocationEnabled(false);
+				newWebClient.getOptions().setDoNotTrackEnabled(false);
+				newWebClient.getOptions().setPrintContentOnFailingStatusCode(false);
+				newWebClient.getOptions().setThrowExceptionOnFailingStatusCode(true);
+				newWebClient.getOptions().setThrowExceptionOnScriptError(false);
+				newWebClient.getOptions().setActiveXNative(false);
+				newWebClient.getOptions().setDownloadImages(false);
+				newWebClient.setAjaxController(new NicelyResynchronizingAjaxController());
+				newWebClient.setCssErrorHandler(new SilentCssErrorHandler());
+				webClient = newWebClient;
+				pages = 0;
+			}
+			// timeout and user agent can be different for each page
+			webClient.getOptions().setTimeout(fetcherArgs.getTimeout());
+			webClient.setJavaScriptTimeout(fetcherArgs.getTimeout());
+			webClient.addRequestHeader("User-Agent", fetcherArgs.getPrivateArgs().getUserAgent());
+			return webClient;
+		}
+
+		private void closeWebClient() {
+			WebClient closedWebClient = webClient;
+			webClient = null;
+			if (closedWebClient != null) {
+				try {
+					closedWebClient.close();
+				} catch (RuntimeException e) {
+					logger.warn("Exception closing HtmlUnit!", e);
+				}
+			}
+		}
+
+		// closing all windows stops their background JavaScript, after which a new empty window is opened by HtmlUnit
+		private void clearWebClient() {
+			for (TopLevelWindow window : new ArrayList<>(webClient.getTopLevelWindows())) {
+				window.close();
+			}
+			webClient.getCookieManager().clearCookies();
+		}
+
+		private Result get(Job job) throws Exception {
+			WebClient client = getWebClient(job.fetcherArgs);
+
+			URL u = new URL(job.url);
+			client.addRequestHeader("Referer", u.getProtocol() + "://" + u.getAuthority());
+
+			try {
+				Page page = client.getPage(job.url);
+
+				String contentType = page.getWebResponse().getContentType();
+				int statusCode = page.getWebResponse().getStatusCode();
+				String finalUrl = page.getWebResponse().getWebRequest().getUrl().toString();
+
+				Document doc = null;
+				if (page.isHtmlPage()) {
+					client.waitForBackgroundJavaScript(job.fetcherArgs.getTimeout());
+					doc = Jsoup.parse(((HtmlPage) page).asXml(), finalUrl);
+				}
+
+				return new Result(doc, contentType, statusCode, finalUrl);
+			} finally {
+				++pages;
+			}
+		}
+
+		private boolean isRecycle(FetcherPrivateArgs fetcherPrivateArgs) {
+			int maxPages = fetcherPrivateArgs.getHtmlunitMaxPages();
+			if (maxPages > 0 && pages >= maxPages) {
+				logger.info("Restarting HtmlUnit in {} after {} pages", thread.getName(), pages);
+				return true;
+			}
+			int maxMemory = fetcherPrivateArgs.getHtmlunitMaxMemory();
+			if (maxMemory > 0) {
+				long used = usedAfterGc();
+				long max = Runtime.getRuntime().maxMemory();
+				if (used > max / 100 * maxMemory) {
+					logger.info("Restarting HtmlUnit in {} after {} pages, as {} MB of {} MB heap memory is used", thread.getName(), pages, used / 1048576, max / 1048576);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void run() {
+			try {
+				long idleTimeout = 0;
+				while (true) {
+					Job job = (idleTimeout > 0 ? jobs.poll(idleTimeout, TimeUnit.MILLISECONDS) : jobs.take());
+					if (job == null) {
+						if (retire(this)) {
+							logger.info("Ending HtmlUnit in {}, as it has been idle for more than {} ms", thread.getName(), idleTimeout);
+							break;
+						}
+						continue;
+					}
+
+					Result result = null;
+					Throwable throwable = null;
+					try {
+						result = get(job);
+					} catch (Exception e) {
+						throwable = e;
+					} catch (Error e) { // e.g. java.lang.StackOverflowError
+						logger.error(e);
+						throwable = e;
+					}
+
+					boolean recycle = (throwable instanceof Error);
+					if (!recycle && webClient != null) {
+						try {
+							clearWebClient();
+						} catch (RuntimeException e) {
+							logger.warn("Exception clearing HtmlUnit!", e);
+							recycle = true;
+						}
+					}
+					if (recycle || isRecycle(job.fetcherArgs.getPrivateArgs())) {
+						closeWebClient();
+					}
+
+					idleTimeout = job.fetcherArgs.getPrivateArgs().getHtmlunitIdle();
+
+					if (!release(this)) {
+						job.future.cancel(false);
+						break;
+					}
+
+					if (throwable != null) {
+						job.future.completeExceptionally(throwable);
+					} else {
+						job.future.complete(result);
+					}
+				}
+			} catch (InterruptedException e) {
+				// abandoned or pool closed
+			} finally {
+				closeWebClient();
+				ended(this);
+			}
+		}
+	}
+
+	private final Deque<Worker> idle = new ArrayDeque<>();
+
+	private final List<Worker> busy = new ArrayList<>();
+
+	// abandoned workers whose threads have not ended yet
+	private int stuck = 0;
+
+	private int workerId = 0;
+
+	private boolean closed = false;
+
+	private static long usedAfterGc() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+				MemoryUsage usage = pool.getCollectionUsage();
+				if (usage != null) {
+					used += usage.getUsed();
+				}
+			}
+		}
+		return used;
+	}
+
+	private synchronized Worker acquire(Job job) {
+		if (closed) {
+			throw new IllegalStateException("JavaScript pool closed");
+		}
+		Worker worker = idle.pollFirst();
+		if (worker == null) {
+			worker = new Worker(++workerId);
+			worker.thread.start();
+		}
+		busy.add(worker);
+		worker.job = job;
+		worker.jobs.add(job);
+		return worker;
+	}
+
+	// returns false if the worker was abandoned or the pool closed, in which case the worker must end
+	private synchronized boolean release(Worker worker) {
+		if (worker.abandoned || closed) return false;
+		busy.remove(worker);
+		worker.job = null;
+		idle.addFirst(worker);
+		return true;
+	}
+
+	// returns false if the worker has been acquired for a job meanwhile, in which case the worker must take the job
+	private synchronized boolean retire(Worker worker) {
+		if (worker.job != null) return false;
+		idle.remove(worker);
+		return true;
+	}
+
+	// nothing is done if the worker has already finished the job, as it could be running the job of another caller by now
+	private void abandon(Worker worker, Job job) {
+		synchronized(this) {
+			if (worker.abandoned || worker.job != job || !busy.remove(worker)) return;
+			worker.abandoned = true;
+			++stuck;
+			logger.warn("Abandoning HtmlUnit in {}, {} abandoned HtmlUnit threads not ended", worker.thread.getName(), stuck);
+		}
+		worker.thread.interrupt();
+		worker.closeWebClient();
+	}
+
+	private synchronized void ended(Worker worker) {
+		if (worker.abandoned) {
+			--stuck;
+			logger.info("Abandoned HtmlUnit in {} ended", worker.thread.getName());
+		} else {
+			busy.remove(worker);
+			idle.remove(worker);
+		}
+	}
+
+	/**
+	 * Gets a page with JavaScript in a worker of the pool, waiting for at most
+	 * twice the time of getting it without JavaScript (but not longer than 2
+	 * minutes), after which the worker is abandoned.
+	 */
+	Result get(String url, FetcherArgs fetcherArgs) throws Exception {
+		Job job = new Job(url, fetcherArgs);
+		Worker worker = acquire(job);
+
+		// 2 * timeout is expected timeout if htmlunit behaves, give twice that amount plus a fixed 1 second independent of timeout arg value
+		long timeout = Math.min(2 * 2 * (long) fetcherArgs.getTimeout() + 1000, HARD_TIMEOUT);
+		try {
+			return job.future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			abandon(worker, job);
+			throw new TimeoutException("Getting " + url + " with JavaScript took longer than " + timeout + " ms");
+		} catch (InterruptedException e) {
+			abandon(worker, job);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while getting " + url + " with JavaScript");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		List<Worker> workers;
+		synchronized(this) {
+			closed = true;
+			workers = new ArrayList<>(idle);
+			workers.addAll(busy);
+			idle.clear();
+		}
+		for (Worker worker : workers) {
+			worker.thread.interrupt();
+			worker.closeWebClient();
+		}
+	}
+}
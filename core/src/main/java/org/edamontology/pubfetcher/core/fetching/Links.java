@@ -20,11 +20,13 @@
 package org.edamontology.pubfetcher.core.fetching;
 
 import java.net.MalformedURLException;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -48,32 +50,88 @@ public class Links {
 	private static final Pattern PMCCANADA = Pattern.compile("PUBMEDCENTRALCANADA\\.CA/PMCC/ARTICLES/(" + PubFetcher.PMCID.pattern() + ")");
 	private static final Pattern PMCCANADA_PMID = Pattern.compile("PUBMEDCENTRALCANADA\\.CA/PMCC/ARTICLES/PMID/(" + PubFetcher.PMID.pattern() + ")");
 
-	private List<Link> links;
+	private static final class QueuedLink implements Comparable<QueuedLink> {
+
+		private final Link link;
+
+		private final int rank;
+
+		private final long order;
+
+		private QueuedLink(Link link, long order) {
+			this.link = link;
+			this.rank = rank(link.getType());
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(QueuedLink o) {
+			if (rank != o.rank) return Integer.compare(rank, o.rank);
+			return Long.compare(order, o.order);
+		}
+	}
+
+	// links ordered by type (best first), links of equivalent type in the order they were added
+	private NavigableSet<QueuedLink> links;
+
+	// the links in the queue, for finding an equal link without going through the queue
+	private Map<Link, QueuedLink> queued;
+
+	private long added;
 
 	private Set<Link> triedLinks;
 
 	Links() {
-		links = new ArrayList<>();
+		links = new TreeSet<>();
+		queued = new HashMap<>();
+		added = 0;
 		triedLinks = new LinkedHashSet<>();
 	}
 
+	// a type is better than another if its rank is lower, as in PublicationPartType.isBetterThan
+	private static int rank(PublicationPartType type) {
+		if (type == null) return Integer.MAX_VALUE;
+		return type.isFinal() ? 0 : type.ordinal();
+	}
+
 	boolean isEmpty() {
 		return links.isEmpty();
 	}
 
-	Link pop() {
-		while (!links.isEmpty()) {
-			Link link = links.remove(0);
-			if (!triedLinks.contains(link)) {
-				triedLinks.add(link);
-				return link;
-			}
+	private void removeTried() {
+		while (!links.isEmpty() && triedLinks.contains(links.first().link)) {
+			queued.remove(links.pollFirst().link);
 		}
-		return null;
 	}
 
-	List<Link> getLinks() {
-		return links;
+	Link pop() {
+		removeTried();
+		if (links.isEmpty()) return null;
+		Link link = links.pollFirst().link;
+		queued.remove(link);
+		triedLinks.add(link);
+		return link;
+	}
+
+	/**
+	 * The type of the link that {@link #pop()} would return, which is the best
+	 * type a link remaining in the queue can provide.
+	 *
+	 * @return the type of the best link, or null if no untried links remain
+	 */
+	PublicationPartType peekType() {
+		removeTried();
+		if (links.isEmpty()) return null;
+		return links.first().link.getType();
+	}
+
+	// in the order they would be popped, can include links tried after they were added
+	Iterable<Link> getLinks() {
+		return () -> links.stream().map(queuedLink -> queuedLink.link).iterator();
+	}
+
+	boolean isTried(Link link) {
+		return triedLinks.contains(link);
 	}
 
 	private void extract(Pattern pmcidPattern, Pattern pmidPattern, String url, Publication publication, PublicationPartType type, String from, FetcherArgs fetcherArgs) {
@@ -138,30 +196,20 @@ public class Links {
 			return;
 		}
 
-		int equalIndex = links.indexOf(link);
-		if (equalIndex > -1) {
-			Link equalLink = links.get(equalIndex);
-			if (type.isBetterThan(equalLink.getType())) {
-				logger.info("    Remove link {} found in {} of type {} from position {}", equalLink.getUrl(), equalLink.getFrom(), equalLink.getType(), equalIndex);
-				links.remove(equalIndex);
+		QueuedLink equalLink = queued.get(link);
+		if (equalLink != null) {
+			if (type.isBetterThan(equalLink.link.getType())) {
+				logger.info("    Remove link {} found in {} of type {}", equalLink.link.getUrl(), equalLink.link.getFrom(), equalLink.link.getType());
+				links.remove(equalLink);
 			} else {
 				return;
 			}
 		}
 
-		int i;
-		boolean added = false;
-		for (i = 0; i < links.size(); ++i) {
-			if (type.isBetterThan(links.get(i).getType())) {
-				links.add(i, link);
-				added = true;
-				break;
-			}
-		}
-		if (!added) {
-			links.add(link);
-		}
-		logger.info("    Add link {} found in {} of type {} to position {}", urlString, from, type, i);
+		QueuedLink queuedLink = new QueuedLink(link, added++);
+		links.add(queuedLink);
+		queued.put(link, queuedLink);
+		logger.info("    Add link {} found in {} of type {}", urlString, from, type);
 	}
 
 	void addTriedLink(String url, PublicationPartType type, String from) {
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.xmpbox.XMPMetadata;
+import org.apache.xmpbox.schema.AdobePDFSchema;
+import org.apache.xmpbox.schema.DublinCoreSchema;
+import org.apache.xmpbox.type.BadFieldValueException;
+import org.apache.xmpbox.xml.DomXmpParser;
+import org.apache.xmpbox.xml.XmpParsingException;
+
+/**
+ * Content extracted from a PDF: its document information, text and XMP
+ * metadata. As parsing and extracting text of a large PDF can take long, it
+ * is meant to be done in a thread of its own, which can be interrupted to
+ * cancel the extraction (checked before each page of text). Content not
+ * requested or not found is null.
+ */
+class PdfContent {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final class InterruptibleTextStripper extends PDFTextStripper {
+		@Override
+		protected void startPage(PDPage page) throws IOException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Text extraction of PDF cancelled");
+			}
+			super.startPage(page);
+		}
+	}
+
+	private String infoTitle = null;
+
+	private String infoKeywords = null;
+
+	private String infoSubject = null;
+
+	private String text = null;
+
+	private String dcTitle = null;
+
+	private List<String> dcSubjects = null;
+
+	private String dcDescription = null;
+
+	private String adobeKeywords = null;
+
+	private PdfContent() {
+	}
+
+	/**
+	 * Parses the PDF and extracts the requested content from it.
+	 *
+	 * @param info whether to extract document information
+	 * @param text whether to extract text
+	 * @param metadata whether to extract XMP metadata
+	 * @param maxPages maximum number of first pages to extract text from, or 0
+	 * for all pages
+	 */
+	static PdfContent extract(BoundedPdf pdf, boolean info, boolean text, boolean metadata, int maxPages) throws IOException {
+		PDDocument doc = pdf.load();
+		PdfContent content = new PdfContent();
+
+		if (info) {
+			PDDocumentInformation documentInformation = doc.getDocumentInformation();
+			if (documentInformation != null) {
+				content.infoTitle = documentInformation.getTitle();
+				content.infoKeywords = documentInformation.getKeywords();
+				content.infoSubject = documentInformation.getSubject();
+			}
+		}
+
+		if (text) {
+			try {
+				PDFTextStripper stripper = new InterruptibleTextStripper();
+				if (maxPages > 0) {
+					stripper.setEndPage(maxPages);
+				}
+				content.text = stripper.getText(doc);
+			} catch (InterruptedIOException e) {
+				throw e;
+			} catch (IOException e) {
+				logger.warn(e);
+			}
+		}
+
+		if (metadata) {
+			PDMetadata meta = doc.getDocumentCatalog().getMetadata();
+			if (meta != null) {
+				try (InputStream xmlInputStream = meta.createInputStream()) {
+					XMPMetadata xmp = new DomXmpParser().parse(xmlInputStream);
+
+					DublinCoreSchema dc = xmp.getDublinCoreSchema();
+					if (dc != null) {
+						content.dcTitle = dc.getTitle();
+						content.dcSubjects = dc.getSubjects();
+						content.dcDescription = dc.getDescription();
+					}
+
+					AdobePDFSchema adobe = xmp.getAdobePDFSchema();
+					if (adobe != null) {
+						content.adobeKeywords = adobe.getKeywords();
+					}
+				} catch (IOException e) {
+					logger.warn(e);
+				} catch (XmpParsingException e) {
+					logger.warn(e);
+				} catch (BadFieldValueException e) {
+					logger.warn(e);
+				} catch (IllegalArgumentException e) {
+					logger.warn(e);
+				}
+			}
+		}
+
+		return content;
+	}
+
+	String getInfoTitle() {
+		return infoTitle;
+	}
+
+	String getInfoKeywords() {
+		return infoKeywords;
+	}
+
+	String getInfoSubject() {
+		return infoSubject;
+	}
+
+	String getText() {
+		return text;
+	}
+
+	String getDcTitle() {
+		return dcTitle;
+	}
+
+	List<String> getDcSubjects() {
+		return dcSubjects;
+	}
+
+	String getDcDescription() {
+		return dcDescription;
+	}
+
+	String getAdobeKeywords() {
+		return adobeKeywords;
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * Token bucket rate limiting of requests to hosts. The rate and burst size of
+ * hosts are read from the default rate limits and optionally from a custom
+ * YAML file (see {@link FetcherPrivateArgs#getRateLimitsYaml()}). A
+ * Retry-After header in a 429 or 503 response pauses the requests to the
+ * host (also if it has no configured rate limit) until the given time.
+ */
+class RateLimiter {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final String RATE_LIMITS_DEFAULT = "rate_limits.yaml";
+
+	// longest pause set from a Retry-After header
+	private static final long RETRY_AFTER_MAX = 3600000; // 1 hour
+	// a request failing with Retry-After is retried right away only if the wait is not longer than this
+	private static final long RETRY_WAIT_MAX = 60000; // 1 minute
+
+	private static final class Bucket {
+
+		// tokens per nanosecond, or 0 if not rate limited (only paused by Retry-After)
+		private final double rate;
+
+		private final double burst;
+
+		private double tokens;
+
+		// time tokens were last added, can be in the future if paused
+		private long last;
+
+		private Bucket(double rate, double burst) {
+			this.rate = rate / 1000000000.0;
+			this.burst = burst;
+			this.tokens = burst;
+			this.last = System.nanoTime();
+		}
+
+		// takes a token, returning the time in nanoseconds to wait before the request can be made
+		private synchronized long take() {
+			long now = System.nanoTime();
+			if (now > last) {
+				tokens = (rate > 0 ? Math.min(burst, tokens + (now - last) * rate) : burst);
+				last = now;
+			}
+			long wait = Math.max(last - now, 0);
+			if (rate > 0) {
+				tokens -= 1;
+				if (tokens < 0) {
+					wait += (long) (-tokens / rate);
+				}
+			}
+			return wait;
+		}
+
+		private synchronized void pause(long until) {
+			if (until > last) {
+				tokens = Math.min(tokens, 0);
+				last = until;
+			}
+		}
+
+		private synchronized long paused() {
+			return last - System.nanoTime();
+		}
+	}
+
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	RateLimiter(FetcherPrivateArgs fetcherPrivateArgs) throws IOException, ParseException {
+		InputStream resource = this.getClass().getResourceAsStream("/fetching/" + RATE_LIMITS_DEFAULT);
+		if (resource == null) {
+			throw new MissingResourceException("Can't find rate limits '" + RATE_LIMITS_DEFAULT + "'!", this.getClass().getSimpleName(), RATE_LIMITS_DEFAULT);
+		}
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+			parse(br, RATE_LIMITS_DEFAULT, fetcherPrivateArgs);
+		}
+
+		String rateLimits = fetcherPrivateArgs.getRateLimitsYaml();
+		if (rateLimits != null && !rateLimits.isEmpty()) {
+			try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(rateLimits), StandardCharsets.UTF_8))) {
+				parse(br, rateLimits, fetcherPrivateArgs);
+			}
+		}
+	}
+
+	private static double getNumber(Map<?, ?> limit, String key, double defaultValue, String host, String name, int pos) throws ParseException {
+		Object value = limit.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (!(value instanceof Number) || ((Number) value).doubleValue() <= 0) {
+			throw new ParseException("Value of " + key + " of host " + host + " must be a positive number in rate limits '" + name + "'! (pos " + pos + ")", pos);
+		}
+		return ((Number) value).doubleValue();
+	}
+
+	private static boolean hasApiKey(String host, FetcherPrivateArgs fetcherPrivateArgs) {
+		return host.equals("eutils.ncbi.nlm.nih.gov") && !fetcherPrivateArgs.getNcbiApiKey().isEmpty();
+	}
+
+	private void parse(BufferedReader br, String name, FetcherPrivateArgs fetcherPrivateArgs) throws ParseException {
+		Object yaml;
+		try {
+			yaml = new Yaml().load(br);
+		} catch (YAMLException e) {
+			throw new ParseException("Syntax error in rate limits '" + name + "'!\n" + e, 0);
+		}
+		if (yaml == null) return;
+		if (!(yaml instanceof Map)) {
+			throw new ParseException("Rate limits '" + name + "' must be a map of hosts!", 0);
+		}
+		int i = 0;
+		for (Map.Entry<?, ?> entry : ((Map<?, ?>) yaml).entrySet()) {
+			++i;
+			String host = String.valueOf(entry.getKey()).trim().toLowerCase(Locale.ROOT);
+			if (host.startsWith("www.")) {
+				host = host.substring(4);
+			}
+			if (host.isEmpty()) {
+				throw new ParseException("Host cannot be empty in rate limits '" + name + "'! (pos " + i + ")", i);
+			}
+			if (!(entry.getValue() instanceof Map)) {
+				throw new ParseException("Rate limit of host " + host + " must be a map in rate limits '" + name + "'! (pos " + i + ")", i);
+			}
+			Map<?, ?> limit = (Map<?, ?>) entry.getValue();
+			double rate = getNumber(limit, "rate", 0, host, name, i);
+			if (rate == 0) {
+				throw new ParseException("Missing rate of host " + host + " in rate limits '" + name + "'! (pos " + i + ")", i);
+			}
+			double burst = getNumber(limit, "burst", 1, host, name, i);
+			if (hasApiKey(host, fetcherPrivateArgs)) {
+				rate = getNumber(limit, "rate_api_key", rate, host, name, i);
+				burst = getNumber(limit, "burst_api_key", burst, host, name, i);
+			}
+			buckets.put(host, new Bucket(rate, Math.max(burst, 1)));
+		}
+	}
+
+	/**
+	 * Waits until a request to the given host can be made.
+	 *
+	 * @return false if interrupted while waiting
+	 */
+	boolean acquire(String host) {
+		Bucket bucket = buckets.get(host);
+		if (bucket == null) return true;
+		long wait = bucket.take();
+		if (wait > 0) {
+			long waitMillis = TimeUnit.NANOSECONDS.toMillis(wait);
+			if (waitMillis >= 1000) {
+				logger.info("Waiting {} ms for rate limit of host {}", waitMillis, host);
+			}
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				// expected when a concurrent request is cancelled
+				logger.debug("Interrupted while waiting for rate limit of host {}", host);
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// in milliseconds (at most RETRY_AFTER_MAX), or -1 if missing or malformed
+	static long parseRetryAfter(String retryAfter) {
+		if (retryAfter == null) return -1;
+		retryAfter = retryAfter.trim();
+		try {
+			// clamped before converting to milliseconds, so that huge values can't overflow
+			return Math.min(Math.max(Long.parseLong(retryAfter), 0), RETRY_AFTER_MAX / 1000) * 1000;
+		} catch (NumberFormatException e) {
+			try {
+				return Math.min(Math.max(ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis(), 0), RETRY_AFTER_MAX);
+			} catch (DateTimeParseException e2) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Feeds back the status and Retry-After header of a response from the
+	 * given host.
+	 */
+	void update(String host, int status, String retryAfter) {
+		if (host == null || status != 429 && status != 503) return;
+		long millis = parseRetryAfter(retryAfter);
+		if (millis < 0) return;
+		logger.warn("Pausing requests to host {} for {} ms, as asked by status {}", host, millis, status);
+		long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		buckets.computeIfAbsent(host, h -> new Bucket(0, 1)).pause(until);
+	}
+
+	/**
+	 * Whether a request to the given host that failed with the given status
+	 * should be retried. This is the case if the host asked to retry after a
+	 * short enough time, which must then be waited for with {@link #acquire}
+	 * before retrying.
+	 */
+	boolean retry(String host, int status) {
+		if (host == null || status != 429 && status != 503) return false;
+		Bucket bucket = buckets.get(host);
+		if (bucket == null) return false;
+		long paused = bucket.paused();
+		if (paused <= 0 || TimeUnit.NANOSECONDS.toMillis(paused) > RETRY_WAIT_MAX) return false;
+		logger.info("Retrying request to host {} after status {}", host, status);
+		return true;
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of PubFetcher.
+ *
+ * PubFetcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PubFetcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with PubFetcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.edamontology.pubfetcher.core.fetching;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.FirefoxProfile;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+
+/**
+ * A pool of Selenium WebDrivers (headless Firefox instances) shared by all
+ * fetching threads. At most {@link FetcherPrivateArgs#getSeleniumDrivers()}
+ * WebDrivers are in use at once, started when first needed (or in the
+ * background beforehand, with {@link FetcherPrivateArgs#getSeleniumWarmup()}).
+ * Before a WebDriver is handed out, it is checked to still respond, and it is
+ * restarted if it has loaded {@link FetcherPrivateArgs#getSeleniumMaxPages()}
+ * pages or grown larger than {@link FetcherPrivateArgs#getSeleniumMaxMemory()}.
+ * WebDrivers idle for longer than {@link FetcherPrivateArgs#getSeleniumIdle()}
+ * are closed. Waiting times and utilization of the pool are logged when it is
+ * closed.
+ */
+class WebDriverPool implements AutoCloseable {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final long MB = 1048576;
+
+	/**
+	 * A place for a WebDriver in the pool, acquired by one fetching thread at a
+	 * time. The WebDriver is null if not started yet or closed.
+	 */
+	static final class Slot {
+		private final int index;
+		private WebDriver driver = null;
+		private int pages = 0;
+		private long idleSince = 0;
+		private long acquired = 0;
+		private Slot(int index) {
+			this.index = index;
+		}
+		WebDriver getDriver() {
+			return driver;
+		}
+	}
+
+	private final FetcherPrivateArgs fetcherPrivateArgs;
+
+	private final int max;
+
+	// free slots, with the most recently used first and slots without a WebDriver last
+	private final Deque<Slot> free = new ArrayDeque<>();
+
+	private final List<Slot> slots = new ArrayList<>();
+
+	private boolean closed = false;
+
+	// closing idle WebDrivers and starting WebDrivers in the background, created on first use
+	private ScheduledExecutorService maintenance = null;
+
+	private final long created = System.currentTimeMillis();
+	private long acquisitions = 0;
+	private long waits = 0;
+	private long waitTotal = 0;
+	private long waitMax = 0;
+	private long waitTimeouts = 0;
+	private long busyTotal = 0;
+	private long started = 0;
+	private long restarted = 0;
+	private long evicted = 0;
+
+	WebDriverPool(FetcherPrivateArgs fetcherPrivateArgs) {
+		this.fetcherPrivateArgs = fetcherPrivateArgs;
+		this.max = Math.max(1, fetcherPrivateArgs.getSeleniumDrivers());
+	}
+
+	private WebDriver makeWebDriver(int index) {
+		logger.info("Making WebDriver {}", index);
+		FirefoxOptions options = new FirefoxOptions();
+		if (!fetcherPrivateArgs.getSeleniumGeckodriver().isEmpty()) {
+			System.setProperty("webdriver.gecko.driver", fetcherPrivateArgs.getSeleniumGeckodriver());
+		}
+		if (!fetcherPrivateArgs.getSeleniumFirefox().isEmpty()) {
+			options.setBinary(fetcherPrivateArgs.getSeleniumFirefox());
+		}
+		options.addArguments("-headless");
+		FirefoxProfile profile = new FirefoxProfile();
+		options.setProfile(profile);
+		options.setAcceptInsecureCerts(true);
+		//options.setScriptTimeout(Duration.ofMillis(10000));
+		options.addPreference("general.useragent.override", fetcherPrivateArgs.getUserAgent());
+		WebDriver driver = new FirefoxDriver(options);
+		synchronized(this) {
+			++started;
+		}
+		return driver;
+	}
+
+	private static void quit(Slot slot) {
+		if (slot.driver != null) {
+			try {
+				slot.driver.quit();
+			} catch (WebDriverException e) {
+				logger.warn("Exception quitting WebDriver {}!", slot.index, e);
+			}
+			slot.driver = null;
+		}
+	}
+
+	// resident memory of a process as reported by Linux, or -1 if not available
+	private static long rss(long pid) {
+		Path status = Paths.get("/proc", String.valueOf(pid), "status");
+		if (!Files.isReadable(status)) return -1;
+		try (BufferedReader br = Files.newBufferedReader(status, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			logger.debug(e);
+		}
+		return -1;
+	}
+
+	// resident memory of the Firefox of the WebDriver and its child processes, or -1 if not available
+	private static long memory(WebDriver driver) {
+		if (!(driver instanceof HasCapabilities)) return -1;
+		Object pid = ((HasCapabilities) driver).getCapabilities().getCapability("moz:processID");
+		if (!(pid instanceof Number)) return -1;
+		Optional<ProcessHandle> process = ProcessHandle.of(((Number) pid).longValue());
+		if (!process.isPresent()) return -1;
+		long memory = rss(process.get().pid());
+		if (memory < 0) return -1;
+		for (ProcessHandle descendant : (Iterable<ProcessHandle>) process.get().descendants()::iterator) {
+			memory += Math.max(0, rss(descendant.pid()));
+		}
+		return memory;
+	}
+
+	private static boolean isHealthy(WebDriver driver) {
+		try {
+			driver.getWindowHandle();
+			return true;
+		} catch (WebDriverException e) {
+			logger.warn(e);
+			return false;
+		}
+	}
+
+	// done in the acquiring thread, as starting and quitting Firefox is slow
+	private void prepare(Slot slot, boolean restart, long pageLoadTimeout) {
+		if (slot.driver != null) {
+			String reason = null;
+			long memory;
+			if (restart) {
+				reason = "restart required by scraping rules";
+			} else if (fetcherPrivateArgs.getSeleniumMaxPages() > 0 && slot.pages >= fetcherPrivateArgs.getSeleniumMaxPages()) {
+				reason = slot.pages + " pages loaded";
+			} else if (fetcherPrivateArgs.getSeleniumMaxMemory() > 0 && (memory = memory(slot.driver)) > fetcherPrivateArgs.getSeleniumMaxMemory() * MB) {
+				reason = (memory / MB) + " MB of memory used";
+			} else if (!isHealthy(slot.driver)) {
+				reason = "not responding";
+			}
+			if (reason != null) {
+				logger.info("Restarting WebDriver {}, as {}", slot.index, reason);
+				quit(slot);
+				synchronized(this) {
+					++restarted;
+				}
+			}
+		}
+		if (slot.driver == null) {
+			slot.driver = makeWebDriver(slot.index);
+			slot.pages = 0;
+		}
+		if (slot.driver.manage().timeouts().getPageLoadTimeout().toMillis() != pageLoadTimeout) {
+			slot.driver.manage().timeouts().pageLoadTimeout(Duration.ofMillis(pageLoadTimeout));
+		}
+		++slot.pages;
+	}
+
+	/**
+	 * Acquires a started and responding WebDriver, waiting for a free one if
+	 * all are in use. The slot must be given back with
+	 * {@link #release(Slot)}.
+	 *
+	 * @param restart whether to start a new WebDriver instead of reusing one
+	 * @param pageLoadTimeout page load timeout in milliseconds to set to the
+	 * WebDriver
+	 * @throws TimeoutException if no WebDriver got free in
+	 * {@link FetcherPrivateArgs#getSeleniumWait()}
+	 */
+	Slot acquire(boolean restart, long pageLoadTimeout) throws InterruptedException, TimeoutException {
+		Slot slot;
+		long start = System.currentTimeMillis();
+		synchronized(this) {
+			long waitTimeout = fetcherPrivateArgs.getSeleniumWait();
+			boolean waited = false;
+			while (true) {
+				if (closed) {
+					throw new IllegalStateException("WebDriver pool closed");
+				}
+				slot = free.pollFirst();
+				if (slot == null && slots.size() < max) {
+					slot = new Slot(slots.size());
+					slots.add(slot);
+				}
+				if (slot != null) {
+					break;
+				}
+				if (!waited) {
+					logger.info("Waiting for free WebDriver");
+					waited = true;
+				}
+				if (waitTimeout > 0) {
+					long remaining = waitTimeout - (System.currentTimeMillis() - start);
+					if (remaining <= 0) {
+						++waitTimeouts;
+						throw new TimeoutException("No free WebDriver in " + waitTimeout + " ms");
+					}
+					wait(remaining);
+				} else {
+					wait();
+				}
+			}
+			long now = System.currentTimeMillis();
+			long waitTime = now - start;
+			++acquisitions;
+			if (waited) {
+				++waits;
+				logger.info("Found free WebDriver {} after {} ms", slot.index, waitTime);
+			}
+			waitTotal += waitTime;
+			waitMax = Math.max(waitMax, waitTime);
+			slot.acquired = now;
+		}
+		getMaintenance();
+		try {
+			prepare(slot, restart, pageLoadTimeout);
+		} catch (RuntimeException | Error e) {
+			quit(slot);
+			release(slot);
+			throw e;
+		}
+		return slot;
+	}
+
+	void release(Slot slot) {
+		synchronized(this) {
+			long now = System.currentTimeMillis();
+			busyTotal += now - slot.acquired;
+			slot.idleSince = now;
+			if (closed) {
+				quit(slot);
+			} else if (slot.driver != null) {
+				free.addFirst(slot);
+			} else {
+				free.addLast(slot);
+			}
+			notifyAll();
+		}
+	}
+
+	private void evictIdle() {
+		long idle = fetcherPrivateArgs.getSeleniumIdle();
+		List<Slot> evict = new ArrayList<>();
+		synchronized(this) {
+			long now = System.currentTimeMillis();
+			for (Iterator<Slot> it = free.iterator(); it.hasNext(); ) {
+				Slot slot = it.next();
+				if (slot.driver != null && now - slot.idleSince > idle) {
+					it.remove();
+					evict.add(slot);
+				}
+			}
+		}
+		for (Slot slot : evict) {
+			logger.info("Closing WebDriver {}, as it has been idle for more than {} ms", slot.index, idle);
+			quit(slot);
+		}
+		synchronized(this) {
+			for (Slot slot : evict) {
+				if (!closed) {
+					free.addLast(slot);
+				}
+				++evicted;
+			}
+			notifyAll();
+		}
+	}
+
+	private void warmUp() {
+		for (int i = 0; i < Math.min(fetcherPrivateArgs.getSeleniumWarmup(), max); ++i) {
+			Slot slot;
+			synchronized(this) {
+				if (closed || slots.size() >= max) return;
+				slot = new Slot(slots.size());
+				slots.add(slot);
+				slot.acquired = System.currentTimeMillis();
+			}
+			try {
+				slot.driver = makeWebDriver(slot.index);
+			} catch (RuntimeException e) {
+				logger.error("Exception starting WebDriver {}!", slot.index, e);
+			}
+			synchronized(this) {
+				slot.idleSince = System.currentTimeMillis();
+				if (closed) {
+					quit(slot);
+				} else if (slot.driver != null) {
+					free.addFirst(slot);
+				} else {
+					free.addLast(slot);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private ScheduledExecutorService getMaintenance() {
+		synchronized(this) {
+			if (maintenance == null) {
+				maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+					Thread t = new Thread(r, "selenium");
+					t.setDaemon(true);
+					return t;
+				});
+				long idle = fetcherPrivateArgs.getSeleniumIdle();
+				if (idle > 0) {
+					long period = Math.max(1000, idle / 2);
+					maintenance.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+				}
+			}
+			return maintenance;
+		}
+	}
+
+	/**
+	 * Starts {@link FetcherPrivateArgs#getSeleniumWarmup()} WebDrivers in the
+	 * background.
+	 */
+	void startWarmUp() {
+		if (fetcherPrivateArgs.getSeleniumWarmup() > 0) {
+			getMaintenance().execute(this::warmUp);
+		}
+	}
+
+	private synchronized String stats() {
+		long elapsed = System.currentTimeMillis() - created;
+		return acquisitions + " page loads, " + waits + " waited for a free WebDriver (" + (acquisitions > 0 ? waitTotal / acquisitions : 0) + " ms on average, " + waitMax + " ms at most, " + waitTimeouts + " timed out), "
+			+ (elapsed > 0 ? Math.round(100.0 * busyTotal / (max * elapsed)) : 0) + "% utilization of " + max + " WebDrivers, "
+			+ started + " started, " + restarted + " restarted, " + evicted + " closed as idle";
+	}
+
+	@Override
+	public void close() {
+		List<Slot> quit;
+		boolean used;
+		synchronized(this) {
+			if (closed) return;
+			used = (acquisitions > 0);
+			closed = true;
+			quit = new ArrayList<>(free);
+			free.clear();
+			if (maintenance != null) {
+				maintenance.shutdownNow();
+			}
+			notifyAll();
+		}
+		for (Slot slot : quit) {
+			quit(slot);
+		}
+		if (used) {
+			logger.info("WebDriver pool: {}", stats());
+		}
+	}
+}